@@ -10,6 +10,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import pro.belbix.ethparser.properties.AppProperties;
 import pro.belbix.ethparser.properties.SubscriptionsProperties;
 
@@ -35,6 +36,12 @@ public class AppConfig {
     @EnableWebSocketMessageBroker
     public static class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+        private final AppProperties appProperties;
+
+        public WebSocketConfig(AppProperties appProperties) {
+            this.appProperties = appProperties;
+        }
+
         @Override
         public void configureMessageBroker(MessageBrokerRegistry config) {
             config.enableSimpleBroker("/topic");
@@ -47,6 +54,13 @@ public class AppConfig {
                 .setAllowedOrigins("*")
                 .withSockJS();
         }
+
+        @Override
+        public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+            registration
+                .setSendTimeLimit(appProperties.getWsSendTimeLimitMs())
+                .setSendBufferSizeLimit(appProperties.getWsSendBufferSizeKb() * 1024);
+        }
     }
 
 }
@@ -14,11 +14,9 @@ import static pro.belbix.ethparser.ws.WsService.TRANSFERS_TOPIC_NAME;
 import static pro.belbix.ethparser.ws.WsService.UNI_TRANSACTIONS_TOPIC_NAME;
 
 import java.util.Random;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Component;
-import pro.belbix.ethparser.dto.DtoI;
 import pro.belbix.ethparser.properties.AppProperties;
 import pro.belbix.ethparser.web3.Web3Parser;
 import pro.belbix.ethparser.web3.Web3Service;
@@ -57,6 +55,8 @@ public class AppStarter {
     public AtomicBoolean run = new AtomicBoolean(true); //for gentle stop
     private boolean web3TransactionsStarted = false;
     private boolean web3LogsStarted = false;
+    private boolean web3TransactionsRequested = false;
+    private boolean web3LogsRequested = false;
 
     public AppStarter(Web3Service web3Service,
                       HarvestTransactionsParser harvestTransactionsParser,
@@ -131,6 +131,8 @@ public class AppStarter {
             if (conf.isParseDeployerTransactions()) {
                 startParse(web3Service, deployerTransactionsParser, ws, DEPLOYER_TRANSACTIONS_TOPIC_NAME, false);
             }
+            // after all parsers, the log flow starts from their cursors
+            startWeb3Subscriptions(web3Service);
         }
     }
 
@@ -155,26 +157,22 @@ public class AppStarter {
     public void startParse(Web3Service web3Service, Web3Parser parser, WsService ws,
                            String topicName, boolean logs) {
         if (logs) {
-            startWeb3SubscribeLog(web3Service);
+            web3LogsRequested = true;
         } else {
-            startWeb3SubscribeTx(web3Service);
+            web3TransactionsRequested = true;
         }
         parser.startParse();
 
-        new Thread(() -> {
-            while (run.get()) {
-                DtoI dto = null;
-                try {
-                    dto = parser.getOutput().poll(1, TimeUnit.SECONDS);
-                } catch (InterruptedException ignored) {
-                }
-                if (dto != null && topicName != null) {
-                    log.debug("Sent to ws {} {}", topicName, dto);
-                    ws.send(topicName, dto);
-                }
-            }
-        }).start();
+        ws.forward(topicName, parser.getOutput());
+    }
 
+    private void startWeb3Subscriptions(Web3Service web3Service) {
+        if (web3LogsRequested) {
+            startWeb3SubscribeLog(web3Service);
+        }
+        if (web3TransactionsRequested) {
+            startWeb3SubscribeTx(web3Service);
+        }
     }
 
     private void startWeb3SubscribeLog(Web3Service web3Service) {
@@ -1,21 +1,40 @@
 package pro.belbix.ethparser.controllers;
 
+import java.util.Map;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
+import pro.belbix.ethparser.web3.MeteredQueue;
 import pro.belbix.ethparser.web3.ParserInfo;
+import pro.belbix.ethparser.web3.ParserQueues;
+import pro.belbix.ethparser.web3.ParserRuntime;
 
 @RestController
 public class AppStatusController {
 
     private final ParserInfo parserInfo;
+    private final ParserRuntime parserRuntime;
+    private final ParserQueues parserQueues;
 
-    public AppStatusController(ParserInfo parserInfo) {
+    public AppStatusController(ParserInfo parserInfo, ParserRuntime parserRuntime,
+                               ParserQueues parserQueues) {
         this.parserInfo = parserInfo;
+        this.parserRuntime = parserRuntime;
+        this.parserQueues = parserQueues;
     }
 
     @GetMapping(value = "/status/parsers", produces = MediaType.APPLICATION_JSON_VALUE)
     public String statusAll() {
         return parserInfo.getInfoForAllParsers();
     }
+
+    @GetMapping(value = "/status/workers", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Boolean> workers() {
+        return parserRuntime.status();
+    }
+
+    @GetMapping(value = "/status/queues", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, MeteredQueue.Stats> queues() {
+        return parserQueues.stats();
+    }
 }
@@ -1,21 +1,29 @@
 package pro.belbix.ethparser.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import pro.belbix.ethparser.dto.v0.PriceDTO;
 import pro.belbix.ethparser.entity.contracts.VaultEntity;
+import pro.belbix.ethparser.model.PriceBatchRequest;
 import pro.belbix.ethparser.model.RestResponse;
+import pro.belbix.ethparser.model.TokenPrice;
 import pro.belbix.ethparser.repositories.v0.PriceRepository;
 import pro.belbix.ethparser.web3.EthBlockService;
+import pro.belbix.ethparser.web3.contracts.ContractConstants;
 import pro.belbix.ethparser.web3.contracts.ContractType;
 import pro.belbix.ethparser.web3.contracts.ContractUtils;
+import pro.belbix.ethparser.web3.prices.PriceIndex;
 import pro.belbix.ethparser.web3.prices.PriceProvider;
 
 @RestController
@@ -23,16 +31,21 @@ import pro.belbix.ethparser.web3.prices.PriceProvider;
 @Log4j2
 public class PriceController {
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private final PriceProvider priceProvider;
     private final EthBlockService ethBlockService;
     private final PriceRepository priceRepository;
+    private final PriceIndex priceIndex;
 
     public PriceController(PriceProvider priceProvider,
                            EthBlockService ethBlockService,
-                           PriceRepository priceRepository) {
+                           PriceRepository priceRepository,
+                           PriceIndex priceIndex) {
         this.priceProvider = priceProvider;
         this.ethBlockService = ethBlockService;
         this.priceRepository = priceRepository;
+        this.priceIndex = priceIndex;
     }
 
     @GetMapping(value = "/lp/{lp}")
@@ -105,4 +118,79 @@ public class PriceController {
     public List<PriceDTO> lastReward() {
         return priceRepository.fetchLastPrices();
     }
+
+    @PostMapping(value = "/token/batch")
+    public RestResponse tokenBatch(@RequestBody PriceBatchRequest request) {
+        try {
+            if (request.getTokens() == null || request.getTokens().isEmpty()) {
+                return RestResponse.error("Tokens required");
+            }
+            List<String> tokenNames = new ArrayList<>();
+            for (String token : request.getTokens()) {
+                String tokenName = resolveTokenName(token);
+                if (tokenName == null) {
+                    return RestResponse.error("Token " + token + " not supported");
+                }
+                tokenNames.add(tokenName);
+            }
+            List<TokenPrice> prices;
+            if (request.getBlocks() != null && !request.getBlocks().isEmpty()) {
+                if (tokenNames.size() * request.getBlocks().size() > PriceIndex.MAX_POINTS) {
+                    return RestResponse.error("Too many points, max " + PriceIndex.MAX_POINTS);
+                }
+                prices = priceIndex.pricesByBlocks(tokenNames, request.getBlocks());
+            } else if (request.getTimestamps() != null && !request.getTimestamps().isEmpty()) {
+                if (tokenNames.size() * request.getTimestamps().size() > PriceIndex.MAX_POINTS) {
+                    return RestResponse.error("Too many points, max " + PriceIndex.MAX_POINTS);
+                }
+                prices = priceIndex.pricesByDates(tokenNames, request.getTimestamps());
+            } else {
+                return RestResponse.error("Blocks or timestamps required");
+            }
+            return RestResponse.ok(OBJECT_MAPPER.writeValueAsString(prices));
+        } catch (Exception e) {
+            log.warn("Error token batch request", e);
+            return RestResponse.error("Server error");
+        }
+    }
+
+    @GetMapping(value = "/token/{token}/history")
+    public RestResponse tokenHistory(@PathVariable("token") String token,
+                                     @RequestParam("start") long start,
+                                     @RequestParam("end") long end,
+                                     @RequestParam(value = "step", required = false, defaultValue = "3600")
+                                         long step) {
+        try {
+            String tokenName = resolveTokenName(token);
+            if (tokenName == null) {
+                return RestResponse.error("Token " + token + " not supported");
+            }
+            if (step <= 0 || end < start) {
+                return RestResponse.error("Wrong range");
+            }
+            if ((end - start) / step + 1 > PriceIndex.MAX_POINTS) {
+                return RestResponse.error("Too many points, max " + PriceIndex.MAX_POINTS);
+            }
+            return RestResponse.ok(OBJECT_MAPPER.writeValueAsString(
+                priceIndex.history(tokenName, start, end, step)));
+        } catch (Exception e) {
+            log.warn("Error token history request", e);
+            return RestResponse.error("Server error");
+        }
+    }
+
+    private static String resolveTokenName(String token) {
+        String tokenName = token;
+        if (token.startsWith("0x")) {
+            tokenName = ContractUtils.getNameByAddress(token).orElse(null);
+            if (tokenName == null) {
+                return null;
+            }
+        }
+        String simpleName = ContractConstants.simplifyName(tokenName);
+        if (!ContractUtils.isTokenName(simpleName) && !ContractUtils.isStableCoin(simpleName)) {
+            return null;
+        }
+        return simpleName;
+    }
 }
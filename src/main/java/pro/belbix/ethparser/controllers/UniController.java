@@ -4,15 +4,18 @@ import static pro.belbix.ethparser.utils.CommonUtils.parseLong;
 
 import java.util.List;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import pro.belbix.ethparser.dto.v0.UniswapDTO;
 import pro.belbix.ethparser.repositories.v0.UniswapRepository;
 import pro.belbix.ethparser.repositories.v0.UniswapRepository.OhlcProjection;
+import pro.belbix.ethparser.service.CandleService;
 import pro.belbix.ethparser.web3.uniswap.db.UniswapDbService;
 
 @ConditionalOnExpression("!${ethparser.onlyParse:false}")
@@ -21,11 +24,14 @@ public class UniController {
 
     private final UniswapRepository uniswapRepository;
     private final UniswapDbService uniswapDbService;
+    private final CandleService candleService;
 
     public UniController(UniswapRepository uniswapRepository,
-                         UniswapDbService uniswapDbService) {
+                         UniswapDbService uniswapDbService,
+                         CandleService candleService) {
         this.uniswapRepository = uniswapRepository;
         this.uniswapDbService = uniswapDbService;
+        this.candleService = candleService;
     }
 
     @RequestMapping(value = "api/transactions/history/uni", method = RequestMethod.GET)
@@ -37,8 +43,14 @@ public class UniController {
     @RequestMapping(value = "api/transactions/history/uni/ohcl/{name}", method = RequestMethod.GET)
     public Iterable<OhlcProjection> ohclUniswapTx(@PathVariable("name") String name,
                                                   @RequestParam(value = "start", required = false) String start,
-                                                  @RequestParam(value = "end", required = false) String end) {
-        return uniswapRepository.fetchOHLCTransactions(name, parseLong(start, 0), parseLong(end, Long.MAX_VALUE), 3600);
+                                                  @RequestParam(value = "end", required = false) String end,
+                                                  @RequestParam(value = "interval", required = false, defaultValue = "1h")
+                                                      String interval) {
+        Integer period = CandleService.INTERVALS.get(interval);
+        if (period == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown interval " + interval);
+        }
+        return candleService.fetchCandles(name, period, parseLong(start, 0), parseLong(end, Long.MAX_VALUE));
     }
 
     @GetMapping("/history/uni/{address}")
@@ -0,0 +1,30 @@
+package pro.belbix.ethparser.entity.v0;
+
+import javax.persistence.Cacheable;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import lombok.Data;
+
+@Entity
+@Table(name = "candles", indexes = {
+    @Index(name = "idx_candles", columnList = "source,period,timestamp")
+})
+@Cacheable(false)
+@Data
+public class CandleEntity {
+
+    @Id
+    private String id;
+    private String source;
+    private int period;
+    private long timestamp;
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private double volume;
+    private long openTime;
+    private long closeTime;
+}
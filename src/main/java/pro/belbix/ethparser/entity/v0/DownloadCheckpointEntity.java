@@ -0,0 +1,23 @@
+package pro.belbix.ethparser.entity.v0;
+
+import javax.persistence.Cacheable;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import lombok.Data;
+
+@Entity
+@Table(name = "download_checkpoints")
+@Cacheable(false)
+@Data
+public class DownloadCheckpointEntity {
+
+    @Id
+    private String id;
+    private String downloader;
+    private String contract;
+    private long chunkStart;
+    private long chunkEnd;
+    private Long lastBlock;
+    private boolean done;
+}
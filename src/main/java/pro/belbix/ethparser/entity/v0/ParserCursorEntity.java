@@ -0,0 +1,20 @@
+package pro.belbix.ethparser.entity.v0;
+
+import javax.persistence.Cacheable;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import lombok.Data;
+
+@Entity
+@Table(name = "parser_cursors")
+@Cacheable(false)
+@Data
+public class ParserCursorEntity {
+
+    @Id
+    private String parser;
+    private long block;
+    private long logIndex;
+    private long updated;
+}
@@ -0,0 +1,12 @@
+package pro.belbix.ethparser.model;
+
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class PriceBatchRequest {
+
+    private List<String> tokens;
+    private List<Long> blocks;
+    private List<Long> timestamps;
+}
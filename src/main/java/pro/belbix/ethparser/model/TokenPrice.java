@@ -0,0 +1,17 @@
+package pro.belbix.ethparser.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import lombok.Data;
+
+@Data
+public class TokenPrice {
+
+    private String token;
+    private long block;
+    private long timestamp;
+    private double price;
+    // the token price can't be resolved, other fields are empty
+    @JsonInclude(Include.NON_NULL)
+    private String error;
+}
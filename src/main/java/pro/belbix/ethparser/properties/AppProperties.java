@@ -1,5 +1,7 @@
 package pro.belbix.ethparser.properties;
 
+import java.util.HashMap;
+import java.util.Map;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -28,6 +30,8 @@ public class AppProperties {
     // log parsing
     private boolean parseLog = true;
     private String startLogBlock = "";
+    // parse logs only from blocks with this count of blocks on top, 0 for the latest
+    private int logConfirmations = 0;
     private boolean parseUniswapLog = true;
     private boolean parseHarvestLog = true;
     private boolean parseHardWorkLog = true;
@@ -42,12 +46,41 @@ public class AppProperties {
     private String startTransactionBlock = "";
     private boolean parseHarvest = false;
     private boolean parseDeployerTransactions = true;
+    // fetch full blocks only if logsBloom has our vaults or pools, txs without logs will be skipped
+    // ignored while parseDeployerTransactions is on, deployer txs are found by the sender
+    private boolean transactionsBloomFilter = false;
 
     // block parsing
     private boolean parseBlocks = false;
     private String startBlocksBlock = "";
 
     private boolean updateContracts = false;
+    private int contractLoaderThreads = 4;
     private boolean stopOnParseError = false;
+    // threads per parser for vault, pair and transfer logs, logs of one key keep their order
+    private int parserLanes = 1;
+    // parser queues: array, linked or ring (lock-free), a queue is set by its name like UniswapLpLogParser-in
+    private String parserQueueType = "array";
+    private int parserQueueCapacity = 100;
+    private Map<String, String> parserQueueTypes = new HashMap<>();
+    private Map<String, Integer> parserQueueCapacities = new HashMap<>();
     private boolean skipSimilarPrices = true;
+
+    // background price refreshing for quiet tokens
+    private boolean refreshPrices = false;
+    private int priceRefreshBlocks = 500;
+
+    // warm state file for fast restarts, empty for disable
+    private String snapshotFile = "";
+    private int snapshotMaxBlocks = 1000;
+
+    // websocket fan-out
+    private int wsBatchMs = 100;
+    // messages per topic waiting for sending, the oldest are dropped
+    private int wsTopicBuffer = 1000;
+    // send only the last price of each source in a batch
+    private boolean wsCoalescePrices = true;
+    // a client slower than these limits is disconnected
+    private int wsSendTimeLimitMs = 10_000;
+    private int wsSendBufferSizeKb = 512;
 }
@@ -3,12 +3,17 @@ package pro.belbix.ethparser.repositories.a_layer;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import pro.belbix.ethparser.entity.a_layer.EthBlockEntity;
 
 public interface EthBlockRepository extends JpaRepository<EthBlockEntity, Long> {
 
     EthBlockEntity findFirstByOrderByNumberDesc();
 
+    @Query("select b.hash.hash from EthBlockEntity b where b.number = :number")
+    String findHashByNumber(@Param("number") long number);
+
 //    @EntityGraph(value = "block-graph.all", type = EntityGraphType.FETCH)
 //    EthBlockEntity getByNumber(long number);
 
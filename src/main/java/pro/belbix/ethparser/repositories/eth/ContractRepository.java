@@ -1,5 +1,6 @@
 package pro.belbix.ethparser.repositories.eth;
 
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import pro.belbix.ethparser.entity.contracts.ContractEntity;
@@ -11,4 +12,8 @@ public interface ContractRepository extends JpaRepository<ContractEntity, Intege
         + "where t.address = :address")
     ContractEntity findFirstByAddress(String address);
 
+    @Query("select t from ContractEntity t "
+        + "left join fetch t.type f")
+    List<ContractEntity> fetchAllWithType();
+
 }
@@ -1,5 +1,6 @@
 package pro.belbix.ethparser.repositories.v0;
 
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import pro.belbix.ethparser.entity.v0.BlockCacheEntity;
 
@@ -7,4 +8,6 @@ public interface BlockCacheRepository extends JpaRepository<BlockCacheEntity, Lo
 
     BlockCacheEntity findFirstByOrderByBlockDateDesc();
 
+    List<BlockCacheEntity> findAllByBlockBetween(long from, long to);
+
 }
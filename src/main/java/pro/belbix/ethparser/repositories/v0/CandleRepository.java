@@ -0,0 +1,23 @@
+package pro.belbix.ethparser.repositories.v0;
+
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import pro.belbix.ethparser.entity.v0.CandleEntity;
+
+public interface CandleRepository extends JpaRepository<CandleEntity, String> {
+
+    List<CandleEntity> findAllBySourceAndPeriodAndTimestampBetweenOrderByTimestamp(
+        String source, int period, long from, long to);
+
+    CandleEntity findFirstBySourceAndPeriodOrderByTimestamp(String source, int period);
+
+    @Transactional
+    @Modifying
+    @Query("delete from CandleEntity t where t.timestamp >= :from")
+    int deleteAllFromTimestamp(@Param("from") long from);
+
+}
@@ -0,0 +1,8 @@
+package pro.belbix.ethparser.repositories.v0;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import pro.belbix.ethparser.entity.v0.DownloadCheckpointEntity;
+
+public interface DownloadCheckpointRepository extends JpaRepository<DownloadCheckpointEntity, String> {
+
+}
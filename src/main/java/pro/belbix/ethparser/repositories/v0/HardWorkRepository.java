@@ -3,8 +3,10 @@ package pro.belbix.ethparser.repositories.v0;
 import java.util.List;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import pro.belbix.ethparser.dto.v0.HardWorkDTO;
 
 public interface HardWorkRepository extends JpaRepository<HardWorkDTO, String> {
@@ -117,4 +119,9 @@ public interface HardWorkRepository extends JpaRepository<HardWorkDTO, String> {
     @Query(nativeQuery = true, value = "select block_date from hard_work "
         + "where vault = :vault and block_date < :block_date order by block_date desc limit 1")
     Long fetchPreviousBlockDateByVaultAndDate(@Param("vault") String vault, @Param("block_date") long blockDate);
+
+    @Transactional
+    @Modifying
+    @Query("delete from HardWorkDTO t where t.block > :block")
+    int deleteAllAfterBlock(@Param("block") long block);
 }
@@ -3,8 +3,10 @@ package pro.belbix.ethparser.repositories.v0;
 import java.util.List;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import pro.belbix.ethparser.dto.v0.HarvestDTO;
 
 public interface HarvestRepository extends JpaRepository<HarvestDTO, String> {
@@ -221,4 +223,9 @@ public interface HarvestRepository extends JpaRepository<HarvestDTO, String> {
 
         double getBalance();
     }
+
+    @Transactional
+    @Modifying
+    @Query("delete from HarvestDTO t where t.block > :block")
+    int deleteAllAfterBlock(@Param("block") long block);
 }
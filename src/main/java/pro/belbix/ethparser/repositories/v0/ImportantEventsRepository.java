@@ -2,8 +2,16 @@ package pro.belbix.ethparser.repositories.v0;
 
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import pro.belbix.ethparser.dto.v0.ImportantEventsDTO;
 
 public interface ImportantEventsRepository extends JpaRepository<ImportantEventsDTO, String> {
 
+    @Transactional
+    @Modifying
+    @Query("delete from ImportantEventsDTO t where t.block > :block")
+    int deleteAllAfterBlock(@Param("block") long block);
 }
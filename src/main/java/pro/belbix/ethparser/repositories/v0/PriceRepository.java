@@ -3,8 +3,10 @@ package pro.belbix.ethparser.repositories.v0;
 import java.util.List;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import pro.belbix.ethparser.dto.v0.PriceDTO;
 
 public interface PriceRepository extends JpaRepository<PriceDTO, String> {
@@ -34,4 +36,25 @@ public interface PriceRepository extends JpaRepository<PriceDTO, String> {
         + "    window w as (PARTITION BY source order by block_date desc)")
     List<PriceDTO> fetchLastPrices();
 
+    @Query("select t from PriceDTO t where "
+        + "t.block >= :from "
+        + "and t.block < :to "
+        + "order by t.block")
+    List<PriceDTO> fetchAllByBlockRange(@Param("from") long from, @Param("to") long to);
+
+    @Query("select min(t.block) from PriceDTO t")
+    Long fetchMinBlock();
+
+    @Query("select min(t.blockDate) from PriceDTO t where t.block > :block")
+    Long fetchMinBlockDateAfterBlock(@Param("block") long block);
+
+    List<PriceDTO> findAllByBlockDateGreaterThanOrderByBlockDate(long from);
+
+    @Query("select max(t.block) from PriceDTO t")
+    Long fetchMaxBlock();
+
+    @Transactional
+    @Modifying
+    @Query("delete from PriceDTO t where t.block > :block")
+    int deleteAllAfterBlock(@Param("block") long block);
 }
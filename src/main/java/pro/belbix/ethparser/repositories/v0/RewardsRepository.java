@@ -2,8 +2,10 @@ package pro.belbix.ethparser.repositories.v0;
 
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import pro.belbix.ethparser.dto.v0.RewardDTO;
 
 public interface RewardsRepository extends JpaRepository<RewardDTO, String> {
@@ -43,4 +45,9 @@ public interface RewardsRepository extends JpaRepository<RewardDTO, String> {
     List<RewardDTO> getAllByVaultOrderByBlockDate(@Param("vault") String vault,
                                                   @Param("startTime") long startTime,
                                                   @Param("endTime") long endTime);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RewardDTO t where t.block > :block")
+    int deleteAllAfterBlock(@Param("block") long block);
 }
@@ -3,8 +3,10 @@ package pro.belbix.ethparser.repositories.v0;
 import java.util.List;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import pro.belbix.ethparser.dto.v0.TransferDTO;
 
 public interface TransferRepository extends JpaRepository<TransferDTO, String> {
@@ -46,4 +48,9 @@ public interface TransferRepository extends JpaRepository<TransferDTO, String> {
         + "and type in ('PS_EXIT', 'REWARD', 'LP_SELL') "
         + "order by block_date")
     List<TransferDTO> fetchAllWithoutProfits();
+
+    @Transactional
+    @Modifying
+    @Query("delete from TransferDTO t where t.block > :block")
+    int deleteAllAfterBlock(@Param("block") long block);
 }
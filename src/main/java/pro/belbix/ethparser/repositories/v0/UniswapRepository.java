@@ -1,10 +1,13 @@
 package pro.belbix.ethparser.repositories.v0;
 
+import java.math.BigInteger;
 import java.util.List;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import pro.belbix.ethparser.dto.v0.UniswapDTO;
 
 public interface UniswapRepository extends JpaRepository<UniswapDTO, String> {
@@ -39,6 +42,24 @@ public interface UniswapRepository extends JpaRepository<UniswapDTO, String> {
         + "t.owner = :owner and t.coin = 'FARM' and t.blockDate > :from and t.blockDate <= :to order by t.blockDate asc")
     List<UniswapDTO> fetchAllByOwner(@Param("owner") String owner, @Param("from") long from, @Param("to") long to);
 
+    @Query("select t.owner, sum(case when t.type = 'BUY' then t.amount else -t.amount end) "
+        + "from UniswapDTO t where t.coin = 'FARM' and t.type in ('BUY', 'SELL') group by t.owner")
+    List<Object[]> fetchFarmPositions();
+
+    @Query(nativeQuery = true, value = ""
+        + "select distinct on (owner) owner, block_date, owner_balance_usd from uni_tx "
+        + "order by owner, block_date desc")
+    List<Object[]> fetchLastOwnerRows();
+
+    @Query("select max(t.blockDate) from UniswapDTO t")
+    Long fetchLastBlockDate();
+
+    @Query("select min(t.blockDate) from UniswapDTO t where t.block > :block")
+    Long fetchMinBlockDateAfterBlock(@Param("block") BigInteger block);
+
+    @Query("select t.id from UniswapDTO t where t.blockDate = :block_date")
+    List<String> fetchIdsByBlockDate(@Param("block_date") long blockDate);
+
     List<UniswapDTO> findAllByOrderByBlockDate();
 
     List<UniswapDTO> findAllByBlockDateGreaterThanOrderByBlockDate(long from);
@@ -93,4 +114,8 @@ public interface UniswapRepository extends JpaRepository<UniswapDTO, String> {
         double getVolume();
     }
 
+    @Transactional
+    @Modifying
+    @Query("delete from UniswapDTO t where t.block > :block")
+    int deleteAllAfterBlock(@Param("block") BigInteger block);
 }
@@ -0,0 +1,89 @@
+package pro.belbix.ethparser.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import pro.belbix.ethparser.entity.v0.CandleEntity;
+
+/**
+ * Fixed size buffer of the most recent candles of one source and period, ordered by timestamp.
+ * Not thread safe, synchronization is on the owner side.
+ */
+class CandleRing {
+
+    private final CandleEntity[] candles;
+    private int start = 0;
+    private int size = 0;
+
+    CandleRing(int capacity) {
+        this.candles = new CandleEntity[capacity];
+    }
+
+    /**
+     * Accepts only candles newer than the last one, older candles are not recent by definition.
+     */
+    boolean add(CandleEntity candle) {
+        if (size > 0 && get(size - 1).getTimestamp() >= candle.getTimestamp()) {
+            return false;
+        }
+        if (size == candles.length) {
+            candles[start] = candle;
+            start = (start + 1) % candles.length;
+        } else {
+            candles[(start + size) % candles.length] = candle;
+            size++;
+        }
+        return true;
+    }
+
+    void truncateFrom(long timestamp) {
+        int newSize = floor(timestamp - 1) + 1;
+        for (int i = newSize; i < size; i++) {
+            candles[(start + i) % candles.length] = null;
+        }
+        size = newSize;
+    }
+
+    CandleEntity find(long timestamp) {
+        int i = floor(timestamp);
+        if (i < 0) {
+            return null;
+        }
+        CandleEntity candle = get(i);
+        if (candle.getTimestamp() != timestamp) {
+            return null;
+        }
+        return candle;
+    }
+
+    List<CandleEntity> range(long from, long to) {
+        List<CandleEntity> result = new ArrayList<>();
+        for (int i = Math.max(floor(from), 0); i < size; i++) {
+            CandleEntity candle = get(i);
+            if (candle.getTimestamp() > to) {
+                break;
+            }
+            if (candle.getTimestamp() >= from) {
+                result.add(candle);
+            }
+        }
+        return result;
+    }
+
+    private int floor(long timestamp) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (get(mid).getTimestamp() <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    private CandleEntity get(int i) {
+        return candles[(start + i) % candles.length];
+    }
+}
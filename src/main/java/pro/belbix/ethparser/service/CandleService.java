@@ -0,0 +1,212 @@
+package pro.belbix.ethparser.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pro.belbix.ethparser.entity.v0.CandleEntity;
+import pro.belbix.ethparser.model.OhlcModel;
+import pro.belbix.ethparser.repositories.v0.CandleRepository;
+import pro.belbix.ethparser.repositories.v0.UniswapRepository;
+import pro.belbix.ethparser.repositories.v0.UniswapRepository.OhlcProjection;
+
+@Service
+@Log4j2
+public class CandleService {
+
+    public static final Map<String, Integer> INTERVALS = new LinkedHashMap<>();
+    private static final int RING_SIZE = 1000;
+
+    static {
+        INTERVALS.put("1m", 60);
+        INTERVALS.put("5m", 300);
+        INTERVALS.put("1h", 3600);
+        INTERVALS.put("1d", 86400);
+    }
+
+    private final Map<String, CandleRing> rings = new HashMap<>();
+    private final Map<String, CandleEntity> dirty = new HashMap<>();
+    private final CandleRepository candleRepository;
+    private final UniswapRepository uniswapRepository;
+
+    public CandleService(CandleRepository candleRepository,
+                         UniswapRepository uniswapRepository) {
+        this.candleRepository = candleRepository;
+        this.uniswapRepository = uniswapRepository;
+    }
+
+    public void addTrade(String source, long timestamp, Double price, Double volume) {
+        if (source == null || price == null || price.isNaN() || price.isInfinite() || price <= 0) {
+            return;
+        }
+        double vol = volume == null || volume.isNaN() || volume.isInfinite() ? 0 : Math.abs(volume);
+        // db read is outside the lock, it runs in the transaction of the trade save
+        Map<String, CandleEntity> loaded = new HashMap<>();
+        List<String> missing = missingIds(source, timestamp);
+        if (!missing.isEmpty()) {
+            candleRepository.findAllById(missing).forEach(c -> loaded.put(c.getId(), c));
+        }
+        apply(source, timestamp, price, vol, loaded);
+    }
+
+    /**
+     * Candles before the first saved one are built from uni_tx rows, the table is filled only by new
+     * trades and the recalculation.
+     */
+    public List<OhlcProjection> fetchCandles(String source, int period, long from, long to) {
+        Map<Long, OhlcProjection> candles = new TreeMap<>();
+        CandleEntity first = candleRepository.findFirstBySourceAndPeriodOrderByTimestamp(source, period);
+        long legacyTo = first == null ? to : Math.min(to, first.getTimestamp() - 1);
+        if (from <= legacyTo) {
+            uniswapRepository.fetchOHLCTransactions(source, from, legacyTo, period)
+                .forEach(c -> candles.put(c.getTimestamp(), c));
+        }
+        candleRepository.findAllBySourceAndPeriodAndTimestampBetweenOrderByTimestamp(source, period, from, to)
+            .forEach(c -> candles.put(c.getTimestamp(), toModel(c)));
+        // memory state is fresher than db
+        candles.putAll(memoryCandles(source, period, from, to));
+        return new ArrayList<>(candles.values());
+    }
+
+    /**
+     * Removes candles of all sources from the day of the given date, they should be built again from
+     * the kept rows. All intervals divide a day, so candles before the returned start stay whole.
+     *
+     * @return start of the removed range
+     */
+    public synchronized long dropFrom(long date) {
+        long from = date / INTERVALS.get("1d") * INTERVALS.get("1d");
+        dirty.values().removeIf(candle -> candle.getTimestamp() >= from);
+        rings.values().forEach(ring -> ring.truncateFrom(from));
+        int deleted = candleRepository.deleteAllFromTimestamp(from);
+        log.info("Dropped {} candles from {}", deleted, from);
+        return from;
+    }
+
+    @Scheduled(fixedDelay = 10_000)
+    @PreDestroy
+    public synchronized void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        candleRepository.saveAll(dirty.values());
+        log.debug("Flushed {} candles", dirty.size());
+        dirty.clear();
+    }
+
+    // copies, trades change memory candles after the lock is released
+    private synchronized Map<Long, OhlcProjection> memoryCandles(String source, int period, long from, long to) {
+        Map<Long, OhlcProjection> candles = new HashMap<>();
+        for (CandleEntity candle : dirty.values()) {
+            if (candle.getSource().equals(source) && candle.getPeriod() == period
+                && candle.getTimestamp() >= from && candle.getTimestamp() <= to) {
+                candles.put(candle.getTimestamp(), toModel(candle));
+            }
+        }
+        CandleRing ring = rings.get(ringKey(source, period));
+        if (ring != null) {
+            ring.range(from, to).forEach(c -> candles.put(c.getTimestamp(), toModel(c)));
+        }
+        return candles;
+    }
+
+    private synchronized List<String> missingIds(String source, long timestamp) {
+        List<String> missing = new ArrayList<>();
+        for (int period : INTERVALS.values()) {
+            long bucket = timestamp / period * period;
+            if (findInMemory(source, period, bucket) == null) {
+                missing.add(candleId(source, period, bucket));
+            }
+        }
+        return missing;
+    }
+
+    private synchronized void apply(String source, long timestamp, double price, double volume,
+                                    Map<String, CandleEntity> loaded) {
+        for (int period : INTERVALS.values()) {
+            CandleEntity candle = findOrCreate(source, period, timestamp / period * period, loaded);
+            merge(candle, timestamp, price, volume);
+            dirty.put(candle.getId(), candle);
+        }
+    }
+
+    private CandleEntity findInMemory(String source, int period, long bucket) {
+        CandleEntity candle = dirty.get(candleId(source, period, bucket));
+        if (candle != null) {
+            return candle;
+        }
+        CandleRing ring = rings.get(ringKey(source, period));
+        return ring == null ? null : ring.find(bucket);
+    }
+
+    // another trade could create the candle while this one was loading it
+    private CandleEntity findOrCreate(String source, int period, long bucket,
+                                      Map<String, CandleEntity> loaded) {
+        CandleEntity candle = findInMemory(source, period, bucket);
+        if (candle != null) {
+            return candle;
+        }
+        String id = candleId(source, period, bucket);
+        CandleRing ring = rings.computeIfAbsent(ringKey(source, period), k -> new CandleRing(RING_SIZE));
+        candle = loaded.get(id);
+        if (candle == null) {
+            candle = new CandleEntity();
+            candle.setId(id);
+            candle.setSource(source);
+            candle.setPeriod(period);
+            candle.setTimestamp(bucket);
+        }
+        ring.add(candle);
+        return candle;
+    }
+
+    private static void merge(CandleEntity candle, long timestamp, double price, double volume) {
+        if (candle.getOpenTime() == 0) {
+            candle.setOpen(price);
+            candle.setHigh(price);
+            candle.setLow(price);
+            candle.setClose(price);
+            candle.setOpenTime(timestamp);
+            candle.setCloseTime(timestamp);
+            candle.setVolume(volume);
+            return;
+        }
+        if (timestamp < candle.getOpenTime()) {
+            candle.setOpen(price);
+            candle.setOpenTime(timestamp);
+        }
+        if (timestamp >= candle.getCloseTime()) {
+            candle.setClose(price);
+            candle.setCloseTime(timestamp);
+        }
+        candle.setHigh(Math.max(candle.getHigh(), price));
+        candle.setLow(Math.min(candle.getLow(), price));
+        candle.setVolume(candle.getVolume() + volume);
+    }
+
+    private static OhlcModel toModel(CandleEntity candle) {
+        OhlcModel model = new OhlcModel();
+        model.setTimestamp(candle.getTimestamp());
+        model.setOpen(candle.getOpen());
+        model.setHigh(candle.getHigh());
+        model.setLow(candle.getLow());
+        model.setClose(candle.getClose());
+        model.setVolume(candle.getVolume());
+        return model;
+    }
+
+    private static String candleId(String source, int period, long bucket) {
+        return source + "_" + period + "_" + bucket;
+    }
+
+    private static String ringKey(String source, int period) {
+        return source + "_" + period;
+    }
+
+}
@@ -0,0 +1,96 @@
+package pro.belbix.ethparser.service;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import pro.belbix.ethparser.repositories.v0.HardWorkRepository;
+import pro.belbix.ethparser.repositories.v0.HarvestRepository;
+import pro.belbix.ethparser.repositories.v0.ImportantEventsRepository;
+import pro.belbix.ethparser.repositories.v0.PriceRepository;
+import pro.belbix.ethparser.repositories.v0.RewardsRepository;
+import pro.belbix.ethparser.repositories.v0.TransferRepository;
+import pro.belbix.ethparser.repositories.v0.UniswapRepository;
+import pro.belbix.ethparser.utils.recalculation.CandleRecalculate;
+import pro.belbix.ethparser.web3.ParserCursorService;
+import pro.belbix.ethparser.web3.prices.PriceIndex;
+import pro.belbix.ethparser.web3.uniswap.UniOwnerPositions;
+
+/**
+ * Removes rows parsed from logs of orphaned blocks. The log flow reads these blocks again from the new
+ * chain and parsers save them as usual. Memory states built from these rows are rolled back too.
+ */
+@Service
+@Log4j2
+public class ReorgRollbackService {
+
+    private final HarvestRepository harvestRepository;
+    private final UniswapRepository uniswapRepository;
+    private final TransferRepository transferRepository;
+    private final HardWorkRepository hardWorkRepository;
+    private final RewardsRepository rewardsRepository;
+    private final ImportantEventsRepository importantEventsRepository;
+    private final PriceRepository priceRepository;
+    private final ParserCursorService parserCursorService;
+    private final UniOwnerPositions uniOwnerPositions;
+    private final PriceIndex priceIndex;
+    private final CandleRecalculate candleRecalculate;
+
+    public ReorgRollbackService(HarvestRepository harvestRepository,
+                                UniswapRepository uniswapRepository,
+                                TransferRepository transferRepository,
+                                HardWorkRepository hardWorkRepository,
+                                RewardsRepository rewardsRepository,
+                                ImportantEventsRepository importantEventsRepository,
+                                PriceRepository priceRepository,
+                                ParserCursorService parserCursorService,
+                                UniOwnerPositions uniOwnerPositions,
+                                PriceIndex priceIndex,
+                                CandleRecalculate candleRecalculate) {
+        this.harvestRepository = harvestRepository;
+        this.uniswapRepository = uniswapRepository;
+        this.transferRepository = transferRepository;
+        this.hardWorkRepository = hardWorkRepository;
+        this.rewardsRepository = rewardsRepository;
+        this.importantEventsRepository = importantEventsRepository;
+        this.priceRepository = priceRepository;
+        this.parserCursorService = parserCursorService;
+        this.uniOwnerPositions = uniOwnerPositions;
+        this.priceIndex = priceIndex;
+        this.candleRecalculate = candleRecalculate;
+    }
+
+    /**
+     * @param orphaned hashes of known blocks after the given one
+     */
+    public void rollbackAfter(long block, Collection<String> orphaned) {
+        parserCursorService.rewind(block, orphaned, () -> {
+            Long tradesFrom = firstTradeDateAfter(block);
+            int harvest = harvestRepository.deleteAllAfterBlock(block);
+            int uniswap = uniswapRepository.deleteAllAfterBlock(BigInteger.valueOf(block));
+            int transfers = transferRepository.deleteAllAfterBlock(block);
+            int hardWorks = hardWorkRepository.deleteAllAfterBlock(block);
+            int rewards = rewardsRepository.deleteAllAfterBlock(block);
+            int events = importantEventsRepository.deleteAllAfterBlock(block);
+            int prices = priceRepository.deleteAllAfterBlock(block);
+            log.warn("Rolled back after block {}: harvest {}, uniswap {}, transfers {}, hard works {}, "
+                    + "rewards {}, events {}, prices {}",
+                block, harvest, uniswap, transfers, hardWorks, rewards, events, prices);
+            uniOwnerPositions.invalidate();
+            priceIndex.rollbackAfter(block);
+            if (tradesFrom != null) {
+                candleRecalculate.recalculateFrom(tradesFrom);
+            }
+        });
+    }
+
+    // the earliest trade that will be removed, candles from it are built again
+    private Long firstTradeDateAfter(long block) {
+        Long uniswap = uniswapRepository.fetchMinBlockDateAfterBlock(BigInteger.valueOf(block));
+        Long prices = priceRepository.fetchMinBlockDateAfterBlock(block);
+        if (uniswap == null || prices == null) {
+            return uniswap == null ? prices : uniswap;
+        }
+        return Math.min(uniswap, prices);
+    }
+}
@@ -0,0 +1,180 @@
+package pro.belbix.ethparser.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pro.belbix.ethparser.entity.v0.BlockCacheEntity;
+import pro.belbix.ethparser.properties.AppProperties;
+import pro.belbix.ethparser.repositories.v0.BlockCacheRepository;
+import pro.belbix.ethparser.web3.EthBlockService;
+import pro.belbix.ethparser.web3.prices.PriceProvider;
+
+/**
+ * Binary file with warm in-memory state: last block, latest prices and recent block timestamps.
+ * Restored on boot only when it matches the db, otherwise the services start cold as usual.
+ */
+@Service
+@Log4j2
+public class StartupSnapshotService {
+
+    private static final int MAGIC = 0x45545053;
+    private static final int VERSION = 1;
+
+    private final AppProperties appProperties;
+    private final PriceProvider priceProvider;
+    private final EthBlockService ethBlockService;
+    private final BlockCacheRepository blockCacheRepository;
+
+    public StartupSnapshotService(AppProperties appProperties,
+                                  PriceProvider priceProvider,
+                                  EthBlockService ethBlockService,
+                                  BlockCacheRepository blockCacheRepository) {
+        this.appProperties = appProperties;
+        this.priceProvider = priceProvider;
+        this.ethBlockService = ethBlockService;
+        this.blockCacheRepository = blockCacheRepository;
+    }
+
+    @PostConstruct
+    private void init() {
+        if (appProperties.getSnapshotFile().isBlank()) {
+            return;
+        }
+        Path path = Paths.get(appProperties.getSnapshotFile());
+        if (!Files.exists(path)) {
+            log.info("Snapshot {} not found, cold start", path);
+            return;
+        }
+        try {
+            restore(path);
+        } catch (Exception e) {
+            log.warn("Can't restore snapshot {}, cold start", path, e);
+        }
+    }
+
+    @Scheduled(fixedDelay = 300_000, initialDelay = 300_000)
+    @PreDestroy
+    public synchronized void write() {
+        if (appProperties.getSnapshotFile().isBlank()) {
+            return;
+        }
+        long lastBlock = ethBlockService.getLastBlock();
+        if (lastBlock == 0) {
+            return;
+        }
+        Path path = Paths.get(appProperties.getSnapshotFile());
+        Path tmp = Paths.get(appProperties.getSnapshotFile() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(Instant.now().getEpochSecond());
+            out.writeLong(lastBlock);
+
+            Map<String, Entry<Long, Double>> prices = priceProvider.latestPrices();
+            out.writeInt(prices.size());
+            for (Entry<String, Entry<Long, Double>> price : prices.entrySet()) {
+                writeString(out, price.getKey());
+                out.writeLong(price.getValue().getKey());
+                out.writeDouble(price.getValue().getValue());
+            }
+
+            Map<Long, Long> timestamps = new HashMap<>(ethBlockService.getRecentTimestamps());
+            out.writeInt(timestamps.size());
+            for (Entry<Long, Long> timestamp : timestamps.entrySet()) {
+                out.writeLong(timestamp.getKey());
+                out.writeLong(timestamp.getValue());
+            }
+        } catch (IOException e) {
+            log.warn("Can't write snapshot {}", tmp, e);
+            return;
+        }
+        try {
+            // readers never see a partially written file
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Snapshot written on block {}", lastBlock);
+        } catch (IOException e) {
+            log.warn("Can't move snapshot to {}", path, e);
+        }
+    }
+
+    private void restore(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                log.warn("Snapshot {} has wrong format, cold start", path);
+                return;
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                log.warn("Snapshot {} has version {} instead of {}, cold start", path, version, VERSION);
+                return;
+            }
+            long created = buffer.getLong();
+            long lastBlock = buffer.getLong();
+            if (!isValid(lastBlock)) {
+                return;
+            }
+
+            int pricesSize = buffer.getInt();
+            for (int i = 0; i < pricesSize; i++) {
+                String name = readString(buffer);
+                long block = buffer.getLong();
+                double price = buffer.getDouble();
+                priceProvider.restorePrice(name, block, price);
+            }
+
+            int timestampsSize = buffer.getInt();
+            Map<Long, Long> timestamps = new HashMap<>(timestampsSize * 2);
+            for (int i = 0; i < timestampsSize; i++) {
+                timestamps.put(buffer.getLong(), buffer.getLong());
+            }
+            ethBlockService.restoreState(lastBlock, timestamps);
+            log.info("Snapshot restored from {} created at {}: block {}, {} prices, {} timestamps",
+                path, Instant.ofEpochSecond(created), lastBlock, pricesSize, timestampsSize);
+        }
+    }
+
+    private boolean isValid(long lastBlock) {
+        BlockCacheEntity dbLastBlock = blockCacheRepository.findFirstByOrderByBlockDateDesc();
+        if (dbLastBlock == null || dbLastBlock.getBlock() < lastBlock) {
+            // the snapshot was made on another db
+            log.warn("Snapshot block {} is ahead of db, cold start", lastBlock);
+            return false;
+        }
+        if (dbLastBlock.getBlock() - lastBlock > appProperties.getSnapshotMaxBlocks()) {
+            log.warn("Snapshot block {} is stale, db has {}, cold start", lastBlock, dbLastBlock.getBlock());
+            return false;
+        }
+        return true;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,94 @@
+package pro.belbix.ethparser.utils.recalculation;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import pro.belbix.ethparser.dto.v0.PriceDTO;
+import pro.belbix.ethparser.dto.v0.UniswapDTO;
+import pro.belbix.ethparser.repositories.v0.CandleRepository;
+import pro.belbix.ethparser.repositories.v0.PriceRepository;
+import pro.belbix.ethparser.repositories.v0.UniswapRepository;
+import pro.belbix.ethparser.service.CandleService;
+
+@Service
+@Log4j2
+public class CandleRecalculate {
+
+    private static final long BATCH_BLOCKS = 100_000;
+
+    private final CandleService candleService;
+    private final CandleRepository candleRepository;
+    private final UniswapRepository uniswapRepository;
+    private final PriceRepository priceRepository;
+
+    public CandleRecalculate(CandleService candleService,
+                             CandleRepository candleRepository,
+                             UniswapRepository uniswapRepository,
+                             PriceRepository priceRepository) {
+        this.candleService = candleService;
+        this.candleRepository = candleRepository;
+        this.uniswapRepository = uniswapRepository;
+        this.priceRepository = priceRepository;
+    }
+
+    public void start() {
+        candleRepository.deleteAll();
+        int count = 0;
+        for (UniswapDTO dto : uniswapRepository.findAllByOrderByBlockDate()) {
+            if (!addTrade(dto)) {
+                continue;
+            }
+            count++;
+            if (count % 1000 == 0) {
+                candleService.flush();
+                log.info("Uniswap candles recalculated " + count + ", last " + dto.print());
+            }
+        }
+        candleService.flush();
+
+        Long minBlock = priceRepository.fetchMinBlock();
+        Long maxBlock = priceRepository.fetchMaxBlock();
+        if (minBlock == null || maxBlock == null) {
+            return;
+        }
+        count = 0;
+        for (long from = minBlock; from <= maxBlock; from += BATCH_BLOCKS) {
+            for (PriceDTO dto : priceRepository.fetchAllByBlockRange(from, from + BATCH_BLOCKS)) {
+                addTrade(dto);
+                count++;
+            }
+            candleService.flush();
+            log.info("Price candles recalculated " + count + ", last block " + (from + BATCH_BLOCKS));
+        }
+    }
+
+    /**
+     * Builds candles again from the kept rows, used after rows from the date were rolled back.
+     */
+    public void recalculateFrom(long date) {
+        long from = candleService.dropFrom(date);
+        int count = 0;
+        for (UniswapDTO dto : uniswapRepository.findAllByBlockDateGreaterThanOrderByBlockDate(from - 1)) {
+            if (addTrade(dto)) {
+                count++;
+            }
+        }
+        for (PriceDTO dto : priceRepository.findAllByBlockDateGreaterThanOrderByBlockDate(from - 1)) {
+            addTrade(dto);
+            count++;
+        }
+        candleService.flush();
+        log.info("Candles recalculated from " + from + " with " + count + " trades");
+    }
+
+    private boolean addTrade(UniswapDTO dto) {
+        if (dto.isLiquidity()) {
+            return false;
+        }
+        candleService.addTrade(dto.getCoin(), dto.getBlockDate(), dto.getLastPrice(), dto.getAmount());
+        return true;
+    }
+
+    private void addTrade(PriceDTO dto) {
+        candleService.addTrade(dto.getSource(), dto.getBlockDate(), dto.getPrice(), dto.getTokenAmount());
+    }
+}
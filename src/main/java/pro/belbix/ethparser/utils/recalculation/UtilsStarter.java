@@ -38,6 +38,7 @@ public class UtilsStarter {
     private final HarvestProfitRecalculate harvestProfitRecalculate;
     private final DeployerTransactionsDownloader deployerTransactionsDownloader;
     private final EthBlockDownloader ethBlockDownloader;
+    private final CandleRecalculate candleRecalculate;
 
     public UtilsStarter(AppProperties appProperties,
                         UniswapLpDownloader uniswapLpDownloader,
@@ -58,7 +59,8 @@ public class UtilsStarter {
                         HarvestProfitRecalculate harvestProfitRecalculate,
                         PriceDownloader priceDownloader,
                         DeployerTransactionsDownloader deployerTransactionsDownloader,
-                        EthBlockDownloader ethBlockDownloader) {
+                        EthBlockDownloader ethBlockDownloader,
+                        CandleRecalculate candleRecalculate) {
         this.appProperties = appProperties;
         this.uniswapLpDownloader = uniswapLpDownloader;
         this.harvestVaultDownloader = harvestVaultDownloader;
@@ -80,6 +82,7 @@ public class UtilsStarter {
         this.priceDownloader = priceDownloader;
         this.deployerTransactionsDownloader = deployerTransactionsDownloader;
         this.ethBlockDownloader = ethBlockDownloader;
+        this.candleRecalculate = candleRecalculate;
     }
 
     public void startUtils() {
@@ -124,6 +127,8 @@ public class UtilsStarter {
             deployerTransactionsDownloader.start();
         } else if ("block-download".equals(appProperties.getStartUtil())) {
             ethBlockDownloader.start();
+        } else if ("candles-recalculate".equals(appProperties.getStartUtil())) {
+            candleRecalculate.start();
         }
         log.info("Utils completed");
         System.exit(0);
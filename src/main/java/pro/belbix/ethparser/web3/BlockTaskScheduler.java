@@ -0,0 +1,91 @@
+package pro.belbix.ethparser.web3;
+
+import java.math.BigInteger;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tasks that need state of a block which is not mined yet. They are parked by the block number and run
+ * when the chain head reaches it. Tasks should be short, usually they just give work back to a parser.
+ */
+@Component
+@Log4j2
+public class BlockTaskScheduler {
+
+    private final Web3Service web3Service;
+    private final PriorityQueue<BlockTask> tasks =
+        new PriorityQueue<>(Comparator.comparingLong(BlockTask::getBlock));
+    private volatile long head = 0;
+
+    public BlockTaskScheduler(Web3Service web3Service) {
+        this.web3Service = web3Service;
+    }
+
+    public boolean isReached(long block) {
+        if (block <= head) {
+            return true;
+        }
+        return block <= refreshHead();
+    }
+
+    public void schedule(long block, Runnable task) {
+        synchronized (tasks) {
+            tasks.add(new BlockTask(block, task));
+        }
+        log.info("Task parked until block {}", block);
+    }
+
+    @Scheduled(fixedDelay = 5_000)
+    public void runReady() {
+        synchronized (tasks) {
+            if (tasks.isEmpty()) {
+                return;
+            }
+        }
+        long current = refreshHead();
+        while (true) {
+            BlockTask task;
+            synchronized (tasks) {
+                if (tasks.isEmpty() || tasks.peek().getBlock() > current) {
+                    return;
+                }
+                task = tasks.poll();
+            }
+            try {
+                task.getTask().run();
+            } catch (Exception e) {
+                log.error("Error in task for block " + task.getBlock(), e);
+            }
+        }
+    }
+
+    private long refreshHead() {
+        BigInteger current = web3Service.fetchCurrentBlock();
+        if (current != null && current.longValue() > head) {
+            head = current.longValue();
+        }
+        return head;
+    }
+
+    private static class BlockTask {
+
+        private final long block;
+        private final Runnable task;
+
+        BlockTask(long block, Runnable task) {
+            this.block = block;
+            this.task = task;
+        }
+
+        long getBlock() {
+            return block;
+        }
+
+        Runnable getTask() {
+            return task;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package pro.belbix.ethparser.web3;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Block number -> timestamp in seconds. Blocks are dense, so timestamps are kept in fixed size int
+ * segments addressed by the block offset. Zero means unknown.
+ */
+final class BlockTimestampIndex {
+
+    static final int SEGMENT_BITS = 12;
+    static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private final Map<Long, int[]> segments = new ConcurrentHashMap<>();
+
+    long get(long block) {
+        int[] segment = segments.get(segmentOf(block));
+        if (segment == null) {
+            return 0;
+        }
+        // unsigned, fits timestamps until 2106
+        return Integer.toUnsignedLong(segment[offsetOf(block)]);
+    }
+
+    void put(long block, long timestamp) {
+        if (block < 0 || timestamp <= 0 || timestamp > 0xFFFFFFFFL) {
+            return;
+        }
+        int[] segment = segments.computeIfAbsent(segmentOf(block), s -> new int[SEGMENT_SIZE]);
+        segment[offsetOf(block)] = (int) timestamp;
+    }
+
+    static long segmentOf(long block) {
+        return block >>> SEGMENT_BITS;
+    }
+
+    static long firstBlockOf(long segment) {
+        return segment << SEGMENT_BITS;
+    }
+
+    private static int offsetOf(long block) {
+        return (int) (block & (SEGMENT_SIZE - 1));
+    }
+}
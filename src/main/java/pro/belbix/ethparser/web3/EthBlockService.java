@@ -1,41 +1,168 @@
 package pro.belbix.ethparser.web3;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.web3j.protocol.core.methods.response.EthBlock;
 import org.web3j.protocol.core.methods.response.EthBlock.Block;
 import pro.belbix.ethparser.entity.v0.BlockCacheEntity;
 import pro.belbix.ethparser.repositories.v0.BlockCacheRepository;
 
 @Service
+@Log4j2
 public class EthBlockService {
 
+    private static final long RECENT_BLOCKS_SIZE = 10_000;
     private final Web3Service web3;
     private final BlockCacheRepository blockCacheRepository;
-    private long lastBlock = 0L;
+    private final GasPriceService gasPriceService;
+    private final AtomicLong lastBlock = new AtomicLong();
+    private final BlockTimestampIndex timestamps = new BlockTimestampIndex();
+    // segments already read from block_cache
+    private final Set<Long> loadedSegments = ConcurrentHashMap.newKeySet();
+    // fetched from the node, saved by schedule
+    private final Queue<BlockCacheEntity> pendingSaves = new ConcurrentLinkedQueue<>();
 
-    public EthBlockService(Web3Service web3, BlockCacheRepository blockCacheRepository) {
+    public EthBlockService(Web3Service web3, BlockCacheRepository blockCacheRepository,
+                           GasPriceService gasPriceService) {
         this.web3 = web3;
         this.blockCacheRepository = blockCacheRepository;
+        this.gasPriceService = gasPriceService;
+        web3.onLogBatch(logs -> prefetch(logs.stream()
+            .map(ethLog -> ethLog.getBlockNumber().longValue())
+            .collect(Collectors.toCollection(TreeSet::new))));
     }
 
-    public synchronized long getTimestampSecForBlock(String blockHash, long blockId) {
-        BlockCacheEntity cachedBlock = blockCacheRepository.findById(blockId).orElse(null);
-        if (cachedBlock != null) {
-            return cachedBlock.getBlockDate();
+    public long getTimestampSecForBlock(String blockHash, long blockId) {
+        long timestamp = cachedTimestamp(blockId);
+        if (timestamp != 0) {
+            return timestamp;
         }
-        Block block = web3.findBlockByHash(blockHash, false).getBlock();
+        EthBlock ethBlock = web3.findBlockByHash(blockHash, false);
+        Block block = ethBlock == null ? null : ethBlock.getBlock();
         if (block == null) {
             return 0;
         }
+        timestamp = extractDateFromBlock(block);
+        addTimestamp(blockId, timestamp, true);
+        return timestamp;
+    }
+
+    /**
+     * Fetches unknown blocks by one batch request, the log flow calls it before parsers get logs of
+     * these blocks. Timestamps and gas prices of the blocks are cached, blocks are expected in
+     * ascending order.
+     */
+    public void prefetch(Collection<Long> blocks) {
+        List<Long> missing = new ArrayList<>();
+        int unsampled = 0;
+        for (Long block : blocks) {
+            boolean sample = !gasPriceService.isSampled(block)
+                && unsampled++ < GasPriceService.PREFETCH_LIMIT;
+            if (cachedTimestamp(block) == 0 || sample) {
+                missing.add(block);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        List<Block> fetched = web3.fetchBlocks(missing);
+        for (Block block : fetched) {
+            long number = block.getNumber().longValue();
+            if (timestamps.get(number) == 0) {
+                addTimestamp(number, extractDateFromBlock(block), true);
+            }
+        }
+        gasPriceService.sampleBlocks(fetched);
+    }
+
+    public Map<Long, Long> getRecentTimestamps() {
+        Map<Long, Long> recent = new HashMap<>();
+        long last = lastBlock.get();
+        for (long block = Math.max(0, last - RECENT_BLOCKS_SIZE); block <= last; block++) {
+            long timestamp = timestamps.get(block);
+            if (timestamp != 0) {
+                recent.put(block, timestamp);
+            }
+        }
+        return recent;
+    }
+
+    public void restoreState(long lastBlock, Map<Long, Long> timestamps) {
+        timestamps.forEach((block, timestamp) -> addTimestamp(block, timestamp, false));
+        this.lastBlock.accumulateAndGet(lastBlock, Math::max);
+    }
+
+    @Scheduled(fixedDelay = 5_000)
+    @PreDestroy
+    public void flush() {
+        List<BlockCacheEntity> batch = new ArrayList<>();
+        BlockCacheEntity entity;
+        while ((entity = pendingSaves.poll()) != null) {
+            batch.add(entity);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            blockCacheRepository.saveAll(batch);
+        } catch (RuntimeException e) {
+            // the next flush will try them again
+            pendingSaves.addAll(batch);
+            log.error("Can't save {} block timestamps", batch.size(), e);
+        }
+    }
+
+    private long cachedTimestamp(long block) {
+        long timestamp = timestamps.get(block);
+        if (timestamp == 0 && loadSegment(BlockTimestampIndex.segmentOf(block))) {
+            timestamp = timestamps.get(block);
+        }
+        return timestamp;
+    }
+
+    // true if the segment was read right now
+    private boolean loadSegment(long segment) {
+        if (loadedSegments.contains(segment)) {
+            return false;
+        }
+        synchronized (loadedSegments) {
+            if (loadedSegments.contains(segment)) {
+                return false;
+            }
+            long first = BlockTimestampIndex.firstBlockOf(segment);
+            for (BlockCacheEntity cached : blockCacheRepository
+                .findAllByBlockBetween(first, first + BlockTimestampIndex.SEGMENT_SIZE - 1)) {
+                timestamps.put(cached.getBlock(), cached.getBlockDate());
+            }
+            loadedSegments.add(segment);
+            return true;
+        }
+    }
 
-        cachedBlock = new BlockCacheEntity();
-        cachedBlock.setBlock(blockId);
-        cachedBlock.setBlockDate(extractDateFromBlock(block));
-        blockCacheRepository.save(cachedBlock);
-        if (lastBlock < blockId) {
-            lastBlock = blockId;
+    private void addTimestamp(long block, long timestamp, boolean save) {
+        timestamps.put(block, timestamp);
+        lastBlock.accumulateAndGet(block, Math::max);
+        if (save) {
+            BlockCacheEntity cachedBlock = new BlockCacheEntity();
+            cachedBlock.setBlock(block);
+            cachedBlock.setBlockDate(timestamp);
+            pendingSaves.add(cachedBlock);
         }
-        return extractDateFromBlock(block);
     }
 
     private static long extractDateFromBlock(Block block) {
@@ -43,12 +170,13 @@ public class EthBlockService {
     }
 
     public long getLastBlock() {
-        if (lastBlock == 0) {
-            lastBlock = Optional.ofNullable(blockCacheRepository.findFirstByOrderByBlockDateDesc())
+        if (lastBlock.get() == 0) {
+            long last = Optional.ofNullable(blockCacheRepository.findFirstByOrderByBlockDateDesc())
                 .map(BlockCacheEntity::getBlock)
                 .orElseGet(() -> web3.fetchCurrentBlock().longValue());
+            lastBlock.accumulateAndGet(last, Math::max);
         }
-        return lastBlock;
+        return lastBlock.get();
     }
 
 
@@ -0,0 +1,162 @@
+package pro.belbix.ethparser.web3;
+
+import static org.web3j.abi.FunctionReturnDecoder.decodeIndexedValue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.log4j.Log4j2;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Bool;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.Uint;
+import org.web3j.abi.datatypes.generated.Bytes32;
+import org.web3j.abi.datatypes.generated.Uint112;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.abi.datatypes.generated.Uint8;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.utils.Numeric;
+
+/**
+ * Precompiled layout of one event. Events with only one-word static parameters, like Transfer, Swap,
+ * Deposit or Withdraw, are decoded straight from the hex strings without web3j reflective decoder.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+@Log4j2
+public final class EventSchema {
+
+    private static final int WORD = 64;
+
+    private final List<TypeReference<Type>> indexedParameters = new ArrayList<>();
+    private final List<TypeReference<Type>> nonIndexedParameters = new ArrayList<>();
+    // null if some parameter can't be decoded from a single word
+    private final WordDecoder[] indexedDecoders;
+    private final WordDecoder[] nonIndexedDecoders;
+
+    EventSchema(List<TypeReference<Type>> parameters) {
+        for (TypeReference<Type> parameter : parameters) {
+            if (parameter.isIndexed()) {
+                indexedParameters.add(parameter);
+            } else {
+                nonIndexedParameters.add(parameter);
+            }
+        }
+        indexedDecoders = wordDecoders(indexedParameters);
+        nonIndexedDecoders = wordDecoders(nonIndexedParameters);
+    }
+
+    /**
+     * @return indexed values and then non-indexed, the same as {@link MethodDecoder#extractLogIndexedValues}
+     */
+    public List<Type> decode(Log log) {
+        if (log == null || log.getData() == null) {
+            return new ArrayList<>();
+        }
+        if (indexedDecoders != null && nonIndexedDecoders != null) {
+            List<Type> values = decodeWords(log);
+            if (values != null) {
+                return values;
+            }
+        }
+        return decodeWithWeb3j(log);
+    }
+
+    private List<Type> decodeWords(Log log) {
+        List<String> topics = log.getTopics();
+        String data = log.getData();
+        int dataOffset = data.startsWith("0x") ? 2 : 0;
+        if (topics == null
+            || topics.size() <= indexedDecoders.length
+            || data.length() < dataOffset + nonIndexedDecoders.length * WORD) {
+            return null;
+        }
+        List<Type> values = new ArrayList<>(indexedDecoders.length + nonIndexedDecoders.length);
+        for (int i = 0; i < indexedDecoders.length; i++) {
+            String topic = topics.get(i + 1);
+            if (topic == null || topic.length() != WORD + 2) {
+                return null;
+            }
+            values.add(indexedDecoders[i].decode(topic, 2));
+        }
+        for (int i = 0; i < nonIndexedDecoders.length; i++) {
+            values.add(nonIndexedDecoders[i].decode(data, dataOffset + i * WORD));
+        }
+        return values;
+    }
+
+    private List<Type> decodeWithWeb3j(Log ethLog) {
+        List<Type> values = new ArrayList<>();
+        List<Type> nonIndexedValues;
+        try {
+            nonIndexedValues = FunctionReturnDecoder.decode(ethLog.getData(), nonIndexedParameters);
+        } catch (NullPointerException e) {
+            // it is an odd bug with loader sometimes happens when the app is not warmed up
+            log.error("Can't decode log " + ethLog.getTransactionHash(), e);
+            return null;
+        }
+        List<String> topics = ethLog.getTopics();
+        for (int i = 0; i < indexedParameters.size(); i++) {
+            values.add(decodeIndexedValue(topics.get(i + 1), indexedParameters.get(i)));
+        }
+        values.addAll(nonIndexedValues);
+        return values;
+    }
+
+    private static WordDecoder[] wordDecoders(List<TypeReference<Type>> parameters) {
+        WordDecoder[] decoders = new WordDecoder[parameters.size()];
+        for (int i = 0; i < parameters.size(); i++) {
+            decoders[i] = wordDecoder(parameters.get(i));
+            if (decoders[i] == null) {
+                return null;
+            }
+        }
+        return decoders;
+    }
+
+    private static WordDecoder wordDecoder(TypeReference<Type> parameter) {
+        java.lang.reflect.Type type = parameter.getType();
+        if (!(type instanceof Class)) {
+            // arrays and other parameterized types
+            return null;
+        }
+        if (type.equals(Address.class)) {
+            return (hex, offset) -> new Address(uint(hex, offset));
+        } else if (type.equals(Uint256.class)) {
+            return (hex, offset) -> new Uint256(uint(hex, offset));
+        } else if (type.equals(Uint.class)) {
+            return (hex, offset) -> new Uint(uint(hex, offset));
+        } else if (type.equals(Uint112.class)) {
+            return (hex, offset) -> new Uint112(uint(hex, offset));
+        } else if (type.equals(Uint8.class)) {
+            return (hex, offset) -> new Uint8(uint(hex, offset));
+        } else if (type.equals(Bool.class)) {
+            return (hex, offset) -> new Bool(BigInteger.ONE.equals(uint(hex, offset)));
+        } else if (type.equals(Bytes32.class)) {
+            return (hex, offset) -> new Bytes32(Numeric.hexStringToByteArray(hex.substring(offset, offset + WORD)));
+        }
+        return null;
+    }
+
+    private static BigInteger uint(String hex, int offset) {
+        int end = offset + WORD;
+        int start = offset;
+        while (start < end && hex.charAt(start) == '0') {
+            start++;
+        }
+        if (start == end) {
+            return BigInteger.ZERO;
+        }
+        // most amounts fit into a long, parse them without a substring
+        if (end - start < 16) {
+            return BigInteger.valueOf(Long.parseLong(hex, start, end, 16));
+        }
+        return new BigInteger(hex.substring(offset, end), 16);
+    }
+
+    private interface WordDecoder {
+
+        Type decode(String hex, int offset);
+    }
+}
@@ -10,15 +10,15 @@ import static pro.belbix.ethparser.web3.MethodDecoder.parseAmount;
 import static pro.belbix.ethparser.web3.contracts.ContractConstants.PAIR_TYPE_ONEINCHE;
 import static pro.belbix.ethparser.web3.contracts.ContractConstants.ZERO_ADDRESS;
 
-import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.math.RoundingMode;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import org.web3j.abi.TypeReference;
@@ -32,6 +32,7 @@ import org.web3j.abi.datatypes.generated.Uint32;
 import org.web3j.protocol.core.DefaultBlockParameter;
 import org.web3j.protocol.core.DefaultBlockParameterNumber;
 import org.web3j.tuples.generated.Tuple2;
+import org.web3j.tuples.generated.Tuple3;
 import pro.belbix.ethparser.entity.contracts.TokenEntity;
 import pro.belbix.ethparser.web3.contracts.ContractUtils;
 
@@ -46,7 +47,7 @@ public class FunctionsUtils {
     public final static String TYPE_STR = "str";
     public final static String TYPE_INT = "int";
 
-    private final Map<String, Function> functionsCache = new HashMap<>();
+    private final Map<String, Function> functionsCache = new ConcurrentHashMap<>();
 
     private final Web3Service web3Service;
 
@@ -83,7 +84,28 @@ public class FunctionsUtils {
     }
 
     private Tuple2<Double, Double> callUniReserves(String lpAddress, Long block) {
-        List<Type> types = web3Service.callFunction(new Function(
+        List<Type> types = web3Service.callFunction(reservesFunction(), lpAddress, resolveBlock(block));
+        return parseUniReserves(types, lpAddress);
+    }
+
+    public Map<Long, Tuple2<Double, Double>> callReservesBatch(String lpAddress, List<Long> blocks) {
+        Map<Long, Tuple2<Double, Double>> result = new HashMap<>();
+        if (ContractUtils.getUniPairType(lpAddress) == PAIR_TYPE_ONEINCHE) {
+            blocks.forEach(block -> result.put(block, callOneInchReserves(lpAddress, block)));
+            return result;
+        }
+        Function function = reservesFunction();
+        List<List<Type>> responses = web3Service.callFunctionBatch(blocks.stream()
+            .map(block -> new Tuple3<>(function, lpAddress, resolveBlock(block)))
+            .collect(Collectors.toList()));
+        for (int i = 0; i < blocks.size(); i++) {
+            result.put(blocks.get(i), parseUniReserves(responses.get(i), lpAddress));
+        }
+        return result;
+    }
+
+    private static Function reservesFunction() {
+        return new Function(
             GET_RESERVES,
             Collections.emptyList(),
             Arrays.asList(new TypeReference<Uint112>() {
@@ -92,20 +114,19 @@ public class FunctionsUtils {
                 },
                 new TypeReference<Uint32>() {
                 }
-            )), lpAddress, resolveBlock(block));
+            ));
+    }
+
+    private Tuple2<Double, Double> parseUniReserves(List<Type> types, String lpAddress) {
         if (types == null || types.size() < 3) {
             log.error("Wrong values for " + lpAddress);
             return null;
         }
 
         Tuple2<TokenEntity, TokenEntity> tokens = ContractUtils.getUniPairTokens(lpAddress);
-        BigDecimal v1 = new BigDecimal((BigInteger) types.get(0).getValue());
-        BigDecimal v2 = new BigDecimal((BigInteger) types.get(1).getValue());
         return new Tuple2<>(
-            v1.divide(new BigDecimal(10L).pow(tokens.component1().getDecimals().intValue())
-                , 99, RoundingMode.HALF_UP).doubleValue(),
-            v2.divide(new BigDecimal(10L).pow(tokens.component2().getDecimals().intValue())
-                , 99, RoundingMode.HALF_UP).doubleValue()
+            parseAmount((BigInteger) types.get(0).getValue(), tokens.component1().getDecimals().intValue()),
+            parseAmount((BigInteger) types.get(1).getValue(), tokens.component2().getDecimals().intValue())
         );
     }
 
@@ -132,6 +153,45 @@ public class FunctionsUtils {
             })), hash, block);
     }
 
+    public Map<Long, BigInteger> callIntByNameBatch(String functionName, String hash, List<Long> blocks) {
+        Function function = findSimpleFunction(functionName, TYPE_INT);
+        List<List<Type>> responses = web3Service.callFunctionBatch(blocks.stream()
+            .map(block -> new Tuple3<>(function, hash, resolveBlock(block)))
+            .collect(Collectors.toList()));
+        Map<Long, BigInteger> result = new HashMap<>();
+        for (int i = 0; i < blocks.size(); i++) {
+            List<Type> types = responses.get(i);
+            if (types == null || types.isEmpty()) {
+                log.error(function.getName() + " Wrong batch callback for hash: " + hash);
+                continue;
+            }
+            result.put(blocks.get(i), (BigInteger) types.get(0).getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Calls the same simple function for many contracts in one batch request.
+     * Failed calls are absent in the result.
+     */
+    public Map<String, Object> callByNameBatch(String functionName, String returnType,
+                                               List<String> hashes, Long block) {
+        Function function = findSimpleFunction(functionName, returnType);
+        DefaultBlockParameter blockParameter = resolveBlock(block);
+        List<List<Type>> responses = web3Service.callFunctionBatch(hashes.stream()
+            .map(hash -> new Tuple3<>(function, hash, blockParameter))
+            .collect(Collectors.toList()));
+        Map<String, Object> result = new HashMap<>();
+        for (int i = 0; i < hashes.size() && i < responses.size(); i++) {
+            List<Type> types = responses.get(i);
+            if (types == null || types.isEmpty() || types.get(0).getValue() == null) {
+                continue;
+            }
+            result.put(hashes.get(i), types.get(0).getValue());
+        }
+        return result;
+    }
+
     // ************ PRIVATE METHODS **************************
 
     private Function findSimpleFunction(String name, String returnType) {
@@ -0,0 +1,200 @@
+package pro.belbix.ethparser.web3;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthBlock.Block;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionResult;
+import org.web3j.protocol.core.methods.response.Transaction;
+
+/**
+ * Median gas price of block transactions in gwei, sampled once per block from up to {@link
+ * #SAMPLE_SIZE} evenly spread transactions. The log flow samples blocks of each log batch together
+ * with their timestamps, see {@link EthBlockService#prefetch}. Other blocks are loaded on demand,
+ * parsers asking for the same block wait for one load. Empty blocks and failed loads give 0.
+ */
+@Service
+@Log4j2
+public class GasPriceService {
+
+    private static final int CACHE_BLOCKS = 4096;
+    static final int SAMPLE_SIZE = 25;
+    // blocks sampled ahead, the rest of them would be evicted before parsers come
+    static final int PREFETCH_LIMIT = CACHE_BLOCKS / 2;
+    // txs in one batch request
+    private static final int BATCH_SIZE = 1000;
+    private final Web3Service web3Service;
+    // block % CACHE_BLOCKS -> sampled block and its price
+    private final long[] blocks = new long[CACHE_BLOCKS];
+    private final double[] prices = new double[CACHE_BLOCKS];
+    private final Map<Long, CompletableFuture<Double>> loads = new ConcurrentHashMap<>();
+
+    public GasPriceService(Web3Service web3Service) {
+        this.web3Service = web3Service;
+    }
+
+    public double getGasPrice(BigInteger block) {
+        if (block == null) {
+            return 0.0;
+        }
+        return getGasPrice(block.longValue());
+    }
+
+    public double getGasPrice(Long block) {
+        if (block == null) {
+            return 0.0;
+        }
+        Double cached = cached(block);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<Double> own = new CompletableFuture<>();
+        CompletableFuture<Double> running = loads.putIfAbsent(block, own);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            // could be loaded while we checked
+            Double price = cached(block);
+            if (price == null) {
+                price = sample(block);
+            }
+            own.complete(price);
+            return price;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(block, own);
+        }
+    }
+
+    public boolean isSampled(long block) {
+        return cached(block) != null;
+    }
+
+    /**
+     * Samples up to {@link #PREFETCH_LIMIT} not cached blocks by tx batches, blocks are expected in
+     * ascending order with tx hashes only.
+     */
+    public void sampleBlocks(Collection<Block> blocks) {
+        Map<Long, List<String>> hashesByBlock = new HashMap<>();
+        List<String> batch = new ArrayList<>();
+        int sampled = 0;
+        for (Block block : blocks) {
+            long number = block.getNumber().longValue();
+            if (isSampled(number)) {
+                continue;
+            }
+            if (++sampled > PREFETCH_LIMIT) {
+                break;
+            }
+            List<String> hashes = sampleHashes(block.getTransactions(), SAMPLE_SIZE);
+            if (hashes.isEmpty()) {
+                cache(number, 0.0);
+                continue;
+            }
+            if (batch.size() + hashes.size() > BATCH_SIZE) {
+                sampleBatch(hashesByBlock, batch);
+                hashesByBlock.clear();
+                batch = new ArrayList<>();
+            }
+            hashesByBlock.put(number, hashes);
+            batch.addAll(hashes);
+        }
+        if (!batch.isEmpty()) {
+            sampleBatch(hashesByBlock, batch);
+        }
+    }
+
+    private void sampleBatch(Map<Long, List<String>> hashesByBlock, List<String> hashes) {
+        Map<Long, List<Transaction>> transactions = web3Service.fetchTransactionBatch(hashes)
+            .filter(Optional::isPresent)
+            .map(Optional::get)
+            .filter(tx -> tx.getBlockNumberRaw() != null)
+            .collect(Collectors.groupingBy(tx -> tx.getBlockNumber().longValue()));
+        hashesByBlock.forEach((block, blockHashes) -> {
+            List<Transaction> blockTransactions = transactions.getOrDefault(block, List.of());
+            if (blockTransactions.size() < blockHashes.size()) {
+                log.warn("Can't sample gas price for block {}, got {} of {} txs",
+                    block, blockTransactions.size(), blockHashes.size());
+                return;
+            }
+            cache(block, median(blockTransactions));
+        });
+    }
+
+    private double sample(long block) {
+        EthBlock ethBlock = web3Service.findBlockByNumber(block, false);
+        if (ethBlock == null || ethBlock.getBlock() == null) {
+            log.warn("Can't sample gas price for block {}", block);
+            return 0.0;
+        }
+        sampleBlocks(List.of(ethBlock.getBlock()));
+        Double price = cached(block);
+        return price == null ? 0.0 : price;
+    }
+
+    private Double cached(long block) {
+        int slot = (int) (block % CACHE_BLOCKS);
+        synchronized (blocks) {
+            return blocks[slot] == block ? prices[slot] : null;
+        }
+    }
+
+    private void cache(long block, double price) {
+        int slot = (int) (block % CACHE_BLOCKS);
+        synchronized (blocks) {
+            blocks[slot] = block;
+            prices[slot] = price;
+        }
+    }
+
+    static List<String> sampleHashes(List<TransactionResult> transactions, int size) {
+        List<String> hashes = new ArrayList<>();
+        if (transactions == null || transactions.isEmpty()) {
+            return hashes;
+        }
+        int count = Math.min(size, transactions.size());
+        for (int i = 0; i < count; i++) {
+            Object hash = transactions.get((int) ((long) i * transactions.size() / count)).get();
+            if (hash instanceof String) {
+                hashes.add((String) hash);
+            }
+        }
+        return hashes;
+    }
+
+    static double median(List<Transaction> transactions) {
+        if (transactions == null || transactions.isEmpty()) {
+            return 0.0;
+        }
+        long[] gasPrices = new long[transactions.size()];
+        int size = 0;
+        for (Transaction tx : transactions) {
+            if (tx == null || tx.getGasPriceRaw() == null) {
+                continue;
+            }
+            gasPrices[size++] = tx.getGasPrice().longValue();
+        }
+        if (size == 0) {
+            return 0.0;
+        }
+        Arrays.sort(gasPrices, 0, size);
+        double median = size % 2 == 1
+            ? gasPrices[size / 2]
+            : (gasPrices[size / 2 - 1] + gasPrices[size / 2]) / 2.0;
+        return median / 1000_000_000;
+    }
+}
@@ -0,0 +1,113 @@
+package pro.belbix.ethparser.web3;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+/**
+ * Canonical lower case instances for hex values repeated across logs: contract addresses and event
+ * signatures. Done once at ingestion, so lookups down the pipeline don't lower case and rehash them.
+ */
+public final class HexInterner {
+
+    private static final int MAX_SIZE = 100_000;
+    private static final Map<String, String> pool = new ConcurrentHashMap<>();
+
+    private HexInterner() {
+    }
+
+    public static String intern(String hex) {
+        if (hex == null) {
+            return null;
+        }
+        String canonical = pool.get(hex);
+        if (canonical != null) {
+            return canonical;
+        }
+        String lower = toLowerCase(hex);
+        canonical = pool.get(lower);
+        if (canonical == null) {
+            if (pool.size() > MAX_SIZE) {
+                // addresses set is small, overflow means garbage input
+                pool.clear();
+            }
+            canonical = pool.putIfAbsent(lower, lower);
+            if (canonical == null) {
+                canonical = lower;
+            }
+        }
+        if (lower != hex) {
+            pool.putIfAbsent(hex, canonical);
+        }
+        return canonical;
+    }
+
+    public static void compact(Log log) {
+        compact(log, null);
+    }
+
+    /**
+     * Logs from one response share block and transaction hashes, keep one instance of each.
+     */
+    public static void compactAll(List<Log> logs) {
+        Map<String, String> hashes = new HashMap<>();
+        for (Log log : logs) {
+            compact(log, hashes);
+        }
+    }
+
+    public static void compact(TransactionReceipt receipt) {
+        if (receipt == null) {
+            return;
+        }
+        // from and to are mostly user addresses, they would only flood the pool
+        receipt.setContractAddress(intern(receipt.getContractAddress()));
+        if (receipt.getLogs() != null) {
+            compactAll(receipt.getLogs());
+        }
+    }
+
+    static void compact(Log log, Map<String, String> hashes) {
+        if (log == null) {
+            return;
+        }
+        log.setAddress(intern(log.getAddress()));
+        List<String> topics = log.getTopics();
+        if (topics != null && !topics.isEmpty()) {
+            String topic0 = intern(topics.get(0));
+            if (topic0 != topics.get(0)) {
+                try {
+                    topics.set(0, topic0);
+                } catch (UnsupportedOperationException e) {
+                    List<String> compacted = new ArrayList<>(topics);
+                    compacted.set(0, topic0);
+                    log.setTopics(compacted);
+                }
+            }
+        }
+        if (hashes != null) {
+            log.setBlockHash(share(hashes, log.getBlockHash()));
+            log.setTransactionHash(share(hashes, log.getTransactionHash()));
+        }
+    }
+
+    private static String share(Map<String, String> hashes, String hash) {
+        if (hash == null) {
+            return null;
+        }
+        return hashes.computeIfAbsent(hash, h -> h);
+    }
+
+    private static String toLowerCase(String hex) {
+        for (int i = 0; i < hex.length(); i++) {
+            if (Character.isUpperCase(hex.charAt(i))) {
+                return hex.toLowerCase();
+            }
+        }
+        return hex;
+    }
+}
@@ -0,0 +1,103 @@
+package pro.belbix.ethparser.web3;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import org.web3j.protocol.core.methods.response.Log;
+
+/**
+ * Logs of one stream on the way to parser queues. A block is finished when a log of the next block
+ * comes, finished blocks go to the dispatcher as soon as all queues have room for them, so parsers
+ * work while the rest of the range is downloading. When more than the limit is buffered the stream
+ * waits until the dispatcher writes the oldest blocks.
+ */
+public final class LogBuffer {
+
+    private final Collection<BlockingQueue<Log>> queues;
+    private final Consumer<List<Log>> dispatcher;
+    private final int limit;
+    private final Deque<List<Log>> finished = new ArrayDeque<>();
+    private List<Log> current = new ArrayList<>();
+    private long currentBlock = -1;
+    private int buffered;
+
+    /**
+     * @param queues     parser queues, only for checking their room, the dispatcher writes in them
+     * @param dispatcher blocks while queues are full
+     * @param limit      count of buffered logs after which the stream waits for parsers
+     */
+    public LogBuffer(Collection<BlockingQueue<Log>> queues, Consumer<List<Log>> dispatcher,
+                     int limit) {
+        this.queues = queues;
+        this.dispatcher = dispatcher;
+        this.limit = limit;
+    }
+
+    public void add(Log ethLog) {
+        long block = ethLog.getBlockNumber().longValue();
+        if (block != currentBlock && !current.isEmpty()) {
+            finished.add(current);
+            current = new ArrayList<>();
+            dispatchFitting();
+        }
+        currentBlock = block;
+        current.add(ethLog);
+        buffered++;
+        while (buffered > limit && !finished.isEmpty()) {
+            dispatch(List.of(finished.poll()));
+        }
+    }
+
+    /**
+     * The stream is over, all buffered logs go to the dispatcher.
+     */
+    public void finish() {
+        if (!current.isEmpty()) {
+            finished.add(current);
+            current = new ArrayList<>();
+        }
+        List<List<Log>> blocks = new ArrayList<>(finished);
+        finished.clear();
+        dispatch(blocks);
+    }
+
+    public int buffered() {
+        return buffered;
+    }
+
+    // the buffer is the only writer of the queues, so the room can only grow until the dispatch
+    private void dispatchFitting() {
+        List<List<Log>> blocks = new ArrayList<>();
+        int count = 0;
+        while (!finished.isEmpty() && fits(count, finished.peek().size())) {
+            List<Log> block = finished.poll();
+            blocks.add(block);
+            count += block.size();
+        }
+        dispatch(blocks);
+    }
+
+    // a block bigger than a queue can go only into the empty one
+    private boolean fits(int before, int size) {
+        for (BlockingQueue<Log> queue : queues) {
+            if (queue.remainingCapacity() - before < size && !(before == 0 && queue.isEmpty())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void dispatch(List<List<Log>> blocks) {
+        if (blocks.isEmpty()) {
+            return;
+        }
+        List<Log> logs = new ArrayList<>();
+        blocks.forEach(logs::addAll);
+        buffered -= logs.size();
+        dispatcher.accept(logs);
+    }
+}
@@ -0,0 +1,60 @@
+package pro.belbix.ethparser.web3;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.core.Response.Error;
+import org.web3j.protocol.core.methods.response.Log;
+
+/**
+ * Reads eth_getLogs response body token by token and hands over every log as soon as it is parsed,
+ * without building the whole {@link org.web3j.protocol.core.methods.response.EthLog} in memory.
+ */
+public final class LogStreamReader {
+
+    private static final ObjectMapper OBJECT_MAPPER = ObjectMapperFactory.getObjectMapper();
+
+    private LogStreamReader() {
+    }
+
+    /**
+     * @return count of logs passed to the consumer
+     * @throws IllegalStateException if the node responded with an error
+     */
+    public static long read(InputStream body, Consumer<Log> consumer) throws IOException {
+        long count = 0;
+        // logs from one response share block and transaction hashes
+        Map<String, String> hashes = new HashMap<>();
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalStateException("Wrong logs response format");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("error".equals(field) && token == JsonToken.START_OBJECT) {
+                    Error error = OBJECT_MAPPER.readValue(parser, Error.class);
+                    throw new IllegalStateException("Can't get eth log. "
+                        + error.getCode() + " " + error.getMessage());
+                }
+                if (!"result".equals(field) || token != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    Log ethLog = OBJECT_MAPPER.readValue(parser, Log.class);
+                    HexInterner.compact(ethLog, hashes);
+                    consumer.accept(ethLog);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,64 @@
+package pro.belbix.ethparser.web3;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.web3j.crypto.Hash;
+import org.web3j.utils.Numeric;
+
+/**
+ * Checks a block logsBloom for logs of the given contracts or with the given topics. False means the
+ * block has no such logs for sure, true means it may have and should be fetched in full.
+ */
+public final class LogsBloomFilter {
+
+    private static final int BLOOM_BYTES = 256;
+
+    // three (byte index, mask) pairs for each value
+    private final int[][] bits;
+
+    public LogsBloomFilter(Collection<String> addresses, Collection<String> topics) {
+        List<int[]> values = new ArrayList<>(addresses.size() + topics.size());
+        addresses.forEach(address -> values.add(bits(Numeric.hexStringToByteArray(address))));
+        topics.forEach(topic -> values.add(bits(Numeric.hexStringToByteArray(topic))));
+        this.bits = values.toArray(new int[0][]);
+    }
+
+    public boolean mightContain(String logsBloom) {
+        if (logsBloom == null) {
+            // can't say anything without the bloom
+            return true;
+        }
+        byte[] bloom = Numeric.hexStringToByteArray(logsBloom);
+        if (bloom.length != BLOOM_BYTES) {
+            return true;
+        }
+        for (int[] value : bits) {
+            if ((bloom[value[0]] & value[1]) != 0
+                && (bloom[value[2]] & value[3]) != 0
+                && (bloom[value[4]] & value[5]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Address as an indexed topic, for catching logs where the address is a parameter.
+     */
+    public static String addressTopic(String address) {
+        return "0x000000000000000000000000" + Numeric.cleanHexPrefix(address);
+    }
+
+    // yellow paper M3:2048 - the low 11 bits of the first three pairs of keccak bytes
+    static int[] bits(byte[] value) {
+        byte[] hash = Hash.sha3(value);
+        int[] result = new int[6];
+        for (int i = 0; i < 3; i++) {
+            int bit = ((hash[i * 2] & 0xFF) << 8 | (hash[i * 2 + 1] & 0xFF)) & 2047;
+            result[i * 2] = BLOOM_BYTES - 1 - bit / 8;
+            result[i * 2 + 1] = 1 << (bit % 8);
+        }
+        return result;
+    }
+}
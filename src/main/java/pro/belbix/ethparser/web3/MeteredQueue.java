@@ -0,0 +1,202 @@
+package pro.belbix.ethparser.web3;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import lombok.Data;
+
+/**
+ * Parser queue that counts what goes through it. Wait time is the time producers were blocked on a
+ * full queue. Timeouts are timed offers that expired, a caller may retry them, rejected are offers
+ * that failed without waiting. Removed elements are counted in dequeued and in removed, so depth is
+ * enqueued minus dequeued.
+ */
+public final class MeteredQueue<T> extends AbstractQueue<T> implements BlockingQueue<T> {
+
+    private final String name;
+    private final String type;
+    private final BlockingQueue<T> delegate;
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dequeued = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder removed = new LongAdder();
+
+    public MeteredQueue(String name, String type, BlockingQueue<T> delegate) {
+        this.name = name;
+        this.type = type;
+        this.delegate = delegate;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Stats stats() {
+        Stats stats = new Stats();
+        stats.setType(type);
+        int depth = delegate.size();
+        // ring queues round the configured capacity up
+        stats.setCapacity(delegate.remainingCapacity() + depth);
+        stats.setDepth(depth);
+        stats.setEnqueued(enqueued.sum());
+        stats.setDequeued(dequeued.sum());
+        stats.setWaits(waits.sum());
+        stats.setWaitMs(TimeUnit.NANOSECONDS.toMillis(waitNanos.sum()));
+        stats.setTimeouts(timeouts.sum());
+        stats.setRejected(rejected.sum());
+        stats.setRemoved(removed.sum());
+        return stats;
+    }
+
+    @Override
+    public boolean offer(T e) {
+        if (delegate.offer(e)) {
+            enqueued.increment();
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    @Override
+    public void put(T e) throws InterruptedException {
+        if (delegate.offer(e)) {
+            enqueued.increment();
+            return;
+        }
+        waits.increment();
+        long start = System.nanoTime();
+        try {
+            delegate.put(e);
+            enqueued.increment();
+        } finally {
+            waitNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean offer(T e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (delegate.offer(e)) {
+            enqueued.increment();
+            return true;
+        }
+        waits.increment();
+        long start = System.nanoTime();
+        try {
+            if (delegate.offer(e, timeout, unit)) {
+                enqueued.increment();
+                return true;
+            }
+            timeouts.increment();
+            return false;
+        } finally {
+            waitNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public T poll() {
+        return dequeued(delegate.poll());
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        return dequeued(delegate.take());
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return dequeued(delegate.poll(timeout, unit));
+    }
+
+    @Override
+    public T peek() {
+        return delegate.peek();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return delegate.remainingCapacity();
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> c) {
+        int count = delegate.drainTo(c);
+        dequeued.add(count);
+        return count;
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> c, int maxElements) {
+        int count = delegate.drainTo(c, maxElements);
+        dequeued.add(count);
+        return count;
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return delegate.iterator();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (delegate.remove(o)) {
+            removed(1);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super T> filter) {
+        int[] count = new int[1];
+        boolean changed = delegate.removeIf(e -> {
+            if (filter.test(e)) {
+                count[0]++;
+                return true;
+            }
+            return false;
+        });
+        removed(count[0]);
+        return changed;
+    }
+
+    private void removed(int count) {
+        removed.add(count);
+        dequeued.add(count);
+    }
+
+    private T dequeued(T e) {
+        if (e != null) {
+            dequeued.increment();
+        }
+        return e;
+    }
+
+    @Data
+    public static class Stats {
+
+        private String type;
+        private int capacity;
+        private int depth;
+        private long enqueued;
+        private long dequeued;
+        private long waits;
+        private long waitMs;
+        private long timeouts;
+        private long rejected;
+        private long removed;
+    }
+}
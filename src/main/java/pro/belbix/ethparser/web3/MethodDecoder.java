@@ -5,7 +5,6 @@ import static org.web3j.abi.FunctionReturnDecoder.decodeIndexedValue;
 import java.lang.reflect.ParameterizedType;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -37,12 +36,38 @@ import pro.belbix.ethparser.web3.deployer.decoder.DeployerActivityEnum;
 @SuppressWarnings({"rawtypes", "unchecked"})
 public abstract class MethodDecoder {
 
+    // powers of ten exactly representable as double
+    private static final double[] DOUBLE_POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // tables are the same for all decoders and slow to build, so build them once
+    private static volatile MethodDecoder tablesOwner;
+
     protected Map<String, List<TypeReference<Type>>> parametersByMethodId = new HashMap<>();
     protected Map<String, String> methodNamesByMethodId = new HashMap<>();
     protected Map<String, String> methodIdByFullHex = new HashMap<>();
+    protected Map<String, EventSchema> eventSchemasByMethodId = new HashMap<>();
+    private SelectorTable selectorTable = new SelectorTable(Collections.emptyList());
 
     public MethodDecoder() {
-        initParameters();
+        MethodDecoder owner = tablesOwner;
+        if (owner == null) {
+            synchronized (MethodDecoder.class) {
+                owner = tablesOwner;
+                if (owner == null) {
+                    initParameters();
+                    tablesOwner = this;
+                    return;
+                }
+            }
+        }
+        parametersByMethodId = owner.parametersByMethodId;
+        methodNamesByMethodId = owner.methodNamesByMethodId;
+        methodIdByFullHex = owner.methodIdByFullHex;
+        eventSchemasByMethodId = owner.eventSchemasByMethodId;
+        selectorTable = owner.selectorTable;
     }
 
     public static Address[] parseAddresses(Type type) {
@@ -77,9 +102,22 @@ public abstract class MethodDecoder {
         if (amount == null) {
             return 0.0;
         }
-        return new BigDecimal(amount)
-            .divide(ContractUtils.getDividerByAddress(address), 99, RoundingMode.HALF_UP)
-            .doubleValue();
+        return parseAmount(amount, ContractUtils.getDecimalsByAddress(address));
+    }
+
+    // the result is the exact quotient rounded to the nearest double, the same as a division with scale 99
+    public static double parseAmount(BigInteger amount, int decimals) {
+        if (amount == null) {
+            return 0.0;
+        }
+        int bitLength = amount.bitLength();
+        if (bitLength <= 63
+            && bitLength - amount.getLowestSetBit() <= 53
+            && decimals < DOUBLE_POW10.length) {
+            // both operands are exact doubles, IEEE division rounds correctly
+            return amount.longValue() / DOUBLE_POW10[decimals];
+        }
+        return new BigDecimal(amount, decimals).doubleValue();
     }
 
     public static List<Type> extractLogIndexedValues(Log log, List<TypeReference<Type>> parameters) {
@@ -106,6 +144,17 @@ public abstract class MethodDecoder {
         return indexedValues;
     }
 
+    /**
+     * The same result as {@link #extractLogIndexedValues} using the precompiled event layout.
+     */
+    protected List<Type> extractLogValues(Log log, String methodId) {
+        EventSchema schema = eventSchemasByMethodId.get(methodId);
+        if (schema == null) {
+            return extractLogIndexedValues(log, Collections.emptyList());
+        }
+        return schema.decode(log);
+    }
+
     public static List<TypeReference<Type>> getNonIndexedParameters(List<TypeReference<Type>> parameters) {
         return parameters.stream().filter(p -> !p.isIndexed()).collect(Collectors.toList());
     }
@@ -123,19 +172,25 @@ public abstract class MethodDecoder {
         return Optional.ofNullable(parametersByMethodId.get(methodId));
     }
 
+    /**
+     * @return known method id from the first 4 bytes of the tx input or null
+     */
+    public String findMethodId(String input) {
+        return selectorTable.find(input);
+    }
+
     public EthTransactionI decodeInputData(Transaction transaction) {
         String data = transaction.getInput();
         // Corporate 2/9/21 -- Changed length from 74 to 10 to decode txns that only have method id.
         if (data.length() < 10) {
             return null;
         }
-        String methodID = data.substring(0, 10);
-        String input = data.substring(10);
-        List<TypeReference<Type>> parameters = parametersByMethodId.get(methodID);
-        if (parameters == null) {
+        String methodID = findMethodId(data);
+        if (methodID == null) {
             throw new IllegalStateException("Not found parameters for " + transaction.getHash());
         }
-        List<Type> types = FunctionReturnDecoder.decode(input, parameters);
+        List<TypeReference<Type>> parameters = parametersByMethodId.get(methodID);
+        List<Type> types = FunctionReturnDecoder.decode(data.substring(10), parameters);
         return mapTypesToModel(types, methodID, transaction);
     }
 
@@ -243,10 +298,12 @@ public abstract class MethodDecoder {
             String methodID = createMethodId(methodName, entry.getValue());
             String methodFullHex = createMethodFullHex(methodName, entry.getValue());
             parametersByMethodId.put(methodID, entry.getValue());
+            eventSchemasByMethodId.put(methodID, new EventSchema(entry.getValue()));
             methodNamesByMethodId.put(methodID, entry.getKey());
             methodIdByFullHex.put(methodFullHex, methodID);
 //            System.out.println(this.getClass().getSimpleName() + " " + entry.getKey() + " " + methodID + " " + methodFullHex);
         }
+        selectorTable = new SelectorTable(parametersByMethodId.keySet());
     }
 
     private void initParameters() {
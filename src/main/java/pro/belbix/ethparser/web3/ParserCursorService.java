@@ -0,0 +1,339 @@
+package pro.belbix.ethparser.web3;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.util.Strings;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.web3j.protocol.core.methods.response.Log;
+import pro.belbix.ethparser.entity.v0.ParserCursorEntity;
+import pro.belbix.ethparser.properties.AppProperties;
+import pro.belbix.ethparser.repositories.v0.ParserCursorRepository;
+
+/**
+ * The last handled log of every log parser. After a restart parsers skip logs under their cursors and
+ * the log flow starts from the lowest cursor instead of the last saved rows.
+ * <p>
+ * A rewind after a chain reorganization takes the write lock, so it never interleaves with parser
+ * writes. Logs of orphaned blocks that were queued before it can't write or move cursors anymore.
+ * <p>
+ * Logs handed over with {@link #track} are in flight until {@link #release}. The cursor of such a
+ * parser is a low-water mark, it never passes an unfinished log, even if later logs are done.
+ */
+@Service
+@Log4j2
+public class ParserCursorService {
+
+    private static final int MAX_ORPHANED_BLOCKS = 1024;
+    private static final Comparator<ParserCursorEntity> ORDER = Comparator
+        .comparingLong(ParserCursorEntity::getBlock)
+        .thenComparingLong(ParserCursorEntity::getLogIndex);
+    private final ParserCursorRepository parserCursorRepository;
+    private final AppProperties appProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, ParserCursorEntity> cursors = new ConcurrentHashMap<>();
+    private final Set<String> registered = ConcurrentHashMap.newKeySet();
+    // moved without writes, saved by schedule
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    // read lock for parser writes, write lock for rewinds
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // hashes of blocks removed from the chain by reorganizations
+    private final Set<String> orphanedBlocks = new LinkedHashSet<>();
+    // tracked logs that are not finished yet, by parser
+    private final Map<String, NavigableSet<ParserCursorEntity>> inFlight = new ConcurrentHashMap<>();
+    // the latest finished tracked log, by parser
+    private final Map<String, ParserCursorEntity> finished = new ConcurrentHashMap<>();
+
+    public ParserCursorService(ParserCursorRepository parserCursorRepository,
+                               AppProperties appProperties,
+                               PlatformTransactionManager transactionManager) {
+        this.parserCursorRepository = parserCursorRepository;
+        this.appProperties = appProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void register(Web3Parser parser) {
+        String name = name(parser);
+        registered.add(name);
+        // explicit start block means reparse, don't skip anything
+        if (Strings.isBlank(appProperties.getStartLogBlock())) {
+            parserCursorRepository.findById(name).ifPresent(cursor -> {
+                cursors.putIfAbsent(name, cursor);
+                log.info("{} resumes after block {} log {}", name, cursor.getBlock(), cursor.getLogIndex());
+            });
+        }
+    }
+
+    public boolean isProcessed(Web3Parser parser, Log ethLog) {
+        if (ethLog == null) {
+            return false;
+        }
+        if (isOrphaned(ethLog)) {
+            return true;
+        }
+        ParserCursorEntity cursor = cursors.get(name(parser));
+        if (cursor == null) {
+            return false;
+        }
+        long block = ethLog.getBlockNumber().longValue();
+        return block < cursor.getBlock()
+            || (block == cursor.getBlock() && ethLog.getLogIndex().longValue() <= cursor.getLogIndex());
+    }
+
+    /**
+     * For logs without writes, the cursor will be saved a bit later.
+     */
+    public void advance(Web3Parser parser, Log ethLog) {
+        lock.readLock().lock();
+        try {
+            if (isOrphaned(ethLog)) {
+                return;
+            }
+            String name = name(parser);
+            ParserCursorEntity next = next(name, ethLog);
+            if (next != null) {
+                cursors.merge(name, next, ParserCursorService::later);
+                dirty.add(name);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs the parser writes and moves its cursor in one db transaction.
+     *
+     * @return result of the writes, false for logs of orphaned blocks, they are not written
+     */
+    public boolean commit(Web3Parser parser, Log ethLog, Supplier<Boolean> write) {
+        lock.readLock().lock();
+        try {
+            if (isOrphaned(ethLog)) {
+                log.info("Skip log of orphaned block {} {}", ethLog.getBlockNumber(), ethLog.getBlockHash());
+                return false;
+            }
+            String name = name(parser);
+            ParserCursorEntity next = next(name, ethLog);
+            if (next == null) {
+                return write.get();
+            }
+            Boolean result = transactionTemplate.execute(status -> {
+                Boolean written = write.get();
+                parserCursorRepository.save(next);
+                return written;
+            });
+            cursors.merge(name, next, ParserCursorService::later);
+            return Boolean.TRUE.equals(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Marks the log as in flight, the parser cursor stays under it until it is released.
+     */
+    public void track(Web3Parser parser, Log ethLog) {
+        String name = name(parser);
+        ParserCursorEntity position = position(name, ethLog);
+        if (position == null) {
+            return;
+        }
+        NavigableSet<ParserCursorEntity> pending = inFlight.computeIfAbsent(name, n -> new TreeSet<>(ORDER));
+        synchronized (pending) {
+            pending.add(position);
+        }
+    }
+
+    /**
+     * Finishes a tracked log, handled or not, and moves the cursor up to the next unfinished log.
+     */
+    public void release(Web3Parser parser, Log ethLog) {
+        String name = name(parser);
+        ParserCursorEntity position = position(name, ethLog);
+        NavigableSet<ParserCursorEntity> pending = inFlight.get(name);
+        if (position == null || pending == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            ParserCursorEntity low;
+            synchronized (pending) {
+                pending.remove(position);
+                ParserCursorEntity done = finished.get(name);
+                if (done == null) {
+                    return;
+                }
+                low = pending.isEmpty() ? done : earlier(done, before(pending.first()));
+            }
+            ParserCursorEntity current = cursors.get(name);
+            if (current == null || ORDER.compare(low, current) > 0) {
+                cursors.merge(name, low, ParserCursorService::later);
+                dirty.add(name);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the lowest block among cursors of started parsers or null if some of them have no cursor
+     */
+    public Long resumeBlock() {
+        if (registered.isEmpty()) {
+            return null;
+        }
+        long min = Long.MAX_VALUE;
+        for (String name : registered) {
+            ParserCursorEntity cursor = cursors.get(name);
+            if (cursor == null) {
+                return null;
+            }
+            min = Math.min(min, cursor.getBlock());
+        }
+        return min;
+    }
+
+    /**
+     * Moves all cursors back to the end of the given block, used after a chain reorganization. Parser
+     * writes wait until the rollback and the rewind are done.
+     *
+     * @param orphaned hashes of blocks after the given one, their logs are not written anymore
+     * @param rollback removes rows of orphaned blocks
+     */
+    public void rewind(long block, Collection<String> orphaned, Runnable rollback) {
+        lock.writeLock().lock();
+        try {
+            synchronized (orphanedBlocks) {
+                orphaned.forEach(hash -> orphanedBlocks.add(hash.toLowerCase()));
+                Iterator<String> it = orphanedBlocks.iterator();
+                while (orphanedBlocks.size() > MAX_ORPHANED_BLOCKS) {
+                    it.next();
+                    it.remove();
+                }
+            }
+            rollback.run();
+            for (NavigableSet<ParserCursorEntity> pending : inFlight.values()) {
+                synchronized (pending) {
+                    pending.removeIf(position -> position.getBlock() > block);
+                }
+            }
+            finished.replaceAll((name, done) ->
+                done.getBlock() > block ? cursor(name, block, Long.MAX_VALUE) : done);
+            for (ParserCursorEntity cursor : cursors.values()) {
+                if (cursor.getBlock() <= block) {
+                    continue;
+                }
+                ParserCursorEntity rewound = cursor(cursor.getParser(), block, Long.MAX_VALUE);
+                cursors.put(rewound.getParser(), rewound);
+                parserCursorRepository.save(rewound);
+                dirty.remove(rewound.getParser());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelay = 10_000)
+    @PreDestroy
+    public void flush() {
+        lock.readLock().lock();
+        try {
+            for (String name : dirty) {
+                dirty.remove(name);
+                ParserCursorEntity cursor = cursors.get(name);
+                if (cursor != null) {
+                    parserCursorRepository.save(cursor);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isOrphaned(Log ethLog) {
+        if (ethLog == null || ethLog.getBlockHash() == null) {
+            return false;
+        }
+        synchronized (orphanedBlocks) {
+            return orphanedBlocks.contains(ethLog.getBlockHash().toLowerCase());
+        }
+    }
+
+    // null if the log is not after the current cursor
+    private ParserCursorEntity next(String name, Log ethLog) {
+        ParserCursorEntity position = position(name, ethLog);
+        if (position == null) {
+            return null;
+        }
+        ParserCursorEntity next = lowWater(name, position);
+        ParserCursorEntity current = cursors.get(name);
+        if (current != null && ORDER.compare(next, current) <= 0) {
+            return null;
+        }
+        return next;
+    }
+
+    // for tracked logs the cursor can't pass other logs in flight
+    private ParserCursorEntity lowWater(String name, ParserCursorEntity position) {
+        NavigableSet<ParserCursorEntity> pending = inFlight.get(name);
+        if (pending == null) {
+            return position;
+        }
+        synchronized (pending) {
+            ParserCursorEntity done = finished.merge(name, position, ParserCursorService::later);
+            for (ParserCursorEntity other : pending) {
+                if (ORDER.compare(other, position) != 0) {
+                    return earlier(done, before(other));
+                }
+            }
+            return done;
+        }
+    }
+
+    private static ParserCursorEntity position(String name, Log ethLog) {
+        if (ethLog == null || ethLog.getBlockNumber() == null || ethLog.getLogIndex() == null) {
+            return null;
+        }
+        return cursor(name, ethLog.getBlockNumber().longValue(), ethLog.getLogIndex().longValue());
+    }
+
+    private static ParserCursorEntity before(ParserCursorEntity position) {
+        return cursor(position.getParser(), position.getBlock(), position.getLogIndex() - 1);
+    }
+
+    private static ParserCursorEntity earlier(ParserCursorEntity a, ParserCursorEntity b) {
+        return ORDER.compare(a, b) <= 0 ? a : b;
+    }
+
+    private static ParserCursorEntity later(ParserCursorEntity a, ParserCursorEntity b) {
+        return ORDER.compare(a, b) >= 0 ? a : b;
+    }
+
+    private static ParserCursorEntity cursor(String name, long block, long logIndex) {
+        ParserCursorEntity cursor = new ParserCursorEntity();
+        cursor.setParser(name);
+        cursor.setBlock(block);
+        cursor.setLogIndex(logIndex);
+        cursor.setUpdated(Instant.now().getEpochSecond());
+        return cursor;
+    }
+
+    private static String name(Web3Parser parser) {
+        return parser.getClass().getSimpleName();
+    }
+}
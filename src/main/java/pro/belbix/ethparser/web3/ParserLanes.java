@@ -0,0 +1,101 @@
+package pro.belbix.ethparser.web3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import lombok.extern.log4j.Log4j2;
+import org.web3j.protocol.core.methods.response.Log;
+
+/**
+ * Handles parser logs on several threads. Logs with the same key go to the same lane and keep their
+ * order, logs with different keys are handled in parallel. With one lane logs are handled on the
+ * caller thread. Submitted logs are tracked by the cursor service, so the parser cursor doesn't pass
+ * logs that still wait in a lane.
+ */
+@Log4j2
+public final class ParserLanes {
+
+    private static final int LANE_QUEUE_SIZE = 100;
+    private final Web3Parser parser;
+    private final String name;
+    private final Function<Log, String> key;
+    private final Consumer<Log> handler;
+    private final ParserRuntime runtime;
+    private final ParserCursorService parserCursorService;
+    private final List<BlockingQueue<Log>> lanes = new ArrayList<>();
+
+    public ParserLanes(Web3Parser parser, int count, Function<Log, String> key, Consumer<Log> handler,
+                       ParserRuntime runtime, ParserCursorService parserCursorService) {
+        this.parser = parser;
+        this.name = parser.getClass().getSimpleName();
+        this.key = key;
+        this.handler = handler;
+        this.runtime = runtime;
+        this.parserCursorService = parserCursorService;
+        if (count > 1) {
+            for (int i = 0; i < count; i++) {
+                lanes.add(new ArrayBlockingQueue<>(LANE_QUEUE_SIZE));
+            }
+        }
+    }
+
+    public void start() {
+        for (int i = 0; i < lanes.size(); i++) {
+            BlockingQueue<Log> lane = lanes.get(i);
+            runtime.loop(name + "-lane-" + i, () -> {
+                try {
+                    Log ethLog = lane.poll(1, TimeUnit.SECONDS);
+                    if (ethLog == null) {
+                        return;
+                    }
+                    try {
+                        handler.accept(ethLog);
+                    } finally {
+                        parserCursorService.release(parser, ethLog);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            });
+        }
+        if (!lanes.isEmpty()) {
+            log.info("{} started with {} lanes", name, lanes.size());
+        }
+    }
+
+    public void submit(Log ethLog) throws InterruptedException {
+        if (lanes.isEmpty()) {
+            handler.accept(ethLog);
+            return;
+        }
+        String laneKey = key.apply(ethLog);
+        int lane = laneKey == null ? 0 : Math.floorMod(laneKey.hashCode(), lanes.size());
+        parserCursorService.track(parser, ethLog);
+        try {
+            lanes.get(lane).put(ethLog);
+        } catch (InterruptedException e) {
+            parserCursorService.release(parser, ethLog);
+            throw e;
+        }
+    }
+
+    public static String address(Log ethLog) {
+        return ethLog.getAddress();
+    }
+
+    /**
+     * Indexed event argument, the contract address if the log doesn't have it.
+     */
+    public static String topic(Log ethLog, int index) {
+        List<String> topics = ethLog.getTopics();
+        if (topics == null || topics.size() <= index) {
+            return ethLog.getAddress();
+        }
+        return topics.get(index);
+    }
+}
@@ -0,0 +1,54 @@
+package pro.belbix.ethparser.web3;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.springframework.stereotype.Component;
+import pro.belbix.ethparser.properties.AppProperties;
+
+/**
+ * Creates parser queues by the configuration and keeps them for metrics. A queue is configured by its
+ * name, for example UniswapLpLogParser-in, or gets the default type and capacity.
+ */
+@Component
+public class ParserQueues {
+
+    public static final String ARRAY = "array";
+    public static final String LINKED = "linked";
+    public static final String RING = "ring";
+    private final AppProperties appProperties;
+    private final Map<String, MeteredQueue<?>> queues = new ConcurrentHashMap<>();
+
+    public ParserQueues(AppProperties appProperties) {
+        this.appProperties = appProperties;
+    }
+
+    public <T> BlockingQueue<T> create(String name) {
+        String type = appProperties.getParserQueueTypes()
+            .getOrDefault(name, appProperties.getParserQueueType());
+        int capacity = appProperties.getParserQueueCapacities()
+            .getOrDefault(name, appProperties.getParserQueueCapacity());
+        BlockingQueue<T> delegate;
+        if (ARRAY.equals(type)) {
+            delegate = new ArrayBlockingQueue<>(capacity);
+        } else if (LINKED.equals(type)) {
+            delegate = new LinkedBlockingQueue<>(capacity);
+        } else if (RING.equals(type)) {
+            delegate = new RingQueue<>(capacity);
+        } else {
+            throw new IllegalStateException("Unknown queue type " + type + " for " + name);
+        }
+        MeteredQueue<T> queue = new MeteredQueue<>(name, type, delegate);
+        queues.put(name, queue);
+        return queue;
+    }
+
+    public Map<String, MeteredQueue.Stats> stats() {
+        Map<String, MeteredQueue.Stats> stats = new TreeMap<>();
+        queues.forEach((name, queue) -> stats.put(name, queue.stats()));
+        return stats;
+    }
+}
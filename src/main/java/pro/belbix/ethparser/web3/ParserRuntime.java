@@ -0,0 +1,171 @@
+package pro.belbix.ethparser.web3;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Named worker threads for parser loops. A worker repeats its step until it is stopped, a step should
+ * block for a short time when there is no work. On shutdown workers finish their current step before
+ * the context closes beans, so nothing is left half-saved. A replaced worker is stopped and joined
+ * before the new one starts, so two workers never read or write the same queues.
+ */
+@Component
+@Log4j2
+public class ParserRuntime {
+
+    private static final long DRAIN_TIMEOUT_MS = 30_000;
+    private static final long STOP_TIMEOUT_MS = 10_000;
+    private final Map<String, Worker> workers = new ConcurrentHashMap<>();
+    private volatile boolean shutdown = false;
+
+    /**
+     * Starts a worker, a running worker with the same name is stopped and joined first.
+     */
+    public void loop(String name, Runnable step) {
+        loop(name, step, null);
+    }
+
+    /**
+     * @param interrupter unblocks the step of a stopped worker, for calls that ignore interrupts
+     */
+    public synchronized void loop(String name, Runnable step, Runnable interrupter) {
+        if (shutdown) {
+            throw new IllegalStateException("Runtime is stopped, can't start " + name);
+        }
+        Worker old = workers.get(name);
+        if (old != null) {
+            stopAndJoin(old);
+        }
+        Worker worker = new Worker(name, step, interrupter);
+        workers.put(name, worker);
+        worker.start();
+    }
+
+    /**
+     * Waits until the current step ends, a step that doesn't end in time is interrupted.
+     *
+     * @throws IllegalStateException if the worker is still alive after the interrupt
+     */
+    public synchronized void stop(String name) {
+        stopAndJoin(worker(name));
+    }
+
+    public synchronized void restart(String name) {
+        Worker old = worker(name);
+        loop(name, old.step, old.interrupter);
+    }
+
+    /**
+     * @return worker name -> is its thread alive
+     */
+    public Map<String, Boolean> status() {
+        Map<String, Boolean> status = new TreeMap<>();
+        workers.forEach((name, worker) -> status.put(name, worker.isAlive()));
+        return status;
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        shutdown = true;
+        workers.values().forEach(Worker::stop);
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        for (Worker worker : workers.values()) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0 || !worker.join(left)) {
+                log.warn("Worker {} didn't stop in time", worker.name);
+            }
+        }
+        log.info("Parser runtime stopped");
+    }
+
+    private static void stopAndJoin(Worker worker) {
+        worker.stop();
+        if (worker.thread == Thread.currentThread()) {
+            // the worker stops itself, it ends after this step
+            return;
+        }
+        if (worker.join(STOP_TIMEOUT_MS)) {
+            return;
+        }
+        log.warn("Worker {} didn't stop in time, interrupt it", worker.name);
+        worker.interrupt();
+        if (!worker.join(STOP_TIMEOUT_MS)) {
+            throw new IllegalStateException("Worker " + worker.name + " doesn't stop");
+        }
+    }
+
+    private Worker worker(String name) {
+        Worker worker = workers.get(name);
+        if (worker == null) {
+            throw new IllegalStateException("Unknown worker " + name);
+        }
+        return worker;
+    }
+
+    private static class Worker {
+
+        private final String name;
+        private final Runnable step;
+        private final Runnable interrupter;
+        private final AtomicBoolean running = new AtomicBoolean(true);
+        private final Thread thread;
+
+        Worker(String name, Runnable step, Runnable interrupter) {
+            this.name = name;
+            this.step = step;
+            this.interrupter = interrupter;
+            this.thread = new Thread(this::run, name);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        void stop() {
+            running.set(false);
+        }
+
+        void interrupt() {
+            thread.interrupt();
+            if (interrupter != null) {
+                try {
+                    interrupter.run();
+                } catch (Exception e) {
+                    log.error("Error in interrupter of " + name, e);
+                }
+            }
+        }
+
+        boolean isAlive() {
+            return thread.isAlive();
+        }
+
+        boolean join(long millis) {
+            try {
+                thread.join(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return !thread.isAlive();
+        }
+
+        private void run() {
+            log.info("Worker {} started", name);
+            // an interrupted step restores the flag, the worker ends then
+            while (running.get() && !Thread.currentThread().isInterrupted()) {
+                try {
+                    step.run();
+                } catch (Exception e) {
+                    log.error("Error in worker " + name, e);
+                }
+            }
+            log.info("Worker {} stopped", name);
+        }
+    }
+}
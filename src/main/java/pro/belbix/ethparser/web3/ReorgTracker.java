@@ -0,0 +1,84 @@
+package pro.belbix.ethparser.web3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Hashes of recently parsed blocks in a ring buffer. When the chain is reorganized under already parsed
+ * blocks it finds the last block both chains still share.
+ */
+public class ReorgTracker {
+
+    private final long[] numbers;
+    private final String[] hashes;
+
+    public ReorgTracker(int capacity) {
+        this.numbers = new long[capacity];
+        this.hashes = new String[capacity];
+    }
+
+    public synchronized void record(long number, String hash) {
+        if (number < 0 || hash == null) {
+            return;
+        }
+        int i = index(number);
+        // never overwrite a newer block with an older one
+        if (hashes[i] != null && numbers[i] > number) {
+            return;
+        }
+        numbers[i] = number;
+        hashes[i] = hash;
+    }
+
+    public synchronized String hashOf(long number) {
+        if (number < 0) {
+            return null;
+        }
+        int i = index(number);
+        return numbers[i] == number ? hashes[i] : null;
+    }
+
+    public synchronized List<String> hashesAfter(long number) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < numbers.length; i++) {
+            if (hashes[i] != null && numbers[i] > number) {
+                result.add(hashes[i]);
+            }
+        }
+        return result;
+    }
+
+    public synchronized void forgetAfter(long number) {
+        for (int i = 0; i < numbers.length; i++) {
+            if (hashes[i] != null && numbers[i] > number) {
+                hashes[i] = null;
+            }
+        }
+    }
+
+    /**
+     * @param lastBlock   the last parsed block
+     * @param chainHashes current canonical hash by block number
+     * @return -1 if the last block is still in the chain, otherwise the highest tracked block that is
+     * still there, or the block before the checked window if no tracked block there is in the chain,
+     * sparse logs leave untracked blocks where the fork could be
+     */
+    public long findForkPoint(long lastBlock, LongFunction<String> chainHashes) {
+        String lastHash = hashOf(lastBlock);
+        if (lastHash == null || lastHash.equalsIgnoreCase(chainHashes.apply(lastBlock))) {
+            return -1;
+        }
+        for (long number = lastBlock - 1; number > lastBlock - numbers.length && number >= 0; number--) {
+            String hash = hashOf(number);
+            if (hash != null && hash.equalsIgnoreCase(chainHashes.apply(number))) {
+                return number;
+            }
+        }
+        return Math.max(lastBlock - numbers.length, 0);
+    }
+
+    private int index(long number) {
+        return (int) (number % numbers.length);
+    }
+}
@@ -0,0 +1,248 @@
+package pro.belbix.ethparser.web3;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Bounded lock-free ring buffer for several producers and consumers. Each slot has a sequence number
+ * that tells whether it is free for the producer of this lap or filled for the consumer. Blocking
+ * calls spin shortly and then park until the other side wakes them or the timeout ends, so they don't
+ * need a lock. The capacity is rounded up to a power of two.
+ */
+public final class RingQueue<T> extends AbstractQueue<T> implements BlockingQueue<T> {
+
+    private static final int SPINS = 100;
+    private final int mask;
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    // parked threads, producers wake consumers and consumers wake producers
+    private final Queue<Thread> consumers = new ConcurrentLinkedQueue<>();
+    private final Queue<Thread> producers = new ConcurrentLinkedQueue<>();
+
+    public RingQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalStateException("Wrong ring capacity " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mask = size - 1;
+        buffer = new Object[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public boolean offer(T e) {
+        Objects.requireNonNull(e);
+        long pos = tail.get();
+        while (true) {
+            int slot = (int) (pos & mask);
+            long diff = sequences.get(slot) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer[slot] = e;
+                    sequences.set(slot, pos + 1);
+                    signal(consumers);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // the consumer of the previous lap didn't free the slot yet
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long pos = head.get();
+        while (true) {
+            int slot = (int) (pos & mask);
+            long diff = sequences.get(slot) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    T e = (T) buffer[slot];
+                    buffer[slot] = null;
+                    sequences.set(slot, pos + mask + 1);
+                    signal(producers);
+                    return e;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        long pos = head.get();
+        int slot = (int) (pos & mask);
+        if (sequences.get(slot) != pos + 1) {
+            return null;
+        }
+        return (T) buffer[slot];
+    }
+
+    @Override
+    public void put(T e) throws InterruptedException {
+        for (int i = 0; !offer(e); i++) {
+            await(producers, i, 0, this::hasRoom);
+        }
+    }
+
+    @Override
+    public boolean offer(T e, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int i = 0; !offer(e); i++) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                return false;
+            }
+            await(producers, i, left, this::hasRoom);
+        }
+        return true;
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        T e;
+        for (int i = 0; (e = poll()) == null; i++) {
+            await(consumers, i, 0, this::hasElements);
+        }
+        return e;
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        T e;
+        for (int i = 0; (e = poll()) == null; i++) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                return null;
+            }
+            await(consumers, i, left, this::hasElements);
+        }
+        return e;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return buffer.length - size();
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> c, int maxElements) {
+        int count = 0;
+        T e;
+        while (count < maxElements && (e = poll()) != null) {
+            c.add(e);
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, buffer.length));
+    }
+
+    /**
+     * Weakly consistent copy of waiting elements, it doesn't support removing.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<T> iterator() {
+        List<T> snapshot = new ArrayList<>();
+        for (long pos = head.get(), end = tail.get(); pos < end; pos++) {
+            int slot = (int) (pos & mask);
+            if (sequences.get(slot) == pos + 1) {
+                Object e = buffer[slot];
+                if (e != null) {
+                    snapshot.add((T) e);
+                }
+            }
+        }
+        return List.copyOf(snapshot).iterator();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super T> filter) {
+        throw new UnsupportedOperationException("Ring queue can't remove from the middle");
+    }
+
+    private boolean hasRoom() {
+        return remainingCapacity() > 0;
+    }
+
+    private boolean hasElements() {
+        return size() > 0;
+    }
+
+    /**
+     * Spins first, then parks until the other side signals or the time ends, 0 nanos means no limit.
+     */
+    private void await(Queue<Thread> waiters, int attempt, long nanos, BooleanSupplier ready)
+        throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (attempt < SPINS) {
+            Thread.onSpinWait();
+            return;
+        }
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+        try {
+            // the other side could pass before we were added
+            if (!ready.getAsBoolean()) {
+                if (nanos > 0) {
+                    LockSupport.parkNanos(this, nanos);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+        } finally {
+            waiters.remove(current);
+        }
+    }
+
+    private static void signal(Queue<Thread> waiters) {
+        Thread waiter = waiters.poll();
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+}
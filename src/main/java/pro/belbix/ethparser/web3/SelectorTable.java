@@ -0,0 +1,55 @@
+package pro.belbix.ethparser.web3;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Known 4-byte selectors as sorted ints. Lookup reads the selector right from the tx input, so unknown
+ * transactions are rejected without substrings and string hashing.
+ */
+final class SelectorTable {
+
+    private final int[] selectors;
+    private final String[] methodIds;
+
+    SelectorTable(Collection<String> methodIds) {
+        String[] sorted = methodIds.stream()
+            .filter(id -> parse(id) >= 0)
+            .sorted((a, b) -> Integer.compare((int) parse(a), (int) parse(b)))
+            .toArray(String[]::new);
+        this.selectors = new int[sorted.length];
+        this.methodIds = sorted;
+        for (int i = 0; i < sorted.length; i++) {
+            selectors[i] = (int) parse(sorted[i]);
+        }
+    }
+
+    /**
+     * @return method id like 0xa9059cbb or null if the input doesn't start with a known selector
+     */
+    String find(String input) {
+        long selector = parse(input);
+        if (selector < 0) {
+            return null;
+        }
+        int i = Arrays.binarySearch(selectors, (int) selector);
+        return i < 0 ? null : methodIds[i];
+    }
+
+    // -1 if the input doesn't start with a selector
+    private static long parse(String input) {
+        if (input == null || input.length() < 10 || input.charAt(0) != '0'
+            || (input.charAt(1) != 'x' && input.charAt(1) != 'X')) {
+            return -1;
+        }
+        long selector = 0;
+        for (int i = 2; i < 10; i++) {
+            int digit = Character.digit(input.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            selector = (selector << 4) | digit;
+        }
+        return selector;
+    }
+}
@@ -0,0 +1,145 @@
+package pro.belbix.ethparser.web3;
+
+import static pro.belbix.ethparser.web3.contracts.ContractConstants.CONTROLLER;
+import static pro.belbix.ethparser.web3.contracts.ContractConstants.PARSABLE_UNI_PAIRS;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.springframework.stereotype.Component;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.protocol.core.methods.response.Transaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import pro.belbix.ethparser.web3.contracts.ContractUtils;
+
+/**
+ * Receipts and transactions shared between parsers. A tx with several logs goes to several parsers,
+ * the first one loads it and others wait for the same call.
+ */
+@Component
+public class TransactionCache {
+
+    private static final int MAX_SIZE = 2_000;
+    private static final int BATCH_SIZE = 100;
+    // a bigger prefetch evicts its own first receipts before parsers reach them
+    private static final int PREFETCH_LIMIT = MAX_SIZE / 2;
+    private final Web3Service web3Service;
+    private final Map<String, TransactionReceipt> receipts = lru(MAX_SIZE);
+    private final Map<String, Transaction> transactions = lru(MAX_SIZE);
+    private final Map<String, CompletableFuture<TransactionReceipt>> receiptLoads = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Transaction>> transactionLoads = new ConcurrentHashMap<>();
+
+    public TransactionCache(Web3Service web3Service) {
+        this.web3Service = web3Service;
+        web3Service.onLogBatch(this::prefetchReceipts);
+    }
+
+    public TransactionReceipt getReceipt(String hash) {
+        return load(hash, receipts, receiptLoads, web3Service::fetchTransactionReceipt);
+    }
+
+    public Transaction getTransaction(String hash) {
+        return load(hash, transactions, transactionLoads, web3Service::findTransaction);
+    }
+
+    /**
+     * Loads receipts by batch requests for logs of contracts whose parsers read receipts. Only the first
+     * receipts up to the half of the cache are loaded, parsers fetch the rest one by one.
+     */
+    public void prefetchReceipts(List<Log> logs) {
+        Set<String> hashes = new LinkedHashSet<>();
+        for (Log ethLog : logs) {
+            String hash = ethLog.getTransactionHash();
+            if (hash != null && needsReceipt(ethLog.getAddress())
+                && cached(receipts, hash) == null && !receiptLoads.containsKey(hash)) {
+                hashes.add(hash);
+                if (hashes.size() >= PREFETCH_LIMIT) {
+                    break;
+                }
+            }
+        }
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        for (String hash : hashes) {
+            batch.add(hash);
+            if (batch.size() == BATCH_SIZE) {
+                loadBatch(batch);
+                batch.clear();
+            }
+        }
+        loadBatch(batch);
+    }
+
+    private void loadBatch(Collection<String> hashes) {
+        if (hashes.isEmpty()) {
+            return;
+        }
+        web3Service.fetchTransactionReceiptBatch(hashes)
+            .forEach(receipt -> receipt.ifPresent(r -> {
+                synchronized (receipts) {
+                    receipts.put(r.getTransactionHash(), r);
+                }
+            }));
+    }
+
+    private static boolean needsReceipt(String address) {
+        return PARSABLE_UNI_PAIRS.contains(address)
+            || CONTROLLER.equals(address)
+            || ContractUtils.isVaultAddress(address);
+    }
+
+    static <T> T load(String hash,
+                      Map<String, T> cache,
+                      Map<String, CompletableFuture<T>> loads,
+                      Function<String, T> loader) {
+        T value = cached(cache, hash);
+        if (value != null) {
+            return value;
+        }
+        CompletableFuture<T> own = new CompletableFuture<>();
+        CompletableFuture<T> running = loads.putIfAbsent(hash, own);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            // could be loaded while we checked
+            value = cached(cache, hash);
+            if (value == null) {
+                value = loader.apply(hash);
+                if (value != null) {
+                    synchronized (cache) {
+                        cache.put(hash, value);
+                    }
+                }
+            }
+            own.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(hash, own);
+        }
+    }
+
+    private static <T> T cached(Map<String, T> cache, String hash) {
+        synchronized (cache) {
+            return cache.get(hash);
+        }
+    }
+
+    static <T> Map<String, T> lru(int maxSize) {
+        return new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+}
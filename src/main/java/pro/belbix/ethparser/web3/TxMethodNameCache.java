@@ -0,0 +1,33 @@
+package pro.belbix.ethparser.web3;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decoded method names of recent transactions. One tx usually produces several logs, parsers take the
+ * name from here instead of fetching the same transaction again.
+ */
+@Component
+public class TxMethodNameCache {
+
+    private static final int MAX_SIZE = 10_000;
+
+    private final Map<String, String> namesByHash = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    public synchronized String get(String txHash) {
+        return namesByHash.get(txHash);
+    }
+
+    public synchronized void put(String txHash, String methodName) {
+        if (txHash == null || methodName == null) {
+            return;
+        }
+        namesByHash.put(txHash, methodName);
+    }
+}
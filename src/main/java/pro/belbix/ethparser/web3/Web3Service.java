@@ -7,55 +7,70 @@ import static pro.belbix.ethparser.web3.contracts.ContractConstants.ZERO_ADDRESS
 
 import io.reactivex.Flowable;
 import io.reactivex.disposables.Disposable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.math.BigInteger;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import lombok.extern.log4j.Log4j2;
 import okhttp3.Credentials;
+import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
 import org.apache.logging.log4j.util.Strings;
 import org.springframework.stereotype.Service;
 import org.web3j.abi.FunctionEncoder;
 import org.web3j.abi.FunctionReturnDecoder;
 import org.web3j.abi.datatypes.Function;
 import org.web3j.abi.datatypes.Type;
+import org.web3j.protocol.ObjectMapperFactory;
 import org.web3j.protocol.Web3j;
 import org.web3j.protocol.core.BatchRequest;
 import org.web3j.protocol.core.BatchResponse;
 import org.web3j.protocol.core.DefaultBlockParameter;
 import org.web3j.protocol.core.DefaultBlockParameterNumber;
+import org.web3j.protocol.core.Response;
 import org.web3j.protocol.core.Response.Error;
 import org.web3j.protocol.core.methods.request.EthFilter;
 import org.web3j.protocol.core.methods.response.EthBlock;
 import org.web3j.protocol.core.methods.response.EthBlockNumber;
 import org.web3j.protocol.core.methods.response.EthCall;
-import org.web3j.protocol.core.methods.response.EthGasPrice;
 import org.web3j.protocol.core.methods.response.EthGetBalance;
 import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
 import org.web3j.protocol.core.methods.response.EthLog;
 import org.web3j.protocol.core.methods.response.EthLog.LogResult;
+import org.web3j.protocol.core.methods.response.EthTransaction;
 import org.web3j.protocol.core.methods.response.Log;
 import org.web3j.protocol.core.methods.response.Transaction;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
 import org.web3j.protocol.http.HttpService;
+import org.web3j.tuples.generated.Tuple3;
 import pro.belbix.ethparser.entity.a_layer.EthBlockEntity;
 import pro.belbix.ethparser.properties.AppProperties;
 import pro.belbix.ethparser.properties.SubscriptionsProperties;
 import pro.belbix.ethparser.repositories.a_layer.EthBlockRepository;
+import pro.belbix.ethparser.service.ReorgRollbackService;
+import pro.belbix.ethparser.web3.contracts.ContractUtils;
 import pro.belbix.ethparser.web3.harvest.db.HarvestDBService;
 import pro.belbix.ethparser.web3.uniswap.db.UniswapDbService;
 
@@ -65,6 +80,7 @@ import pro.belbix.ethparser.web3.uniswap.db.UniswapDbService;
 public class Web3Service {
 
     public final static int RETRY_COUNT = 5;
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
     public static final int LOG_LAST_PARSED_COUNT = 1_000;
     public static final long MAX_DELAY_BETWEEN_TX = 60 * 10;
     public static final DefaultBlockParameter BLOCK_NUMBER_30_AUGUST_2020 = DefaultBlockParameter
@@ -75,25 +91,41 @@ public class Web3Service {
     private final UniswapDbService uniswapDbService;
     private final HarvestDBService harvestDBService;
     private final EthBlockRepository ethBlockRepository;
+    private final ReorgRollbackService reorgRollbackService;
+    private final ParserCursorService parserCursorService;
+    private final ParserRuntime parserRuntime;
     private final List<BlockingQueue<Transaction>> transactionConsumers = new ArrayList<>();
     private final List<BlockingQueue<Log>> logConsumers = new ArrayList<>();
     private final List<BlockingQueue<EthBlock>> blockConsumers = new ArrayList<>();
+    private final List<Consumer<List<Log>>> logBatchListeners = new CopyOnWriteArrayList<>();
     private final AtomicReference<Instant> lastTxTime = new AtomicReference<>(Instant.now());
+    private final Set<okhttp3.Call> streams = ConcurrentHashMap.newKeySet();
     private Web3j web3;
+    private OkHttpClient httpClient;
+    private OkHttpClient streamClient;
+    private String web3Url;
     private boolean init = false;
     private Web3Checker web3Checker;
     private LogFlowable logFlowable;
+    private Collection<String> bloomVaults;
+    private LogsBloomFilter bloomFilter;
 
     public Web3Service(AppProperties appProperties,
                        SubscriptionsProperties subscriptionsProperties,
                        UniswapDbService uniswapDbService,
                        HarvestDBService harvestDBService,
-                       EthBlockRepository ethBlockRepository) {
+                       EthBlockRepository ethBlockRepository,
+                       ReorgRollbackService reorgRollbackService,
+                       ParserCursorService parserCursorService,
+                       ParserRuntime parserRuntime) {
         this.appProperties = appProperties;
         this.subscriptionsProperties = subscriptionsProperties;
         this.uniswapDbService = uniswapDbService;
         this.harvestDBService = harvestDBService;
         this.ethBlockRepository = ethBlockRepository;
+        this.reorgRollbackService = reorgRollbackService;
+        this.parserCursorService = parserCursorService;
+        this.parserRuntime = parserRuntime;
     }
 
     public TransactionReceipt fetchTransactionReceipt(String hash) {
@@ -125,8 +157,10 @@ public class Web3Service {
         if (result == null) {
             return null;
         }
-        return result.getTransactionReceipt()
+        TransactionReceipt receipt = result.getTransactionReceipt()
             .orElseThrow(() -> new IllegalStateException("Receipt is null for " + hash));
+        HexInterner.compact(receipt);
+        return receipt;
     }
 
     public Stream<Optional<TransactionReceipt>> fetchTransactionReceiptBatch(Collection<String> hashes) {
@@ -139,8 +173,31 @@ public class Web3Service {
             return batchRequest.send();
         });
 
+        if (batchResponse == null) {
+            log.error("Can't fetch {} receipts", hashes.size());
+            return Stream.empty();
+        }
+        return batchResponse.getResponses().stream()
+            .map(r -> ((EthGetTransactionReceipt) r).getTransactionReceipt())
+            .peek(r -> r.ifPresent(HexInterner::compact));
+    }
+
+    public Stream<Optional<Transaction>> fetchTransactionBatch(Collection<String> hashes) {
+        checkInit();
+        BatchResponse batchResponse = callWithRetry(() -> {
+            BatchRequest batchRequest = web3.newBatch();
+            hashes.forEach(h ->
+                batchRequest.add(web3.ethGetTransactionByHash(h))
+            );
+            return batchRequest.send();
+        });
+
+        if (batchResponse == null) {
+            log.error("Can't fetch {} transactions", hashes.size());
+            return Stream.empty();
+        }
         return batchResponse.getResponses().stream()
-            .map(r -> ((EthGetTransactionReceipt) r).getTransactionReceipt());
+            .map(r -> ((EthTransaction) r).getTransaction());
     }
 
     private void checkInit() {
@@ -149,7 +206,9 @@ public class Web3Service {
             try {
                 //noinspection BusyWait
                 Thread.sleep(1000);
-            } catch (InterruptedException ignored) {
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting initialization");
             }
         }
     }
@@ -157,10 +216,16 @@ public class Web3Service {
     public <T> T callWithRetry(Callable<T> callable) {
         int count = 0;
         while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                return null;
+            }
             T result = null;
             Exception lastError = null;
             try {
                 result = callable.call();
+            } catch (InterruptedException | InterruptedIOException e) {
+                Thread.currentThread().interrupt();
+                return null;
             } catch (Exception e) { //by default all errors, but can be filtered by type
                 log.warn("Retryable error: " + e.getMessage());
                 lastError = e;
@@ -180,7 +245,9 @@ public class Web3Service {
             try {
                 //noinspection BusyWait
                 Thread.sleep(1000);
-            } catch (InterruptedException ignore) {
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
             }
         }
     }
@@ -225,29 +292,123 @@ public class Web3Service {
         });
     }
 
-    public double fetchAverageGasPrice() {
+    /**
+     * Blocks with tx hashes only, by one batch request. Blocks the node doesn't have are skipped.
+     */
+    public List<EthBlock.Block> fetchBlocks(Collection<Long> numbers) {
+        List<EthBlock.Block> blocks = new ArrayList<>();
+        if (numbers.isEmpty()) {
+            return blocks;
+        }
+        checkInit();
+        BatchResponse batchResponse = callWithRetry(() -> {
+            BatchRequest batchRequest = web3.newBatch();
+            numbers.forEach(n ->
+                batchRequest.add(web3.ethGetBlockByNumber(DefaultBlockParameter.valueOf(BigInteger.valueOf(n)), false))
+            );
+            return batchRequest.send();
+        });
+        if (batchResponse == null) {
+            log.error("Can't fetch {} blocks", numbers.size());
+            return blocks;
+        }
+        for (Response<?> response : batchResponse.getResponses()) {
+            EthBlock.Block block = ((EthBlock) response).getBlock();
+            if (block != null) {
+                blocks.add(block);
+            }
+        }
+        return blocks;
+    }
+
+    public String fetchBlockHash(long number) {
+        EthBlock ethBlock = findBlockByNumber(number, false);
+        if (ethBlock == null || ethBlock.getBlock() == null) {
+            throw new IllegalStateException("Can't fetch block " + number);
+        }
+        return ethBlock.getBlock().getHash();
+    }
+
+    public List<LogResult> fetchContractLogs(List<String> addresses, Integer start,
+                                             Integer end) {
         checkInit();
-        EthGasPrice result = callWithRetry(() -> {
-            EthGasPrice gasPrice = web3.ethGasPrice().send();
-            if (gasPrice == null) {
-                log.error("Null gas fetching result");
+        EthFilter filter = logFilter(addresses, start, end);
+        EthLog result = callWithRetry(() -> {
+            EthLog ethLog = web3.ethGetLogs(filter).send();
+            if (ethLog == null) {
+                log.error("get logs null result");
                 return null;
             }
-            if (gasPrice.getError() != null) {
-                log.error("Error gas fetching " + gasPrice.getError().getMessage());
+            if (ethLog.getError() != null) {
+                log.error("Can't get eth log. " + ethLog.getError().getMessage());
                 return null;
             }
-            return gasPrice;
+            return ethLog;
         });
         if (result == null) {
-            return 0.0;
+            return List.of();
         }
-        return result.getGasPrice().doubleValue() / 1000_000_000;
+        compactLogs(result.getLogs());
+        return result.getLogs();
     }
 
-    public List<LogResult> fetchContractLogs(List<String> addresses, Integer start,
-                                             Integer end) {
+    /**
+     * The same as {@link #fetchContractLogs} but logs go to the consumer while the response is still
+     * downloading. The request is retried only if nothing was consumed yet, a broken stream after that
+     * ends with an exception, and the caller should fetch the range again. The consumer may block, the
+     * response is not read meanwhile and only a single read is limited by the timeout.
+     *
+     * @return count of consumed logs
+     */
+    public long streamContractLogs(List<String> addresses, Integer start, Integer end,
+                                   Consumer<Log> consumer) {
         checkInit();
+        byte[] request;
+        try {
+            request = ObjectMapperFactory.getObjectMapper()
+                .writeValueAsBytes(web3.ethGetLogs(logFilter(addresses, start, end)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        AtomicLong consumed = new AtomicLong();
+        Long result = callWithRetry(() -> {
+            if (consumed.get() > 0) {
+                return -1L;
+            }
+            okhttp3.Request httpRequest = new okhttp3.Request.Builder()
+                .url(web3Url)
+                .post(RequestBody.create(JSON, request))
+                .build();
+            okhttp3.Call call = streamClient.newCall(httpRequest);
+            streams.add(call);
+            try (okhttp3.Response response = call.execute()) {
+                if (!response.isSuccessful() || response.body() == null) {
+                    log.error("Can't get eth log. Http code " + response.code());
+                    return null;
+                }
+                return LogStreamReader.read(response.body().byteStream(), ethLog -> {
+                    consumed.incrementAndGet();
+                    consumer.accept(ethLog);
+                });
+            } finally {
+                streams.remove(call);
+            }
+        });
+        if (result == null || result < 0) {
+            throw new IllegalStateException("Logs stream for " + start + " - " + end
+                + " interrupted after " + consumed.get() + " logs");
+        }
+        return result;
+    }
+
+    /**
+     * Breaks open logs streams, a blocked socket read doesn't react on the thread interrupt.
+     */
+    public void cancelStreams() {
+        streams.forEach(okhttp3.Call::cancel);
+    }
+
+    private static EthFilter logFilter(List<String> addresses, Integer start, Integer end) {
         DefaultBlockParameter fromBlock;
         DefaultBlockParameter toBlock;
         if (start == null) {
@@ -260,24 +421,20 @@ public class Web3Service {
         } else {
             toBlock = new DefaultBlockParameterNumber(new BigInteger(end + ""));
         }
-        EthFilter filter = new EthFilter(fromBlock,
-            toBlock, addresses);
-        EthLog result = callWithRetry(() -> {
-            EthLog ethLog = web3.ethGetLogs(filter).send();
-            if (ethLog == null) {
-                log.error("get logs null result");
-                return null;
-            }
-            if (ethLog.getError() != null) {
-                log.error("Can't get eth log. " + ethLog.getError().getMessage());
-                return null;
+        return new EthFilter(fromBlock, toBlock, addresses);
+    }
+
+    private static void compactLogs(List<LogResult> logResults) {
+        if (logResults == null) {
+            return;
+        }
+        List<Log> logs = new ArrayList<>(logResults.size());
+        for (LogResult logResult : logResults) {
+            if (logResult.get() instanceof Log) {
+                logs.add((Log) logResult.get());
             }
-            return ethLog;
-        });
-        if (result == null) {
-            return List.of();
         }
-        return result.getLogs();
+        HexInterner.compactAll(logs);
     }
 
     public double fetchBalance(String hash) {
@@ -344,6 +501,45 @@ public class Web3Service {
         return FunctionReturnDecoder.decode(result.getValue(), function.getOutputParameters());
     }
 
+    /**
+     * Sends (function, contract address, block) eth_calls by one batch request. The result has the
+     * decoded outputs in the order of calls, null for failed ones.
+     */
+    public List<List<Type>> callFunctionBatch(List<Tuple3<Function, String, DefaultBlockParameter>> calls) {
+        checkInit();
+        // usually the same function for all calls
+        Map<Function, String> encoded = new IdentityHashMap<>();
+        List<org.web3j.protocol.core.methods.request.Transaction> transactions = new ArrayList<>(calls.size());
+        for (Tuple3<Function, String, DefaultBlockParameter> call : calls) {
+            transactions.add(org.web3j.protocol.core.methods.request.Transaction.createEthCallTransaction(
+                ZERO_ADDRESS, call.component2(),
+                encoded.computeIfAbsent(call.component1(), FunctionEncoder::encode)));
+        }
+        BatchResponse batchResponse = callWithRetry(() -> {
+            BatchRequest batchRequest = web3.newBatch();
+            for (int i = 0; i < calls.size(); i++) {
+                batchRequest.add(web3.ethCall(transactions.get(i), calls.get(i).component3()));
+            }
+            return batchRequest.send();
+        });
+        List<List<Type>> result = new ArrayList<>(calls.size());
+        if (batchResponse == null) {
+            calls.forEach(c -> result.add(null));
+            return result;
+        }
+        for (int i = 0; i < batchResponse.getResponses().size(); i++) {
+            EthCall ethCall = (EthCall) batchResponse.getResponses().get(i);
+            Function function = calls.get(i).component1();
+            if (ethCall == null || ethCall.getError() != null) {
+                log.warn(function.getName() + " Eth batch call callback is error for " + calls.get(i).component2());
+                result.add(null);
+                continue;
+            }
+            result.add(FunctionReturnDecoder.decode(ethCall.getValue(), function.getOutputParameters()));
+        }
+        return result;
+    }
+
     public void subscribeOnTransactions(BlockingQueue<Transaction> queue) {
         transactionConsumers.add(queue);
     }
@@ -352,6 +548,13 @@ public class Web3Service {
         logConsumers.add(queue);
     }
 
+    /**
+     * Called by the log flow with a batch of logs before they go to parsers.
+     */
+    public void onLogBatch(Consumer<List<Log>> listener) {
+        logBatchListeners.add(listener);
+    }
+
     public void subscribeOnBlocks(BlockingQueue<EthBlock> queue) {
         blockConsumers.add(queue);
     }
@@ -363,18 +566,17 @@ public class Web3Service {
         if (web3 != null) {
             web3.shutdown();
         }
-        if (web3Checker != null) {
-            web3Checker.stop();
-        }
     }
 
     private void resubscribe() {
         log.warn("Resubscribe");
         subscriptions.forEach(Disposable::dispose);
         subscriptions.clear();
-        logFlowable.stop();
+        if (logFlowable != null) {
+            // the old flow should not write in queues together with the new one
+            parserRuntime.stop("log-flowable");
+        }
         web3.shutdown();
-        web3Checker.stop();
 
         //start all again
         init = false;
@@ -389,6 +591,7 @@ public class Web3Service {
             return;
         }
         log.info("Connecting to Ethereum ...");
+        web3Url = appProperties.getWeb3Url();
         OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder();
         clientBuilder.callTimeout(600, SECONDS)
             .writeTimeout(600, SECONDS)
@@ -403,7 +606,10 @@ public class Web3Service {
             if (url == null) {
                 throw new IllegalStateException("Web3 url not defined");
             }
-            HttpService httpService = new HttpService(url, clientBuilder.build(), false);
+            web3Url = url;
+            httpClient = clientBuilder.build();
+            streamClient = streamClient(httpClient);
+            HttpService httpService = new HttpService(url, httpClient, false);
             web3 = Web3j.build(httpService);
         } else {
             clientBuilder.authenticator((route, response) -> response.request().newBuilder()
@@ -411,24 +617,38 @@ public class Web3Service {
                     Credentials.basic(appProperties.getWeb3User(), appProperties.getWeb3Password()))
                 .build());
 
+            httpClient = clientBuilder.build();
+            streamClient = streamClient(httpClient);
             HttpService service =
-                new HttpService(appProperties.getWeb3Url(), clientBuilder.build(), false);
+                new HttpService(appProperties.getWeb3Url(), httpClient, false);
             web3 = Web3j.build(service);
         }
         log.info("Successfully connected to Ethereum");
         init = true;
     }
 
+    // the same pool, but a stream may wait for parsers longer than a usual call
+    private static OkHttpClient streamClient(OkHttpClient client) {
+        return client.newBuilder()
+            .callTimeout(0, SECONDS)
+            .readTimeout(600, SECONDS)
+            .build();
+    }
+
     public void subscribeLogFlowable() {
         if (!appProperties.isParseLog()) {
             return;
         }
         checkInit();
         DefaultBlockParameter from;
-        if (Strings.isBlank(appProperties.getStartLogBlock())) {
-            from = new DefaultBlockParameterNumber(findEarliestLastBlock().subtract(BigInteger.TEN));
-        } else {
+        Long cursorBlock = parserCursorService.resumeBlock();
+        if (!Strings.isBlank(appProperties.getStartLogBlock())) {
             from = DefaultBlockParameter.valueOf(new BigInteger(appProperties.getStartLogBlock()));
+        } else if (cursorBlock != null) {
+            // every started parser has a cursor, logs under them will be skipped
+            from = new DefaultBlockParameterNumber(BigInteger.valueOf(cursorBlock));
+        } else {
+            from = new DefaultBlockParameterNumber(findEarliestLastBlock().subtract(BigInteger.TEN));
         }
         EthFilter filter = new EthFilter(from, LATEST, subscriptionsProperties.getLogSubscriptions());
         logFlowable(filter);
@@ -448,7 +668,15 @@ public class Web3Service {
         }
         checkInit();
         Flowable<Transaction> flowable;
-        if (Strings.isBlank(appProperties.getStartTransactionBlock())) {
+        // deployer txs don't have to leave the deployer address in logs
+        boolean prefilter = appProperties.isTransactionsBloomFilter()
+            && !appProperties.isParseDeployerTransactions();
+        if (appProperties.isTransactionsBloomFilter() && !prefilter) {
+            log.warn("Transactions bloom filter is ignored while deployer transactions are parsed");
+        }
+        if (prefilter) {
+            flowable = prefilteredTransactionFlowable();
+        } else if (Strings.isBlank(appProperties.getStartTransactionBlock())) {
             flowable = callWithRetry(() -> web3.transactionFlowable());
         } else {
             log.info("Start flow from block " + appProperties.getStartTransactionBlock());
@@ -464,6 +692,46 @@ public class Web3Service {
         log.info("Subscribe to Transaction Flowable");
     }
 
+    private Flowable<Transaction> prefilteredTransactionFlowable() {
+        Flowable<EthBlock> blocks;
+        if (Strings.isBlank(appProperties.getStartTransactionBlock())) {
+            blocks = callWithRetry(() -> web3.blockFlowable(false));
+        } else {
+            log.info("Start prefiltered flow from block " + appProperties.getStartTransactionBlock());
+            blocks = callWithRetry(() -> web3.replayPastAndFutureBlocksFlowable(
+                DefaultBlockParameter.valueOf(new BigInteger(appProperties.getStartTransactionBlock())),
+                false));
+        }
+        return blocks
+            // blocks without our txs are normal now, don't let the checker resubscribe
+            .doOnNext(block -> lastTxTime.set(Instant.now()))
+            .filter(block -> block.getBlock() != null && mayHaveOurTransactions(block.getBlock()))
+            .concatMapIterable(block -> fullBlockTransactions(block.getBlock().getNumber().longValue()));
+    }
+
+    private boolean mayHaveOurTransactions(EthBlock.Block block) {
+        Collection<String> vaults = ContractUtils.getAllVaultAddresses();
+        // the same collection instance until contracts are reloaded
+        if (bloomFilter == null || bloomVaults != vaults) {
+            List<String> addresses = new ArrayList<>(vaults);
+            addresses.addAll(ContractUtils.getAllPoolAddresses());
+            bloomFilter = new LogsBloomFilter(addresses, List.of());
+            bloomVaults = vaults;
+        }
+        return bloomFilter.mightContain(block.getLogsBloom());
+    }
+
+    private List<Transaction> fullBlockTransactions(long number) {
+        EthBlock ethBlock = findBlockByNumber(number, true);
+        if (ethBlock == null || ethBlock.getBlock() == null) {
+            log.error("Can't fetch full block " + number);
+            return List.of();
+        }
+        return ethBlock.getBlock().getTransactions().stream()
+            .map(tx -> (Transaction) tx.get())
+            .collect(Collectors.toList());
+    }
+
     public void subscribeOnBlocks() {
         if (!appProperties.isParseBlocks()) {
             return;
@@ -538,33 +806,39 @@ public class Web3Service {
     }
 
     private void logFlowable(EthFilter filter) {
+        // replaces the previous flowable after resubscribe
         logFlowable = new LogFlowable(filter, this);
-        new Thread(logFlowable).start();
+        parserRuntime.loop("log-flowable", logFlowable::poll, this::cancelStreams);
     }
 
     private void initChecker() {
         if (web3Checker == null) {
             web3Checker = new Web3Checker(lastTxTime, this);
-            new Thread(web3Checker).start();
+            parserRuntime.loop("web3-checker", web3Checker::check);
         }
     }
 
     private <T> void writeInQueue(BlockingQueue<T> queue, T o) {
         try {
             while (!queue.offer(o, 10, SECONDS)) {
-                log.warn("The queue is full for " + o);
+                String name = queue instanceof MeteredQueue ? ((MeteredQueue<?>) queue).getName() : "";
+                log.warn("The queue {} is full for {}", name, o);
             }
 
             lastTxTime.set(Instant.now());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             log.error("Error write in queue", e);
         }
     }
 
-    public static class LogFlowable implements Runnable {
+    public static class LogFlowable {
 
         public static final int DEFAULT_BLOCK_TIME = 5 * 1000;
-        private final AtomicBoolean run = new AtomicBoolean(true);
+        private static final int REORG_TRACK_BLOCKS = 128;
+        private static final int BUFFER_LOGS = 10_000;
+        private final ReorgTracker reorgTracker = new ReorgTracker(REORG_TRACK_BLOCKS);
         private final Web3Service web3Service;
         private final List<String> addresses;
         private Integer from;
@@ -576,55 +850,101 @@ public class Web3Service {
             this.from = ((DefaultBlockParameterNumber) filter.getFromBlock()).getBlockNumber().intValue();
         }
 
-        public void stop() {
-            run.set(false);
-        }
-
-        @SuppressWarnings("BusyWait")
-        @Override
-        public void run() {
-            log.info("Start LogFlowable");
+        /**
+         * One window of logs, the runtime repeats it.
+         */
+        public void poll() {
             BigInteger currentBlock;
-            while (run.get()) {
-                try {
-                    currentBlock = web3Service.fetchCurrentBlock();
-                    if (lastBlock != null && lastBlock.intValue() >= currentBlock.intValue()) {
-                        Thread.sleep(DEFAULT_BLOCK_TIME);
-                        continue;
+            try {
+                currentBlock = web3Service.fetchCurrentBlock();
+                if (lastBlock != null && lastBlock.intValue() >= currentBlock.intValue()) {
+                    Thread.sleep(DEFAULT_BLOCK_TIME);
+                    return;
+                }
+                lastBlock = currentBlock;
+                int to = currentBlock.intValue() - web3Service.appProperties.getLogConfirmations();
+                if (from == null) {
+                    from = to;
+                } else {
+                    if (to < from) {
+                        // wait for confirmations
+                        return;
                     }
-                    lastBlock = currentBlock;
-                    int to = currentBlock.intValue();
-                    if (from == null) {
-                        from = to;
-                    } else {
-                        int diff = to - from;
-                        if (diff > 1000) {
-                            to = from + 1000;
-                        }
+                    int diff = to - from;
+                    if (diff > 1000) {
+                        to = from + 1000;
                     }
-                    List<EthLog.LogResult> logResults = web3Service.fetchContractLogs(addresses, from, to);
-                    log.info("Parse log from {} to {} on block: {} - {}", from, to,
-                        currentBlock, logResults.size());
-                    for (LogResult logResult : logResults) {
-                        Log ethLog = (Log) logResult.get();
-                        if (ethLog == null) {
-                            continue;
-                        }
-                        for (BlockingQueue<Log> queue : web3Service.logConsumers) {
-                            web3Service.writeInQueue(queue, ethLog);
-                        }
+                }
+                if (rollbackIfReorganized()) {
+                    return;
+                }
+                reorgTracker.record(to, web3Service.fetchBlockHash(to));
+                // parsers start on the first blocks while the rest of the range is downloading
+                LogBuffer buffer = new LogBuffer(web3Service.logConsumers, this::dispatch, BUFFER_LOGS);
+                long count = web3Service.streamContractLogs(addresses, from, to, ethLog -> {
+                    if (ethLog.isRemoved()) {
+                        return;
                     }
-                    from = to + 1;
+                    reorgTracker.record(ethLog.getBlockNumber().longValue(), ethLog.getBlockHash());
+                    buffer.add(ethLog);
+                });
+                buffer.finish();
+                log.info("Parse log from {} to {} on block: {} - {}", from, to, currentBlock, count);
+                from = to + 1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Error in log flow", e);
+            }
+        }
+
+        // block timestamps and receipts are fetched by batches before parsers ask for them one by one
+        private void dispatch(List<Log> logs) {
+            for (Consumer<List<Log>> listener : web3Service.logBatchListeners) {
+                try {
+                    listener.accept(logs);
                 } catch (Exception e) {
-                    log.error("Error in log flow", e);
+                    log.error("Error in log batch listener", e);
                 }
             }
+            for (Log ethLog : logs) {
+                for (BlockingQueue<Log> queue : web3Service.logConsumers) {
+                    web3Service.writeInQueue(queue, ethLog);
+                }
+            }
+        }
+
+        private static void dropAfter(BlockingQueue<Log> queue, long block) {
+            try {
+                queue.removeIf(ethLog -> ethLog.getBlockNumber().longValue() > block);
+            } catch (UnsupportedOperationException e) {
+                // ring queues can't remove from the middle, cursors reject these logs
+                log.info("Orphaned logs stay in the queue until parsers skip them");
+            }
+        }
+
+        private boolean rollbackIfReorganized() {
+            if (from == null) {
+                return false;
+            }
+            long forkPoint = reorgTracker.findForkPoint(from - 1, web3Service::fetchBlockHash);
+            if (forkPoint < 0) {
+                return false;
+            }
+            log.warn("Chain reorganized after block {}, parsed from {}", forkPoint, from);
+            web3Service.reorgRollbackService.rollbackAfter(forkPoint, reorgTracker.hashesAfter(forkPoint));
+            reorgTracker.forgetAfter(forkPoint);
+            for (BlockingQueue<Log> queue : web3Service.logConsumers) {
+                dropAfter(queue, forkPoint);
+            }
+            from = (int) forkPoint + 1;
+            return true;
         }
     }
 
-    public static class Web3Checker implements Runnable {
+    public static class Web3Checker {
 
-        private final AtomicBoolean run = new AtomicBoolean(true);
+        private static final int CHECK_DELAY = 1000;
         private final AtomicReference<Instant> lastActionTime;
         private final Web3Service web3Service;
 
@@ -633,23 +953,17 @@ public class Web3Service {
             this.web3Service = web3Service;
         }
 
-        public void stop() {
-            run.set(false);
-        }
-
-        @Override
-        public void run() {
-            while (run.get()) {
-                if (Duration.between(lastActionTime.get(), Instant.now()).getSeconds() > MAX_DELAY_BETWEEN_TX) {
-                    log.warn("Subscription doesn't receive any messages more than " + MAX_DELAY_BETWEEN_TX);
-                    lastActionTime.set(Instant.now());
-                    web3Service.resubscribe();
-                }
-                try {
-                    //noinspection BusyWait
-                    Thread.sleep(100);
-                } catch (InterruptedException ignored) {
-                }
+        public void check() {
+            if (Duration.between(lastActionTime.get(), Instant.now()).getSeconds() > MAX_DELAY_BETWEEN_TX) {
+                log.warn("Subscription doesn't receive any messages more than " + MAX_DELAY_BETWEEN_TX);
+                lastActionTime.set(Instant.now());
+                web3Service.resubscribe();
+            }
+            try {
+                // the delay is in seconds, no need to check more often
+                Thread.sleep(CHECK_DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
     }
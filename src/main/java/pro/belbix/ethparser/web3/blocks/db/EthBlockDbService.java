@@ -54,9 +54,16 @@ public class EthBlockDbService {
     }
 
     public CompletableFuture<EthBlockEntity> save(EthBlockEntity block) {
-        if (ethBlockRepository.existsById(block.getNumber())) {
-            log.warn("Duplicate eth block " + block.getNumber());
-            return CompletableFuture.supplyAsync(() -> null);
+        String persistedHash = ethBlockRepository.findHashByNumber(block.getNumber());
+        if (persistedHash != null) {
+            if (block.getHash() == null || persistedHash.equalsIgnoreCase(block.getHash().getHash())) {
+                log.warn("Duplicate eth block " + block.getNumber());
+                return CompletableFuture.supplyAsync(() -> null);
+            }
+            // the same number from another chain, txs and logs go away with the block by cascade
+            log.warn("Reorganized eth block {}, replace {} with {}",
+                block.getNumber(), persistedHash, block.getHash().getHash());
+            ethBlockRepository.deleteById(block.getNumber());
         }
 
         waitFreeExecutors();
@@ -6,10 +6,8 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import lombok.extern.log4j.Log4j2;
@@ -28,6 +26,8 @@ import pro.belbix.ethparser.entity.a_layer.EthLogEntity;
 import pro.belbix.ethparser.entity.a_layer.EthTxEntity;
 import pro.belbix.ethparser.properties.AppProperties;
 import pro.belbix.ethparser.web3.ParserInfo;
+import pro.belbix.ethparser.web3.ParserQueues;
+import pro.belbix.ethparser.web3.ParserRuntime;
 import pro.belbix.ethparser.web3.Web3Parser;
 import pro.belbix.ethparser.web3.Web3Service;
 import pro.belbix.ethparser.web3.blocks.db.EthBlockDbService;
@@ -36,23 +36,28 @@ import pro.belbix.ethparser.web3.blocks.db.EthBlockDbService;
 @Log4j2
 public class EthBlockParser implements Web3Parser {
 
-    private static final AtomicBoolean run = new AtomicBoolean(true);
-    private final BlockingQueue<EthBlock> logs = new ArrayBlockingQueue<>(100);
-    private final BlockingQueue<DtoI> output = new ArrayBlockingQueue<>(100);
+    private final BlockingQueue<EthBlock> logs;
+    private final BlockingQueue<DtoI> output;
     private final Web3Service web3Service;
     private final AppProperties appProperties;
     private final ParserInfo parserInfo;
     private final EthBlockDbService ethBlockDbService;
+    private final ParserRuntime parserRuntime;
     private Instant lastTx = Instant.now();
     private long count = 0;
 
     public EthBlockParser(Web3Service web3Service,
                           AppProperties appProperties, ParserInfo parserInfo,
-                          EthBlockDbService ethBlockDbService) {
+                          EthBlockDbService ethBlockDbService,
+                          ParserRuntime parserRuntime,
+                          ParserQueues parserQueues) {
         this.web3Service = web3Service;
         this.appProperties = appProperties;
         this.parserInfo = parserInfo;
         this.ethBlockDbService = ethBlockDbService;
+        this.parserRuntime = parserRuntime;
+        this.logs = parserQueues.create(getClass().getSimpleName() + "-in");
+        this.output = parserQueues.create(getClass().getSimpleName() + "-out");
     }
 
     @Override
@@ -60,36 +65,36 @@ public class EthBlockParser implements Web3Parser {
         log.info("Start parse Blocks");
         parserInfo.addParser(this);
         web3Service.subscribeOnBlocks(logs);
-        new Thread(() -> {
-            while (run.get()) {
-                EthBlock ethBlock = null;
-                try {
-                    ethBlock = logs.poll(1, TimeUnit.SECONDS);
-                    count++;
-                    if (count % 100 == 0) {
-                        log.info(this.getClass().getSimpleName() + " handled " + count);
-                    }
-                    EthBlockEntity entity = parse(ethBlock);
-                    if (entity != null) {
-                        lastTx = Instant.now();
-                        ethBlockDbService.save(entity)
-                            .thenAccept(persistedBlock -> {
-                                if (persistedBlock != null) {
-                                    try {
-                                        output.put(persistedBlock);
-                                    } catch (InterruptedException ignored) {
-                                    }
+        parserRuntime.loop(getClass().getSimpleName(), () -> {
+            EthBlock ethBlock = null;
+            try {
+                ethBlock = logs.poll(1, TimeUnit.SECONDS);
+                count++;
+                if (count % 100 == 0) {
+                    log.info(this.getClass().getSimpleName() + " handled " + count);
+                }
+                EthBlockEntity entity = parse(ethBlock);
+                if (entity != null) {
+                    lastTx = Instant.now();
+                    ethBlockDbService.save(entity)
+                        .thenAccept(persistedBlock -> {
+                            if (persistedBlock != null) {
+                                try {
+                                    output.put(persistedBlock);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                    return;
                                 }
-                            });
-                    }
-                } catch (Exception e) {
-                    log.error("Error block parser loop " + ethBlock, e);
-                    if (appProperties.isStopOnParseError()) {
-                        System.exit(-1);
-                    }
+                            }
+                        });
+                }
+            } catch (Exception e) {
+                log.error("Error block parser loop " + ethBlock, e);
+                if (appProperties.isStopOnParseError()) {
+                    System.exit(-1);
                 }
             }
-        }).start();
+        });
     }
 
     public EthBlockEntity parse(EthBlock ethBlock) {
@@ -11,6 +11,9 @@ import static pro.belbix.ethparser.web3.FunctionsNames.STRATEGY;
 import static pro.belbix.ethparser.web3.FunctionsNames.TOKEN0;
 import static pro.belbix.ethparser.web3.FunctionsNames.TOKEN1;
 import static pro.belbix.ethparser.web3.FunctionsNames.UNDERLYING;
+import static pro.belbix.ethparser.web3.FunctionsUtils.TYPE_ADR;
+import static pro.belbix.ethparser.web3.FunctionsUtils.TYPE_INT;
+import static pro.belbix.ethparser.web3.FunctionsUtils.TYPE_STR;
 import static pro.belbix.ethparser.web3.contracts.ContractConstants.KEY_BLOCKS_FOR_LOADING;
 import static pro.belbix.ethparser.web3.contracts.ContractConstants.MOONISWAP_FACTORY;
 import static pro.belbix.ethparser.web3.contracts.ContractConstants.PAIR_TYPE_ONEINCHE;
@@ -21,7 +24,9 @@ import static pro.belbix.ethparser.web3.contracts.ContractConstants.UNISWAP_FACT
 import static pro.belbix.ethparser.web3.contracts.HarvestPoolAddresses.POOLS;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
@@ -86,6 +91,35 @@ public class ContractLoader {
     static final Map<String, TokenEntity> tokensCacheByName = new HashMap<>();
     static final Map<Integer, VaultToPoolEntity> vaultToPoolsCache = new HashMap<>();
     static final Map<Integer, TokenToUniPairEntity> tokenToUniPairCache = new HashMap<>();
+    private static final Map<String, String> TOKEN_FUNCTIONS = Map.of(
+        FunctionsNames.NAME, TYPE_STR,
+        FunctionsNames.SYMBOL, TYPE_STR,
+        FunctionsNames.DECIMALS, TYPE_INT);
+    private static final Map<String, String> VAULT_FUNCTIONS = Map.of(
+        CONTROLLER, TYPE_ADR,
+        GOVERNANCE, TYPE_ADR,
+        STRATEGY, TYPE_ADR,
+        UNDERLYING, TYPE_ADR,
+        FunctionsNames.NAME, TYPE_STR,
+        FunctionsNames.SYMBOL, TYPE_STR,
+        FunctionsNames.DECIMALS, TYPE_INT,
+        FunctionsNames.UNDERLYING_UNIT, TYPE_INT);
+    private static final Map<String, String> POOL_FUNCTIONS = Map.of(
+        CONTROLLER, TYPE_ADR,
+        GOVERNANCE, TYPE_ADR,
+        OWNER, TYPE_ADR,
+        LP_TOKEN, TYPE_ADR,
+        REWARD_TOKEN, TYPE_ADR);
+    private static final Map<String, String> UNI_PAIR_FUNCTIONS = Map.of(
+        FunctionsNames.DECIMALS, TYPE_INT,
+        TOKEN0, TYPE_ADR,
+        TOKEN1, TYPE_ADR,
+        FACTORY, TYPE_ADR);
+    private final ContractMetadataCache metadataCache;
+    // all contracts from db by address, avoids a query for each contract
+    private final Map<String, ContractEntity> contractsCache = new HashMap<>();
+    // readers use only the snapshot, the maps above are for building it
+    private static volatile ContractRegistry registry = ContractRegistry.EMPTY;
 
     public ContractLoader(AppProperties appProperties,
                           FunctionsUtils functionsUtils,
@@ -111,6 +145,7 @@ public class ContractLoader {
         this.tokenToUniPairRepository = tokenToUniPairRepository;
         this.vaultToPoolRepository = vaultToPoolRepository;
         this.subscriptionsProperties = subscriptionsProperties;
+        this.metadataCache = new ContractMetadataCache(functionsUtils);
     }
 
     @PostConstruct
@@ -132,13 +167,24 @@ public class ContractLoader {
             return;
         }
         log.info("Start load contracts on block {}", currentBlock);
+        ContractUtils.clearDecimalsCache();
+        contractsCache.clear();
+        contractRepository.fetchAllWithType()
+            .forEach(c -> contractsCache.put(c.getAddress(), c));
+        // each step can use the previous steps results via ContractUtils
         loadVaults();
+        publishRegistry();
         loadPools();
+        publishRegistry();
         loadTokens();
+        publishRegistry();
         loadUniPairs();
+        publishRegistry();
         linkVaultToPools();
         fillKeyTokenForLps();
         linkUniPairsToTokens();
+        publishRegistry();
+        metadataCache.clear();
         log.info("Contracts loading ended");
         // should subscribe only after contract loading
         subscriptionsProperties.init();
@@ -153,6 +199,10 @@ public class ContractLoader {
     }
 
     private void loadTokens() {
+        List<TokenContract> contracts = new ArrayList<>();
+        List<TokenEntity> entities = new ArrayList<>();
+        List<TokenEntity> toEnrich = new ArrayList<>();
+        List<String> toEnrichAddresses = new ArrayList<>();
         for (TokenContract contract : TokenAddresses.TOKENS) {
             if (contract.getCreatedOnBlock() > currentBlock) {
                 log.info("Token not created yet, skip {}", contract.getName());
@@ -168,19 +218,30 @@ public class ContractLoader {
             if (tokenEntity == null) {
                 tokenEntity = new TokenEntity();
                 tokenEntity.setContract(tokenContract);
-                enrichToken(tokenEntity);
-                tokenRepository.save(tokenEntity);
+                toEnrich.add(tokenEntity);
+                toEnrichAddresses.add(contract.getAddress());
             } else if (appProperties.isUpdateContracts()) {
-                enrichToken(tokenEntity);
-                tokenRepository.save(tokenEntity);
+                toEnrich.add(tokenEntity);
+                toEnrichAddresses.add(contract.getAddress());
             }
-            tokensCacheByAddress.put(contract.getAddress(), tokenEntity);
-            tokensCacheByName.put(contract.getName(), tokenEntity);
+            contracts.add(contract);
+            entities.add(tokenEntity);
+        }
+        prefetchMetadata(toEnrichAddresses, TOKEN_FUNCTIONS);
+        toEnrich.forEach(this::enrichToken);
+        tokenRepository.saveAll(toEnrich);
+        for (int i = 0; i < contracts.size(); i++) {
+            tokensCacheByAddress.put(contracts.get(i).getAddress(), entities.get(i));
+            tokensCacheByName.put(contracts.get(i).getName(), entities.get(i));
         }
     }
 
     private void loadVaults() {
         log.info("Start load vaults on block {}", currentBlock);
+        List<Contract> contracts = new ArrayList<>();
+        List<VaultEntity> entities = new ArrayList<>();
+        List<VaultEntity> toEnrich = new ArrayList<>();
+        List<String> toEnrichAddresses = new ArrayList<>();
         for (Contract vault : HarvestVaultAddresses.VAULTS) {
             if (vault.getCreatedOnBlock() > currentBlock) {
                 log.info("Vault {} not created yet, skip", vault.getName());
@@ -195,19 +256,30 @@ public class ContractLoader {
             if (vaultEntity == null) {
                 vaultEntity = new VaultEntity();
                 vaultEntity.setContract(vaultContract);
-                enrichVault(vaultEntity);
-                vaultRepository.save(vaultEntity);
+                toEnrich.add(vaultEntity);
+                toEnrichAddresses.add(hash);
             } else if (appProperties.isUpdateContracts()) {
-                enrichVault(vaultEntity);
-                vaultRepository.save(vaultEntity);
+                toEnrich.add(vaultEntity);
+                toEnrichAddresses.add(hash);
             }
-            vaultsCacheByAddress.put(hash, vaultEntity);
-            vaultsCacheByName.put(name, vaultEntity);
+            contracts.add(vault);
+            entities.add(vaultEntity);
+        }
+        prefetchMetadata(toEnrichAddresses, VAULT_FUNCTIONS);
+        toEnrich.forEach(this::enrichVault);
+        vaultRepository.saveAll(toEnrich);
+        for (int i = 0; i < contracts.size(); i++) {
+            vaultsCacheByAddress.put(contracts.get(i).getAddress(), entities.get(i));
+            vaultsCacheByName.put(contracts.get(i).getName(), entities.get(i));
         }
     }
 
     private void loadPools() {
         log.info("Start load pools on block {}", currentBlock);
+        List<Contract> contracts = new ArrayList<>();
+        List<PoolEntity> entities = new ArrayList<>();
+        List<PoolEntity> toEnrich = new ArrayList<>();
+        List<String> toEnrichAddresses = new ArrayList<>();
         for (Contract pool : POOLS) {
             if (pool.getCreatedOnBlock() > currentBlock) {
                 log.info("Pool {} not created yet, skip", pool.getName());
@@ -222,19 +294,30 @@ public class ContractLoader {
             if (poolEntity == null) {
                 poolEntity = new PoolEntity();
                 poolEntity.setContract(poolContract);
-                enrichPool(poolEntity);
-                poolRepository.save(poolEntity);
+                toEnrich.add(poolEntity);
+                toEnrichAddresses.add(hash);
             } else if (appProperties.isUpdateContracts()) {
-                enrichPool(poolEntity);
-                poolRepository.save(poolEntity);
+                toEnrich.add(poolEntity);
+                toEnrichAddresses.add(hash);
             }
-            poolsCacheByAddress.put(hash, poolEntity);
-            poolsCacheByName.put(name, poolEntity);
+            contracts.add(pool);
+            entities.add(poolEntity);
+        }
+        prefetchMetadata(toEnrichAddresses, POOL_FUNCTIONS);
+        toEnrich.forEach(this::enrichPool);
+        poolRepository.saveAll(toEnrich);
+        for (int i = 0; i < contracts.size(); i++) {
+            poolsCacheByAddress.put(contracts.get(i).getAddress(), entities.get(i));
+            poolsCacheByName.put(contracts.get(i).getName(), entities.get(i));
         }
     }
 
     private void loadUniPairs() {
         log.info("Start load uni pairs on block {}", currentBlock);
+        List<LpContract> contracts = new ArrayList<>();
+        List<UniPairEntity> entities = new ArrayList<>();
+        List<UniPairEntity> toEnrich = new ArrayList<>();
+        List<String> toEnrichAddresses = new ArrayList<>();
         for (LpContract uniPair : UniPairAddresses.UNI_PAIRS) {
             String name = uniPair.getName();
             String hash = uniPair.getAddress();
@@ -245,28 +328,42 @@ public class ContractLoader {
             if (uniPairEntity == null) {
                 uniPairEntity = new UniPairEntity();
                 uniPairEntity.setContract(poolContract);
-                enrichUniPair(uniPairEntity);
-                uniPairRepository.save(uniPairEntity);
+                toEnrich.add(uniPairEntity);
+                toEnrichAddresses.add(hash);
             } else if (appProperties.isUpdateContracts()) {
-                enrichUniPair(uniPairEntity);
-                uniPairRepository.save(uniPairEntity);
+                toEnrich.add(uniPairEntity);
+                toEnrichAddresses.add(hash);
             }
-            uniPairsCacheByAddress.put(hash, uniPairEntity);
-            uniPairsCacheByName.put(name, uniPairEntity);
+            contracts.add(uniPair);
+            entities.add(uniPairEntity);
+        }
+        prefetchMetadata(toEnrichAddresses, UNI_PAIR_FUNCTIONS);
+        toEnrich.forEach(this::enrichUniPair);
+        uniPairRepository.saveAll(toEnrich);
+        for (int i = 0; i < contracts.size(); i++) {
+            uniPairsCacheByAddress.put(contracts.get(i).getAddress(), entities.get(i));
+            uniPairsCacheByName.put(contracts.get(i).getName(), entities.get(i));
         }
     }
 
+    private void prefetchMetadata(List<String> addresses, Map<String, String> functions) {
+        if (appProperties.isOnlyApi()) {
+            return;
+        }
+        metadataCache.prefetch(addresses, functions, currentBlock, appProperties.getContractLoaderThreads());
+    }
+
     private void enrichToken(TokenEntity tokenEntity) {
         if (appProperties.isOnlyApi()) {
             return;
         }
         String address = tokenEntity.getContract().getAddress();
         tokenEntity.setName(
-            functionsUtils.callStrByName(FunctionsNames.NAME, address, currentBlock).orElse(""));
+            metadataCache.callStrByName(FunctionsNames.NAME, address, currentBlock).orElse(""));
         tokenEntity.setSymbol(
-            functionsUtils.callStrByName(FunctionsNames.SYMBOL, address, currentBlock).orElse(""));
+            metadataCache.callStrByName(FunctionsNames.SYMBOL, address, currentBlock).orElse(""));
         tokenEntity.setDecimals(
-            functionsUtils.callIntByName(FunctionsNames.DECIMALS, address, currentBlock)
+            metadataCache.callIntByName(FunctionsNames.DECIMALS, address, currentBlock)
                 .orElse(BigInteger.ZERO).longValue());
         tokenEntity.setUpdatedBlock(currentBlock);
     }
@@ -278,14 +375,14 @@ public class ContractLoader {
         vaultEntity.setUpdatedBlock(currentBlock);
         String address = vaultEntity.getContract().getAddress();
         vaultEntity.setController(findOrCreateContract(
-            functionsUtils.callAddressByName(CONTROLLER, address, currentBlock).orElse(""),
+            metadataCache.callAddressByName(CONTROLLER, address, currentBlock).orElse(""),
             AddressType.CONTROLLER.name(),
             infrastructureType,
             0,
             false
         ));
         vaultEntity.setGovernance(findOrCreateContract(
-            functionsUtils.callAddressByName(GOVERNANCE, address, currentBlock).orElse(""),
+            metadataCache.callAddressByName(GOVERNANCE, address, currentBlock).orElse(""),
             AddressType.GOVERNANCE.name(),
             infrastructureType,
             0,
@@ -299,28 +396,28 @@ public class ContractLoader {
             return;
         }
         vaultEntity.setStrategy(findOrCreateContract(
-            functionsUtils.callAddressByName(STRATEGY, address, currentBlock).orElse(""),
+            metadataCache.callAddressByName(STRATEGY, address, currentBlock).orElse(""),
             AddressType.UNKNOWN_STRATEGY.name(),
             infrastructureType,
             0,
             false
         ));
         vaultEntity.setUnderlying(findOrCreateContract(
-            functionsUtils.callAddressByName(UNDERLYING, address, currentBlock).orElse(""),
+            metadataCache.callAddressByName(UNDERLYING, address, currentBlock).orElse(""),
             AddressType.UNKNOWN_UNDERLYING.name(),
             infrastructureType,
             0,
             false
         ));
         vaultEntity.setName(
-            functionsUtils.callStrByName(FunctionsNames.NAME, address, currentBlock).orElse(""));
+            metadataCache.callStrByName(FunctionsNames.NAME, address, currentBlock).orElse(""));
         vaultEntity.setSymbol(
-            functionsUtils.callStrByName(FunctionsNames.SYMBOL, address, currentBlock).orElse(""));
+            metadataCache.callStrByName(FunctionsNames.SYMBOL, address, currentBlock).orElse(""));
         vaultEntity.setDecimals(
-            functionsUtils.callIntByName(FunctionsNames.DECIMALS, address, currentBlock)
+            metadataCache.callIntByName(FunctionsNames.DECIMALS, address, currentBlock)
                 .orElse(BigInteger.ZERO).longValue());
         vaultEntity.setUnderlyingUnit(
-            functionsUtils.callIntByName(FunctionsNames.UNDERLYING_UNIT, address, currentBlock)
+            metadataCache.callIntByName(FunctionsNames.UNDERLYING_UNIT, address, currentBlock)
                 .orElse(BigInteger.ZERO).longValue());
     }
 
@@ -330,35 +427,35 @@ public class ContractLoader {
         }
         String address = poolEntity.getContract().getAddress();
         poolEntity.setController(findOrCreateContract(
-            functionsUtils.callAddressByName(CONTROLLER, address, currentBlock).orElse(""),
+            metadataCache.callAddressByName(CONTROLLER, address, currentBlock).orElse(""),
             AddressType.CONTROLLER.name(),
             infrastructureType,
             0,
             false
         ));
         poolEntity.setGovernance(findOrCreateContract(
-            functionsUtils.callAddressByName(GOVERNANCE, address, currentBlock).orElse(""),
+            metadataCache.callAddressByName(GOVERNANCE, address, currentBlock).orElse(""),
             AddressType.GOVERNANCE.name(),
             infrastructureType,
             0,
             false
         ));
         poolEntity.setOwner(findOrCreateContract(
-            functionsUtils.callAddressByName(OWNER, address, currentBlock).orElse(""),
+            metadataCache.callAddressByName(OWNER, address, currentBlock).orElse(""),
             AddressType.OWNER.name(),
             infrastructureType,
             0,
             false
         ));
         poolEntity.setLpToken(findOrCreateContract(
-            functionsUtils.callAddressByName(LP_TOKEN, address, currentBlock).orElse(""),
+            metadataCache.callAddressByName(LP_TOKEN, address, currentBlock).orElse(""),
             AddressType.UNKNOWN_VAULT.name(),
             infrastructureType,
             0,
             false
         ));
         poolEntity.setRewardToken(findOrCreateContract(
-            functionsUtils.callAddressByName(REWARD_TOKEN, address, currentBlock).orElse(""),
+            metadataCache.callAddressByName(REWARD_TOKEN, address, currentBlock).orElse(""),
             AddressType.UNKNOWN_REWARD_TOKEN.name(),
             infrastructureType,
             0,
@@ -373,17 +470,17 @@ public class ContractLoader {
         }
         String address = uniPairEntity.getContract().getAddress();
         uniPairEntity.setDecimals(
-            functionsUtils.callIntByName(FunctionsNames.DECIMALS, address, currentBlock)
+            metadataCache.callIntByName(FunctionsNames.DECIMALS, address, currentBlock)
                 .orElse(BigInteger.ZERO).longValue());
         uniPairEntity.setToken0(findOrCreateContract(
-            functionsUtils.callAddressByName(TOKEN0, address, currentBlock).orElse(""),
+            metadataCache.callAddressByName(TOKEN0, address, currentBlock).orElse(""),
             AddressType.UNKNOWN_TOKEN.name(),
             tokenType,
             0,
             false
         ));
         uniPairEntity.setToken1(findOrCreateContract(
-            functionsUtils.callAddressByName(TOKEN1, address, currentBlock).orElse(""),
+            metadataCache.callAddressByName(TOKEN1, address, currentBlock).orElse(""),
             AddressType.UNKNOWN_TOKEN.name(),
             tokenType,
             0,
@@ -398,7 +495,7 @@ public class ContractLoader {
         int type = 0;
         String factoryAdr = null;
         try {
-            factoryAdr = functionsUtils.callAddressByName(FACTORY, address, currentBlock)
+            factoryAdr = metadataCache.callAddressByName(FACTORY, address, currentBlock)
                 .orElse("");
         } catch (Exception ignored) {
         }
@@ -569,7 +666,10 @@ public class ContractLoader {
         if (address == null || address.isBlank()) {
             return null;
         }
-        ContractEntity entity = contractRepository.findFirstByAddress(address);
+        ContractEntity entity = contractsCache.get(address);
+        if (entity == null) {
+            entity = contractRepository.findFirstByAddress(address);
+        }
         if (appProperties.isOnlyApi()) {
             return entity;
         }
@@ -581,6 +681,7 @@ public class ContractLoader {
             entity.setCreated(created);
             log.info("Created new contract {}", name);
             contractRepository.save(entity);
+            contractsCache.put(entity.getAddress(), entity);
         } else if (rewrite) {
             // for db optimization
             if (!name.equals(entity.getName())
@@ -613,35 +714,48 @@ public class ContractLoader {
             });
     }
 
+    private static synchronized void publishRegistry() {
+        registry = new ContractRegistry(
+            vaultsCacheByAddress, vaultsCacheByName,
+            poolsCacheByAddress, poolsCacheByName,
+            uniPairsCacheByAddress, uniPairsCacheByName,
+            tokensCacheByAddress, tokensCacheByName,
+            tokenToUniPairCache.values());
+    }
+
+    static ContractRegistry registry() {
+        return registry;
+    }
+
     static Optional<PoolEntity> getPoolByAddress(String address) {
-        return Optional.ofNullable(poolsCacheByAddress.get(address.toLowerCase()));
+        return Optional.ofNullable(registry.poolByAddress(address));
     }
 
     static Optional<VaultEntity> getVaultByAddress(String address) {
-        return Optional.ofNullable(vaultsCacheByAddress.get(address.toLowerCase()));
+        return Optional.ofNullable(registry.vaultByAddress(address));
     }
 
     static Optional<UniPairEntity> getUniPairByAddress(String address) {
-        return Optional.ofNullable(uniPairsCacheByAddress.get(address.toLowerCase()));
+        return Optional.ofNullable(registry.uniPairByAddress(address));
     }
 
     static Optional<TokenEntity> getTokenByAddress(String address) {
-        return Optional.ofNullable(tokensCacheByAddress.get(address.toLowerCase()));
+        return Optional.ofNullable(registry.tokenByAddress(address));
     }
 
     static Optional<PoolEntity> getPoolByName(String name) {
-        return Optional.ofNullable(poolsCacheByName.get(name));
+        return Optional.ofNullable(registry.poolByName(name));
     }
 
     static Optional<VaultEntity> getVaultByName(String name) {
-        return Optional.ofNullable(vaultsCacheByName.get(name));
+        return Optional.ofNullable(registry.vaultByName(name));
     }
 
     static Optional<UniPairEntity> getUniPairByName(String name) {
-        return Optional.ofNullable(uniPairsCacheByName.get(name));
+        return Optional.ofNullable(registry.uniPairByName(name));
     }
 
     static Optional<TokenEntity> getTokenByName(String name) {
-        return Optional.ofNullable(tokensCacheByName.get(name));
+        return Optional.ofNullable(registry.tokenByName(name));
     }
 }
@@ -0,0 +1,93 @@
+package pro.belbix.ethparser.web3.contracts;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.extern.log4j.Log4j2;
+import pro.belbix.ethparser.web3.FunctionsUtils;
+
+/**
+ * Results of simple contract calls fetched with batch requests before the sequential contracts loading.
+ * Calls missed in the prefetch go to the node as usual.
+ */
+@Log4j2
+class ContractMetadataCache {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final Map<String, Object> values = new ConcurrentHashMap<>();
+    private final FunctionsUtils functionsUtils;
+
+    ContractMetadataCache(FunctionsUtils functionsUtils) {
+        this.functionsUtils = functionsUtils;
+    }
+
+    /**
+     * @param functions function name -> return type from {@link FunctionsUtils} TYPE_* constants
+     */
+    void prefetch(List<String> addresses, Map<String, String> functions, Long block, int threads) {
+        if (addresses.isEmpty()) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(threads, 1));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Map.Entry<String, String> function : functions.entrySet()) {
+                for (int i = 0; i < addresses.size(); i += BATCH_SIZE) {
+                    List<String> batch = addresses.subList(i, Math.min(i + BATCH_SIZE, addresses.size()));
+                    futures.add(executor.submit(() ->
+                        functionsUtils.callByNameBatch(function.getKey(), function.getValue(), batch, block)
+                            .forEach((address, value) -> values.put(key(function.getKey(), address, block), value))
+                    ));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (Exception e) {
+            // not critical, missed values will be called one by one
+            log.warn("Contracts metadata prefetch failed", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("Prefetched {} metadata values for {} contracts", values.size(), addresses.size());
+    }
+
+    Optional<String> callAddressByName(String functionName, String hash, Long block) {
+        Object value = values.get(key(functionName, hash, block));
+        if (value != null) {
+            return Optional.of((String) value);
+        }
+        return functionsUtils.callAddressByName(functionName, hash, block);
+    }
+
+    Optional<String> callStrByName(String functionName, String hash, Long block) {
+        Object value = values.get(key(functionName, hash, block));
+        if (value != null) {
+            return Optional.of((String) value);
+        }
+        return functionsUtils.callStrByName(functionName, hash, block);
+    }
+
+    Optional<BigInteger> callIntByName(String functionName, String hash, Long block) {
+        Object value = values.get(key(functionName, hash, block));
+        if (value != null) {
+            return Optional.of((BigInteger) value);
+        }
+        return functionsUtils.callIntByName(functionName, hash, block);
+    }
+
+    void clear() {
+        values.clear();
+    }
+
+    private static String key(String functionName, String hash, Long block) {
+        return functionName + "_" + hash.toLowerCase() + "_" + block;
+    }
+}
@@ -0,0 +1,250 @@
+package pro.belbix.ethparser.web3.contracts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import pro.belbix.ethparser.entity.contracts.ContractEntity;
+import pro.belbix.ethparser.entity.contracts.PoolEntity;
+import pro.belbix.ethparser.entity.contracts.TokenEntity;
+import pro.belbix.ethparser.entity.contracts.TokenToUniPairEntity;
+import pro.belbix.ethparser.entity.contracts.UniPairEntity;
+import pro.belbix.ethparser.entity.contracts.VaultEntity;
+
+/**
+ * Immutable snapshot of all loaded contracts. Built by {@link ContractLoader} and replaced as a whole,
+ * so readers never see a half loaded state and don't need any locks.
+ */
+final class ContractRegistry {
+
+    static final ContractRegistry EMPTY = new ContractRegistry(
+        Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(),
+        Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(),
+        Collections.emptyList());
+
+    private final Map<String, VaultEntity> vaultsByAddress;
+    private final Map<String, VaultEntity> vaultsByName;
+    private final Map<String, PoolEntity> poolsByAddress;
+    private final Map<String, PoolEntity> poolsByName;
+    private final Map<String, UniPairEntity> uniPairsByAddress;
+    private final Map<String, UniPairEntity> uniPairsByName;
+    private final Map<String, TokenEntity> tokensByAddress;
+    private final Map<String, TokenEntity> tokensByName;
+    // all types in one map with the same priority as the old sequential lookups
+    private final Map<String, String> namesByAddress = new HashMap<>();
+    private final Map<String, String> uniPairByTokens = new HashMap<>();
+    private final Map<String, PairIntervals> pairIntervalsByToken = new HashMap<>();
+    private final Set<String> tokenNamesWithUniPairs;
+    private final List<String> uniPairAddressesWithKeys;
+
+    ContractRegistry(Map<String, VaultEntity> vaultsByAddress,
+                     Map<String, VaultEntity> vaultsByName,
+                     Map<String, PoolEntity> poolsByAddress,
+                     Map<String, PoolEntity> poolsByName,
+                     Map<String, UniPairEntity> uniPairsByAddress,
+                     Map<String, UniPairEntity> uniPairsByName,
+                     Map<String, TokenEntity> tokensByAddress,
+                     Map<String, TokenEntity> tokensByName,
+                     Collection<TokenToUniPairEntity> tokenToUniPairs) {
+        this.vaultsByAddress = copyByAddress(vaultsByAddress);
+        this.vaultsByName = Collections.unmodifiableMap(new HashMap<>(vaultsByName));
+        this.poolsByAddress = copyByAddress(poolsByAddress);
+        this.poolsByName = Collections.unmodifiableMap(new HashMap<>(poolsByName));
+        this.uniPairsByAddress = copyByAddress(uniPairsByAddress);
+        this.uniPairsByName = Collections.unmodifiableMap(new HashMap<>(uniPairsByName));
+        this.tokensByAddress = copyByAddress(tokensByAddress);
+        this.tokensByName = Collections.unmodifiableMap(new HashMap<>(tokensByName));
+
+        fillNames(this.tokensByAddress, TokenEntity::getContract);
+        fillNames(this.uniPairsByAddress, UniPairEntity::getContract);
+        fillNames(this.poolsByAddress, PoolEntity::getContract);
+        fillNames(this.vaultsByAddress, VaultEntity::getContract);
+
+        List<String> withKeys = new ArrayList<>();
+        // iterate the source map for keeping the same pair choice as the old linear scan
+        for (UniPairEntity uniPair : uniPairsByAddress.values()) {
+            String address = uniPair.getContract().getAddress();
+            if (uniPair.getKeyToken() != null) {
+                withKeys.add(address);
+            }
+            if (uniPair.getToken0() != null && uniPair.getToken1() != null) {
+                uniPairByTokens.putIfAbsent(
+                    tokensKey(uniPair.getToken0().getAddress(), uniPair.getToken1().getAddress()), address);
+            }
+        }
+        this.uniPairAddressesWithKeys = Collections.unmodifiableList(withKeys);
+
+        Map<String, List<TokenToUniPairEntity>> linksByToken = new HashMap<>();
+        for (TokenToUniPairEntity link : tokenToUniPairs) {
+            linksByToken.computeIfAbsent(link.getToken().getContract().getName(), k -> new ArrayList<>())
+                .add(link);
+        }
+        linksByToken.forEach((token, links) -> pairIntervalsByToken.put(token, new PairIntervals(links)));
+        this.tokenNamesWithUniPairs = Collections.unmodifiableSet(new LinkedHashSet<>(linksByToken.keySet()));
+    }
+
+    String nameByAddress(String address) {
+        return namesByAddress.get(normalize(address));
+    }
+
+    VaultEntity vaultByAddress(String address) {
+        return vaultsByAddress.get(normalize(address));
+    }
+
+    PoolEntity poolByAddress(String address) {
+        return poolsByAddress.get(normalize(address));
+    }
+
+    UniPairEntity uniPairByAddress(String address) {
+        return uniPairsByAddress.get(normalize(address));
+    }
+
+    TokenEntity tokenByAddress(String address) {
+        return tokensByAddress.get(normalize(address));
+    }
+
+    VaultEntity vaultByName(String name) {
+        return vaultsByName.get(name);
+    }
+
+    PoolEntity poolByName(String name) {
+        return poolsByName.get(name);
+    }
+
+    UniPairEntity uniPairByName(String name) {
+        return uniPairsByName.get(name);
+    }
+
+    TokenEntity tokenByName(String name) {
+        return tokensByName.get(name);
+    }
+
+    String uniPairForTokens(String token0, String token1) {
+        return uniPairByTokens.get(tokensKey(token0, token1));
+    }
+
+    /**
+     * @return name of the freshest uni pair started on or before the block, null if the token doesn't have it
+     */
+    String uniPairNameForTokenName(String tokenName, long block) {
+        PairIntervals intervals = pairIntervalsByToken.get(tokenName);
+        if (intervals == null) {
+            return null;
+        }
+        return intervals.floor(block);
+    }
+
+    Map<String, VaultEntity> vaultsByAddress() {
+        return vaultsByAddress;
+    }
+
+    Map<String, VaultEntity> vaultsByName() {
+        return vaultsByName;
+    }
+
+    Map<String, PoolEntity> poolsByAddress() {
+        return poolsByAddress;
+    }
+
+    Map<String, PoolEntity> poolsByName() {
+        return poolsByName;
+    }
+
+    Map<String, UniPairEntity> uniPairsByAddress() {
+        return uniPairsByAddress;
+    }
+
+    Map<String, TokenEntity> tokensByAddress() {
+        return tokensByAddress;
+    }
+
+    Set<String> tokenNamesWithUniPairs() {
+        return tokenNamesWithUniPairs;
+    }
+
+    List<String> uniPairAddressesWithKeys() {
+        return uniPairAddressesWithKeys;
+    }
+
+    private <T> void fillNames(Map<String, T> byAddress,
+                               Function<T, ContractEntity> contract) {
+        byAddress.forEach((address, entity) -> {
+            ContractEntity contractEntity = contract.apply(entity);
+            if (contractEntity != null && contractEntity.getName() != null) {
+                namesByAddress.put(address, contractEntity.getName());
+            }
+        });
+    }
+
+    private static <T> Map<String, T> copyByAddress(Map<String, T> source) {
+        Map<String, T> result = new HashMap<>(source.size() * 2);
+        source.forEach((address, entity) -> result.put(address.toLowerCase(), entity));
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static String tokensKey(String token0, String token1) {
+        String t0 = normalize(token0);
+        String t1 = normalize(token1);
+        if (t0.compareTo(t1) > 0) {
+            return t1 + t0;
+        }
+        return t0 + t1;
+    }
+
+    /**
+     * Addresses from logs and transactions are lower case in most cases, so avoid allocation for them.
+     */
+    static String normalize(String address) {
+        for (int i = 0; i < address.length(); i++) {
+            if (Character.isUpperCase(address.charAt(i))) {
+                return address.toLowerCase();
+            }
+        }
+        return address;
+    }
+
+    /**
+     * Sorted block starts of token to uni pair links for binary search.
+     */
+    static final class PairIntervals {
+
+        private final long[] blockStarts;
+        private final String[] pairNames;
+
+        PairIntervals(List<TokenToUniPairEntity> links) {
+            List<TokenToUniPairEntity> sorted = new ArrayList<>(links.size());
+            for (TokenToUniPairEntity link : links) {
+                // the first link wins for the same block start
+                boolean duplicate = sorted.stream()
+                    .anyMatch(l -> l.getBlockStart().equals(link.getBlockStart()));
+                if (!duplicate) {
+                    sorted.add(link);
+                }
+            }
+            sorted.sort((a, b) -> Long.compare(a.getBlockStart(), b.getBlockStart()));
+            blockStarts = new long[sorted.size()];
+            pairNames = new String[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                blockStarts[i] = sorted.get(i).getBlockStart();
+                pairNames[i] = sorted.get(i).getUniPair().getContract().getName();
+            }
+        }
+
+        String floor(long block) {
+            int i = Arrays.binarySearch(blockStarts, block);
+            if (i < 0) {
+                i = -i - 2;
+            }
+            if (i < 0) {
+                return null;
+            }
+            return pairNames[i];
+        }
+    }
+}
@@ -5,42 +5,25 @@ import static pro.belbix.ethparser.web3.contracts.ContractConstants.PS_ADDRESSES
 
 import java.math.BigDecimal;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 import org.web3j.tuples.generated.Tuple2;
 import pro.belbix.ethparser.entity.contracts.ContractEntity;
 import pro.belbix.ethparser.entity.contracts.PoolEntity;
 import pro.belbix.ethparser.entity.contracts.TokenEntity;
-import pro.belbix.ethparser.entity.contracts.TokenToUniPairEntity;
 import pro.belbix.ethparser.entity.contracts.UniPairEntity;
 import pro.belbix.ethparser.entity.contracts.VaultEntity;
 
 public class ContractUtils {
 
+    private static final Map<String, Integer> decimalsCache = new ConcurrentHashMap<>();
+
     private ContractUtils() {
     }
 
     public static Optional<String> getNameByAddress(String address) {
-        Optional<String> name = ContractLoader.getVaultByAddress(address)
-            .map(VaultEntity::getContract)
-            .map(ContractEntity::getName);
-
-        if (name.isEmpty()) {
-            name = ContractLoader.getPoolByAddress(address)
-                .map(PoolEntity::getContract)
-                .map(ContractEntity::getName);
-        }
-        if (name.isEmpty()) {
-            name = ContractLoader.getUniPairByAddress(address)
-                .map(UniPairEntity::getContract)
-                .map(ContractEntity::getName);
-        }
-        if (name.isEmpty()) {
-            name = ContractLoader.getTokenByAddress(address)
-                .map(TokenEntity::getContract)
-                .map(ContractEntity::getName);
-        }
-        return name;
+        return Optional.ofNullable(ContractLoader.registry().nameByAddress(address));
     }
 
     public static Optional<String> getAddressByName(String name, ContractType type) {
@@ -78,13 +61,13 @@ public class ContractUtils {
         return ContractLoader.getVaultByName(name)
             .map(VaultEntity::getContract)
             .map(ContractEntity::getAddress)
-            .flatMap(adr -> ContractLoader.poolsCacheByAddress.values().stream()
+            .flatMap(adr -> ContractLoader.registry().poolsByAddress().values().stream()
                 .filter(pool -> pool.getLpToken().getAddress().equals(adr))
                 .findFirst());
     }
 
     public static Optional<PoolEntity> poolByVaultAddress(String address) {
-        Optional<PoolEntity> poolEntity = ContractLoader.poolsCacheByAddress.values().stream()
+        Optional<PoolEntity> poolEntity = ContractLoader.registry().poolsByAddress().values().stream()
             .filter(pool -> pool.getLpToken() != null
                 && pool.getLpToken().getAddress().equalsIgnoreCase(address))
             .findFirst();
@@ -98,41 +81,41 @@ public class ContractUtils {
     }
 
     public static Optional<VaultEntity> vaultByPoolAddress(String address) {
-        return Optional.ofNullable(ContractLoader.poolsCacheByAddress.get(address.toLowerCase()))
+        return Optional.ofNullable(ContractLoader.registry().poolByAddress(address))
             .map(PoolEntity::getLpToken)
             .flatMap(c -> ContractLoader.getVaultByAddress(c.getAddress()));
     }
 
     public static boolean isVaultName(String name) {
-        return ContractLoader.vaultsCacheByName.containsKey(name);
+        return ContractLoader.registry().vaultByName(name) != null;
     }
 
     public static boolean isPoolName(String name) {
-        return ContractLoader.poolsCacheByName.containsKey(name);
+        return ContractLoader.registry().poolByName(name) != null;
     }
 
     public static boolean isUniPairName(String name) {
-        return ContractLoader.uniPairsCacheByName.containsKey(name);
+        return ContractLoader.registry().uniPairByName(name) != null;
     }
 
     public static boolean isTokenName(String name) {
-        return ContractLoader.tokensCacheByName.containsKey(name);
+        return ContractLoader.registry().tokenByName(name) != null;
     }
 
     public static boolean isVaultAddress(String address) {
-        return ContractLoader.vaultsCacheByAddress.containsKey(address.toLowerCase());
+        return ContractLoader.registry().vaultByAddress(address) != null;
     }
 
     public static boolean isPoolAddress(String address) {
-        return ContractLoader.poolsCacheByAddress.containsKey(address.toLowerCase());
+        return ContractLoader.registry().poolByAddress(address) != null;
     }
 
     public static boolean isUniPairAddress(String address) {
-        return ContractLoader.uniPairsCacheByAddress.containsKey(address.toLowerCase());
+        return ContractLoader.registry().uniPairByAddress(address) != null;
     }
 
     public static boolean isTokenAddress(String address) {
-        return ContractLoader.tokensCacheByAddress.containsKey(address.toLowerCase());
+        return ContractLoader.registry().tokenByAddress(address) != null;
     }
 
     public static boolean isPsName(String name) {
@@ -149,7 +132,7 @@ public class ContractUtils {
     }
 
     public static boolean isTokenCreated(String tokenName, long block) {
-        return Optional.ofNullable(ContractLoader.tokensCacheByName.get(tokenName))
+        return Optional.ofNullable(ContractLoader.registry().tokenByName(tokenName))
             .map(TokenEntity::getContract)
             .map(ContractEntity::getCreated)
             .filter(c -> c < block)
@@ -157,7 +140,7 @@ public class ContractUtils {
     }
 
     public static boolean isUniPairCreated(String uniPairName, long block) {
-        return Optional.ofNullable(ContractLoader.uniPairsCacheByName.get(uniPairName))
+        return Optional.ofNullable(ContractLoader.registry().uniPairByName(uniPairName))
             .map(UniPairEntity::getContract)
             .map(ContractEntity::getCreated)
             .filter(c -> c < block)
@@ -175,58 +158,64 @@ public class ContractUtils {
     }
 
     public static String findUniPairForTokens(String token0, String token1) {
-        for (UniPairEntity uniPair :
-            ContractLoader.uniPairsCacheByAddress.values()) {
-            String t0 = uniPair.getToken0().getAddress();
-            String t1 = uniPair.getToken1().getAddress();
-            if (
-                (t0.equalsIgnoreCase(token0)
-                    || t1.equalsIgnoreCase(token0))
-                    && (
-                    t0.equalsIgnoreCase(token1)
-                        || t1.equalsIgnoreCase(token1)
-                )
-            ) {
-                return uniPair.getContract().getAddress();
-            }
+        String uniPair = ContractLoader.registry().uniPairForTokens(token0, token1);
+        if (uniPair == null) {
+            throw new IllegalStateException("Not found LP for " + token0 + " and " + token1);
         }
-        throw new IllegalStateException("Not found LP for " + token0 + " and " + token1);
+        return uniPair;
     }
 
     public static BigDecimal getDividerByAddress(String address) {
-        address = address.toLowerCase();
+        return BigDecimal.TEN.pow(getDecimalsByAddress(address));
+    }
+
+    public static int getDecimalsByAddress(String address) {
+        String adr = address.toLowerCase();
+        Integer decimals = decimalsCache.get(adr);
+        if (decimals == null) {
+            decimals = resolveDecimals(adr);
+            decimalsCache.put(adr, decimals);
+        }
+        return decimals;
+    }
+
+    static void clearDecimalsCache() {
+        decimalsCache.clear();
+    }
+
+    private static int resolveDecimals(String address) {
         long decimals;
         // unique addresses
         if (isPsAddress(address)) {
             decimals = 18L;
-        } else if (ContractLoader.poolsCacheByAddress.containsKey(address)) {
-            String vaultAddress = ContractLoader.poolsCacheByAddress.get(address)
+        } else if (ContractLoader.registry().poolByAddress(address) != null) {
+            String vaultAddress = ContractLoader.registry().poolByAddress(address)
                 .getLpToken().getAddress();
             String vaultName = getNameByAddress(vaultAddress).orElseThrow();
             if (vaultName.endsWith("_V0")) {
                 vaultAddress = getAddressByName(vaultName.replace("_V0", ""), ContractType.VAULT)
                     .orElseThrow(() -> new IllegalStateException("Not found address for " + vaultName));
             }
-            decimals = ContractLoader.vaultsCacheByAddress.get(vaultAddress).getDecimals();
-        } else if (ContractLoader.vaultsCacheByAddress.containsKey(address)) {
-            decimals = ContractLoader.vaultsCacheByAddress.get(address).getDecimals();
-        } else if (ContractLoader.uniPairsCacheByAddress.containsKey(address)) {
-            decimals = ContractLoader.uniPairsCacheByAddress.get(address).getDecimals();
-        } else if (ContractLoader.tokensCacheByAddress.containsKey(address)) {
-            decimals = ContractLoader.tokensCacheByAddress.get(address).getDecimals();
+            decimals = ContractLoader.registry().vaultByAddress(vaultAddress).getDecimals();
+        } else if (ContractLoader.registry().vaultByAddress(address) != null) {
+            decimals = ContractLoader.registry().vaultByAddress(address).getDecimals();
+        } else if (ContractLoader.registry().uniPairByAddress(address) != null) {
+            decimals = ContractLoader.registry().uniPairByAddress(address).getDecimals();
+        } else if (ContractLoader.registry().tokenByAddress(address) != null) {
+            decimals = ContractLoader.registry().tokenByAddress(address).getDecimals();
         } else {
             throw new IllegalStateException("Unknown address " + address);
         }
-        return new BigDecimal(10L).pow((int) decimals);
+        return (int) decimals;
     }
 
     public static Tuple2<TokenEntity, TokenEntity> getUniPairTokens(String address) {
-        UniPairEntity uniPair = Optional.ofNullable(ContractLoader.uniPairsCacheByAddress.get(address))
+        UniPairEntity uniPair = Optional.ofNullable(ContractLoader.registry().uniPairByAddress(address))
             .orElseThrow(() -> new IllegalStateException("Not found uniPair by " + address));
         return new Tuple2<>(
-            Optional.ofNullable(ContractLoader.tokensCacheByAddress.get(uniPair.getToken0().getAddress()))
+            Optional.ofNullable(ContractLoader.registry().tokenByAddress(uniPair.getToken0().getAddress()))
                 .orElseThrow(() -> new IllegalStateException("Not found token by " + uniPair.getToken0().getAddress())),
-            Optional.ofNullable(ContractLoader.tokensCacheByAddress.get(uniPair.getToken1().getAddress()))
+            Optional.ofNullable(ContractLoader.registry().tokenByAddress(uniPair.getToken1().getAddress()))
                 .orElseThrow(() -> new IllegalStateException("Not found token by " + uniPair.getToken1().getAddress()))
         );
     }
@@ -243,107 +232,95 @@ public class ContractUtils {
     }
 
     public static Optional<String> findKeyTokenForUniPair(String address) {
-        return Optional.ofNullable(ContractLoader.uniPairsCacheByAddress.get(address))
+        return Optional.ofNullable(ContractLoader.registry().uniPairByAddress(address))
             .map(UniPairEntity::getKeyToken)
             .map(TokenEntity::getContract)
             .map(ContractEntity::getAddress);
     }
 
     public static int getUniPairType(String address) {
-        return Optional.ofNullable(ContractLoader.uniPairsCacheByAddress.get(address))
+        return Optional.ofNullable(ContractLoader.registry().uniPairByAddress(address))
             .map(UniPairEntity::getType)
             .orElse(0);
     }
 
     public static String findUniPairNameForTokenName(String tokenName, long block) {
-        TokenToUniPairEntity freshest = null;
-        for (TokenToUniPairEntity tokenToUniPairEntity : ContractLoader.tokenToUniPairCache.values()) {
-            if (!tokenToUniPairEntity.getToken().getContract().getName().equals(tokenName)) {
-                continue;
-            }
-            if (freshest == null
-                || freshest.getBlockStart() < tokenToUniPairEntity.getBlockStart()) {
-                if (tokenToUniPairEntity.getBlockStart() > block) {
-                    continue;
-                }
-                freshest = tokenToUniPairEntity;
-            }
-        }
-        if (freshest == null) {
+        String uniPairName = ContractLoader.registry().uniPairNameForTokenName(tokenName, block);
+        if (uniPairName == null) {
             throw new IllegalStateException("Not found uni pair for " + tokenName);
         }
-        return freshest.getUniPair().getContract().getName();
+        return uniPairName;
     }
 
     public static Collection<String> getAllPoolAddresses() {
-        return ContractLoader.poolsCacheByAddress.keySet();
+        return ContractLoader.registry().poolsByAddress().keySet();
     }
 
     public static Collection<String> getAllPoolNames() {
-        return ContractLoader.poolsCacheByName.keySet();
+        return ContractLoader.registry().poolsByName().keySet();
     }
 
     public static Collection<String> getAllVaultAddresses() {
-        return ContractLoader.vaultsCacheByAddress.keySet();
+        return ContractLoader.registry().vaultsByAddress().keySet();
     }
 
     public static Collection<String> getAllVaultNames() {
-        return ContractLoader.vaultsCacheByName.keySet();
+        return ContractLoader.registry().vaultsByName().keySet();
     }
 
     public static Collection<VaultEntity> getAllVaults() {
-        return ContractLoader.vaultsCacheByAddress.values();
+        return ContractLoader.registry().vaultsByAddress().values();
     }
 
     public static Optional<VaultEntity> getVaultByName(String name) {
-        return Optional.ofNullable(ContractLoader.vaultsCacheByName.get(name.toUpperCase()));
+        return Optional.ofNullable(ContractLoader.registry().vaultByName(name.toUpperCase()));
     }
 
     public static Optional<VaultEntity> getVaultByAddress(String address) {
-        return Optional.ofNullable(ContractLoader.vaultsCacheByAddress.get(address.toLowerCase()));
+        return Optional.ofNullable(ContractLoader.registry().vaultByAddress(address));
     }
 
     public static Collection<PoolEntity> getAllPools() {
-        return ContractLoader.poolsCacheByAddress.values();
+        return ContractLoader.registry().poolsByAddress().values();
     }
 
     public static Optional<PoolEntity> getPoolByName(String name) {
-        return Optional.ofNullable(ContractLoader.poolsCacheByName.get(name.toUpperCase()));
+        return Optional.ofNullable(ContractLoader.registry().poolByName(name.toUpperCase()));
     }
 
     public static Optional<PoolEntity> getPoolByAddress(String address) {
-        return Optional.ofNullable(ContractLoader.poolsCacheByAddress.get(address.toLowerCase()));
+        return Optional.ofNullable(ContractLoader.registry().poolByAddress(address));
     }
 
     public static Collection<TokenEntity> getAllTokens() {
-        return ContractLoader.tokensCacheByAddress.values();
+        return ContractLoader.registry().tokensByAddress().values();
     }
 
     public static Optional<TokenEntity> getTokenByName(String name) {
-        return Optional.ofNullable(ContractLoader.tokensCacheByName.get(name.toUpperCase()));
+        return Optional.ofNullable(ContractLoader.registry().tokenByName(name.toUpperCase()));
     }
 
     public static Optional<TokenEntity> getTokenByAddress(String address) {
-        return Optional.ofNullable(ContractLoader.tokensCacheByAddress.get(address.toLowerCase()));
+        return Optional.ofNullable(ContractLoader.registry().tokenByAddress(address));
     }
 
     public static Collection<UniPairEntity> getAllUniPairs() {
-        return ContractLoader.uniPairsCacheByAddress.values();
+        return ContractLoader.registry().uniPairsByAddress().values();
     }
 
     public static Optional<UniPairEntity> getUniPairByName(String name) {
-        return Optional.ofNullable(ContractLoader.uniPairsCacheByName.get(name.toUpperCase()));
+        return Optional.ofNullable(ContractLoader.registry().uniPairByName(name.toUpperCase()));
     }
 
     public static Optional<UniPairEntity> getUniPairByAddress(String address) {
-        return Optional.ofNullable(ContractLoader.uniPairsCacheByAddress.get(address.toLowerCase()));
+        return Optional.ofNullable(ContractLoader.registry().uniPairByAddress(address));
     }
 
     public static Collection<String> getAllUniPairAddressesWithKeys() {
-        return ContractLoader.uniPairsCacheByAddress.values().stream()
-            .filter(u -> u.getKeyToken() != null)
-            .map(UniPairEntity::getContract)
-            .map(ContractEntity::getAddress)
-            .collect(Collectors.toList());
+        return ContractLoader.registry().uniPairAddressesWithKeys();
+    }
+
+    public static Collection<String> getAllTokenNamesWithUniPairs() {
+        return ContractLoader.registry().tokenNamesWithUniPairs();
     }
 }
@@ -41,9 +41,9 @@ public class DeployerDecoder extends MethodDecoder {
                 mapTypesToModel(null, DeployerActivityEnum.NO_INPUT_DATA.getMethodName(), tx);
       } else {
         // everything else
-        try {
+        if (findMethodId(tx.getInput()) != null) {
           deployerTx = (DeployerTx) decodeInputData(tx);
-        } catch (IllegalStateException ise) {
+        } else {
           // unknown tx
           deployerTx = (DeployerTx) mapTypesToModel(null, tx.getInput().substring(0, 10), tx);
           log.warn(
@@ -3,11 +3,8 @@ package pro.belbix.ethparser.web3.deployer.parser;
 import static pro.belbix.ethparser.web3.Web3Service.LOG_LAST_PARSED_COUNT;
 
 import java.time.Instant;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import javax.annotation.PreDestroy;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import org.web3j.protocol.core.methods.response.Transaction;
@@ -16,6 +13,8 @@ import pro.belbix.ethparser.dto.DtoI;
 import pro.belbix.ethparser.model.DeployerTx;
 import pro.belbix.ethparser.web3.EthBlockService;
 import pro.belbix.ethparser.web3.ParserInfo;
+import pro.belbix.ethparser.web3.ParserQueues;
+import pro.belbix.ethparser.web3.ParserRuntime;
 import pro.belbix.ethparser.web3.Web3Parser;
 import pro.belbix.ethparser.web3.Web3Service;
 import pro.belbix.ethparser.web3.deployer.db.DeployerDbService;
@@ -24,14 +23,14 @@ import pro.belbix.ethparser.web3.deployer.decoder.DeployerDecoder;
 @Service
 @Log4j2
 public class DeployerTransactionsParser implements Web3Parser {
-  private static final AtomicBoolean run = new AtomicBoolean(true);
   private final Web3Service web3Service;
   private final DeployerDecoder deployerDecoder;
-  private final BlockingQueue<Transaction> transactions = new ArrayBlockingQueue<>(100);
-  private final BlockingQueue<DtoI> output = new ArrayBlockingQueue<>(100);
+  private final BlockingQueue<Transaction> transactions;
+  private final BlockingQueue<DtoI> output;
   private final DeployerDbService deployerDbService;
   private final EthBlockService ethBlockService;
   private final ParserInfo parserInfo;
+  private final ParserRuntime parserRuntime;
   private long parsedTxCount = 0;
   private Instant lastTx = Instant.now();
 
@@ -40,41 +39,44 @@ public class DeployerTransactionsParser implements Web3Parser {
       DeployerDecoder deployerDecoder,
       DeployerDbService deployerDbService,
       EthBlockService ethBlockService,
-      ParserInfo parserInfo) {
+      ParserInfo parserInfo,
+      ParserRuntime parserRuntime,
+      ParserQueues parserQueues) {
     this.web3Service = web3Service;
     this.deployerDecoder = deployerDecoder;
     this.deployerDbService = deployerDbService;
     this.ethBlockService = ethBlockService;
     this.parserInfo = parserInfo;
+    this.parserRuntime = parserRuntime;
+    this.transactions = parserQueues.create(getClass().getSimpleName() + "-in");
+    this.output = parserQueues.create(getClass().getSimpleName() + "-out");
   }
 
   public void startParse() {
     log.info("Start parse Deployer transactions");
     parserInfo.addParser(this);
     web3Service.subscribeOnTransactions(transactions);
-    new Thread(
-            () -> {
-              while (run.get()) {
-                Transaction transaction = null;
-                try {
-                  transaction = transactions.poll(1, TimeUnit.SECONDS);
-                } catch (InterruptedException ignored) {
-                }
-                DeployerDTO dto = parseDeployerTransaction(transaction);
-                if (dto != null) {
-                  lastTx = Instant.now();
-                  try {
-                    boolean success = deployerDbService.save(dto);
-                    if (success) {
-                      output.put(dto);
-                    }
-                  } catch (Exception e) {
-                    log.error("Can't save " + dto.toString(), e);
-                  }
-                }
-              }
-            })
-        .start();
+    parserRuntime.loop(getClass().getSimpleName(), () -> {
+      Transaction transaction = null;
+      try {
+        transaction = transactions.poll(1, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      DeployerDTO dto = parseDeployerTransaction(transaction);
+      if (dto != null) {
+        lastTx = Instant.now();
+        try {
+          boolean success = deployerDbService.save(dto);
+          if (success) {
+            output.put(dto);
+          }
+        } catch (Exception e) {
+          log.error("Can't save " + dto.toString(), e);
+        }
+      }
+    });
   }
 
   public DeployerDTO parseDeployerTransaction(Transaction tx) {
@@ -112,11 +114,6 @@ public class DeployerTransactionsParser implements Web3Parser {
     return output;
   }
 
-  @PreDestroy
-  public void stop() {
-    run.set(false);
-  }
-
   @Override
   public Instant getLastTx() {
     return lastTx;
@@ -2,7 +2,6 @@ package pro.belbix.ethparser.web3.erc20.decoder;
 
 import java.math.BigInteger;
 import java.util.List;
-import org.web3j.abi.TypeReference;
 import org.web3j.abi.datatypes.Type;
 import org.web3j.protocol.core.methods.response.Log;
 import org.web3j.protocol.core.methods.response.Transaction;
@@ -19,9 +18,8 @@ public class ERC20Decoder extends MethodDecoder {
 
         String methodId = parseMethodId(ethLog).orElse("");
         String methodName = methodNamesByMethodId.get(methodId);
-        List<TypeReference<Type>> parameters = findParameters(methodId).orElse(List.of());
 
-        List<Type> types = extractLogIndexedValues(ethLog, parameters);
+        List<Type> types = extractLogValues(ethLog, methodId);
         TokenTx tx = new TokenTx();
         tx.setLogId(ethLog.getLogIndex().toString());
         tx.setHash(ethLog.getTransactionHash());
@@ -49,16 +47,8 @@ public class ERC20Decoder extends MethodDecoder {
     }
 
     public String decodeMethodName(String input) {
-        if (input == null) {
-            return null;
-        }
-        if (input.length() < 10) {
-            return null;
-        }
-        String methodID = input.substring(0, 10);
-
-        List<TypeReference<Type>> parameters = parametersByMethodId.get(methodID);
-        if (parameters == null) {
+        String methodID = findMethodId(input);
+        if (methodID == null) {
             return null;
         }
         return methodNamesByMethodId.get(methodID);
@@ -5,10 +5,8 @@ import static pro.belbix.ethparser.web3.MethodDecoder.parseAmount;
 
 import java.math.BigInteger;
 import java.time.Instant;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import org.web3j.protocol.core.methods.response.Log;
@@ -20,7 +18,13 @@ import pro.belbix.ethparser.properties.AppProperties;
 import pro.belbix.ethparser.web3.EthBlockService;
 import pro.belbix.ethparser.web3.FunctionsUtils;
 import pro.belbix.ethparser.web3.MethodDecoder;
+import pro.belbix.ethparser.web3.ParserCursorService;
 import pro.belbix.ethparser.web3.ParserInfo;
+import pro.belbix.ethparser.web3.ParserLanes;
+import pro.belbix.ethparser.web3.ParserQueues;
+import pro.belbix.ethparser.web3.ParserRuntime;
+import pro.belbix.ethparser.web3.TransactionCache;
+import pro.belbix.ethparser.web3.TxMethodNameCache;
 import pro.belbix.ethparser.web3.Web3Parser;
 import pro.belbix.ethparser.web3.Web3Service;
 import pro.belbix.ethparser.web3.contracts.ContractConstants;
@@ -35,17 +39,20 @@ import pro.belbix.ethparser.web3.prices.PriceProvider;
 @Log4j2
 public class TransferParser implements Web3Parser {
 
-    private static final AtomicBoolean run = new AtomicBoolean(true);
-    private final BlockingQueue<Log> logs = new ArrayBlockingQueue<>(100);
-    private final BlockingQueue<DtoI> output = new ArrayBlockingQueue<>(100);
+    private final BlockingQueue<Log> logs;
+    private final BlockingQueue<DtoI> output;
     private final ERC20Decoder erc20Decoder = new ERC20Decoder();
     private final Web3Service web3Service;
+    private final TransactionCache transactionCache;
     private final EthBlockService ethBlockService;
     private final ParserInfo parserInfo;
     private final TransferDBService transferDBService;
     private final PriceProvider priceProvider;
     private final FunctionsUtils functionsUtils;
     private final AppProperties appProperties;
+    private final ParserCursorService parserCursorService;
+    private final TxMethodNameCache txMethodNameCache;
+    private final ParserRuntime parserRuntime;
     private Instant lastTx = Instant.now();
 
     public TransferParser(Web3Service web3Service,
@@ -53,7 +60,12 @@ public class TransferParser implements Web3Parser {
                           ParserInfo parserInfo,
                           TransferDBService transferDBService,
                           PriceProvider priceProvider,
-                          FunctionsUtils functionsUtils, AppProperties appProperties) {
+                          FunctionsUtils functionsUtils, AppProperties appProperties,
+                          TxMethodNameCache txMethodNameCache,
+                          ParserCursorService parserCursorService,
+                          TransactionCache transactionCache,
+                          ParserRuntime parserRuntime,
+                          ParserQueues parserQueues) {
         this.web3Service = web3Service;
         this.ethBlockService = ethBlockService;
         this.parserInfo = parserInfo;
@@ -61,34 +73,77 @@ public class TransferParser implements Web3Parser {
         this.priceProvider = priceProvider;
         this.functionsUtils = functionsUtils;
         this.appProperties = appProperties;
+        this.parserCursorService = parserCursorService;
+        this.txMethodNameCache = txMethodNameCache;
+        this.transactionCache = transactionCache;
+        this.parserRuntime = parserRuntime;
+        this.logs = parserQueues.create(getClass().getSimpleName() + "-in");
+        this.output = parserQueues.create(getClass().getSimpleName() + "-out");
     }
 
     @Override
     public void startParse() {
         log.info("Start parse Token info logs");
         parserInfo.addParser(this);
+        parserCursorService.register(this);
         web3Service.subscribeOnLogs(logs);
-        new Thread(() -> {
-            while (run.get()) {
-                Log ethLog = null;
-                try {
-                    ethLog = logs.poll(1, TimeUnit.SECONDS);
-                    TransferDTO dto = parseLog(ethLog);
-                    if (dto != null) {
-                        lastTx = Instant.now();
-                        boolean saved = transferDBService.saveDto(dto);
-                        if (saved) {
-                            output.put(dto);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.error("Error parse token info from " + ethLog, e);
-                    if (appProperties.isStopOnParseError()) {
-                        System.exit(-1);
-                    }
+        ParserLanes lanes = new ParserLanes(this, appProperties.getParserLanes(),
+            TransferParser::holder, this::handleLog, parserRuntime, parserCursorService);
+        lanes.start();
+        parserRuntime.loop(getClass().getSimpleName(), () -> {
+            try {
+                Log ethLog = logs.poll(1, TimeUnit.SECONDS);
+                if (ethLog == null || parserCursorService.isProcessed(this, ethLog)) {
+                    return;
                 }
+                lanes.submit(ethLog);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        });
+    }
+
+    private void handleLog(Log ethLog) {
+        try {
+            TransferDTO dto = parseLog(ethLog);
+            if (dto != null) {
+                lastTx = Instant.now();
+                boolean saved = parserCursorService.commit(this, ethLog,
+                    () -> transferDBService.saveDto(dto));
+                if (saved) {
+                    output.put(dto);
+                }
+            }
+            parserCursorService.advance(this, ethLog);
+        } catch (Exception e) {
+            log.error("Error parse token info from " + ethLog, e);
+            if (appProperties.isStopOnParseError()) {
+                System.exit(-1);
             }
-        }).start();
+        }
+    }
+
+    /**
+     * Profit of a PS exit or a LP sell is counted from earlier transfers of the same holder, so a
+     * transfer goes to the lane of its holder, not of the PS or the LP contract.
+     */
+    static String holder(Log ethLog) {
+        String from = ParserLanes.topic(ethLog, 1);
+        String to = ParserLanes.topic(ethLog, 2);
+        if (isPsOrLp(topicAddress(from))) {
+            return to;
+        }
+        return from;
+    }
+
+    private static boolean isPsOrLp(String address) {
+        return ContractUtils.isPsAddress(address) || ContractUtils.isUniPairAddress(address);
+    }
+
+    // indexed address is left padded to 32 bytes
+    private static String topicAddress(String topic) {
+        return "0x" + topic.substring(topic.length() - 40).toLowerCase();
     }
 
     public TransferDTO parseLog(Log ethLog) {
@@ -127,13 +182,20 @@ public class TransferParser implements Web3Parser {
         String methodName = dto.getMethodName();
         if (methodName == null) {
             String hash = dto.getId().split("_")[0];
-            Transaction ethTx = web3Service.findTransaction(hash);
+            methodName = txMethodNameCache.get(hash);
+            if (methodName != null) {
+                dto.setMethodName(methodName);
+                return;
+            }
+            Transaction ethTx = transactionCache.getTransaction(hash);
             methodName = erc20Decoder.decodeMethodName(ethTx.getInput());
             if (methodName == null) {
                 log.warn("Can't decode method for " + hash);
                 dto.setMethodName(ethTx.getInput().substring(0, 10));
+                txMethodNameCache.put(hash, dto.getMethodName());
                 return;
             }
+            txMethodNameCache.put(hash, methodName);
         } else {
             if (methodName.startsWith("0x")) {
                 String name = erc20Decoder.decodeMethodName(methodName);
@@ -7,7 +7,6 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import org.web3j.abi.TypeReference;
 import org.web3j.abi.datatypes.Type;
 import org.web3j.protocol.core.methods.response.Log;
 import org.web3j.protocol.core.methods.response.Transaction;
@@ -29,13 +28,12 @@ public class ImportantEventsLogDecoder extends MethodDecoder {
         }
         String methodId = parseMethodId(ethLog).orElse("");
         String methodName = methodNamesByMethodId.get(methodId);
-        List<TypeReference<Type>> parameters = findParameters(methodId).orElse(List.of());
 
         if (!allowedMethods.contains(methodName)) {
             return null;
         }
 
-        List<Type> types = extractLogIndexedValues(ethLog, parameters);
+        List<Type> types = extractLogValues(ethLog, methodId);
 
         // Mint function emits only Transfer event from zero address
         // and we want only FARM token
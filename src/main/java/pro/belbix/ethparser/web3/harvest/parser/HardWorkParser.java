@@ -11,10 +11,8 @@ import static pro.belbix.ethparser.web3.contracts.ContractConstants.D18;
 import java.math.BigInteger;
 import java.time.Instant;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import org.web3j.protocol.core.methods.response.Log;
@@ -25,7 +23,12 @@ import pro.belbix.ethparser.dto.v0.HardWorkDTO;
 import pro.belbix.ethparser.model.HardWorkTx;
 import pro.belbix.ethparser.properties.AppProperties;
 import pro.belbix.ethparser.web3.FunctionsUtils;
+import pro.belbix.ethparser.web3.ParserCursorService;
 import pro.belbix.ethparser.web3.ParserInfo;
+import pro.belbix.ethparser.web3.ParserLanes;
+import pro.belbix.ethparser.web3.ParserQueues;
+import pro.belbix.ethparser.web3.ParserRuntime;
+import pro.belbix.ethparser.web3.TransactionCache;
 import pro.belbix.ethparser.web3.Web3Parser;
 import pro.belbix.ethparser.web3.Web3Service;
 import pro.belbix.ethparser.web3.contracts.ContractType;
@@ -39,30 +42,41 @@ import pro.belbix.ethparser.web3.prices.PriceProvider;
 @Log4j2
 public class HardWorkParser implements Web3Parser {
 
-    private static final AtomicBoolean run = new AtomicBoolean(true);
-    private final BlockingQueue<Log> logs = new ArrayBlockingQueue<>(100);
-    private final BlockingQueue<DtoI> output = new ArrayBlockingQueue<>(100);
+    private final BlockingQueue<Log> logs;
+    private final BlockingQueue<DtoI> output;
     private final HardWorkLogDecoder hardWorkLogDecoder = new HardWorkLogDecoder();
     private final ERC20Decoder erc20Decoder = new ERC20Decoder();
     private final PriceProvider priceProvider;
     private final FunctionsUtils functionsUtils;
     private final Web3Service web3Service;
+    private final TransactionCache transactionCache;
     private final HardWorkDbService hardWorkDbService;
     private final ParserInfo parserInfo;
     private final AppProperties appProperties;
+    private final ParserCursorService parserCursorService;
+    private final ParserRuntime parserRuntime;
     private Instant lastTx = Instant.now();
 
     public HardWorkParser(PriceProvider priceProvider,
                           FunctionsUtils functionsUtils,
                           Web3Service web3Service,
                           HardWorkDbService hardWorkDbService, ParserInfo parserInfo,
-                          AppProperties appProperties) {
+                          AppProperties appProperties,
+                          ParserCursorService parserCursorService,
+                          TransactionCache transactionCache,
+                          ParserRuntime parserRuntime,
+                          ParserQueues parserQueues) {
         this.priceProvider = priceProvider;
         this.functionsUtils = functionsUtils;
         this.web3Service = web3Service;
         this.hardWorkDbService = hardWorkDbService;
         this.parserInfo = parserInfo;
         this.appProperties = appProperties;
+        this.parserCursorService = parserCursorService;
+        this.transactionCache = transactionCache;
+        this.parserRuntime = parserRuntime;
+        this.logs = parserQueues.create(getClass().getSimpleName() + "-in");
+        this.output = parserQueues.create(getClass().getSimpleName() + "-out");
     }
 
     @Override
@@ -70,27 +84,42 @@ public class HardWorkParser implements Web3Parser {
         log.info("Start parse Hard work logs");
         web3Service.subscribeOnLogs(logs);
         parserInfo.addParser(this);
-        new Thread(() -> {
-            while (run.get()) {
-                Log ethLog = null;
-                try {
-                    ethLog = logs.poll(1, TimeUnit.SECONDS);
-                    HardWorkDTO dto = parseLog(ethLog);
-                    if (dto != null) {
-                        lastTx = Instant.now();
-                        boolean saved = hardWorkDbService.save(dto);
-                        if (saved) {
-                            output.put(dto);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.error("Can't save " + ethLog, e);
-                    if (appProperties.isStopOnParseError()) {
-                        System.exit(-1);
-                    }
+        parserCursorService.register(this);
+        ParserLanes lanes = new ParserLanes(this, appProperties.getParserLanes(),
+            ethLog -> ParserLanes.topic(ethLog, 1), this::handleLog, parserRuntime, parserCursorService);
+        lanes.start();
+        parserRuntime.loop(getClass().getSimpleName(), () -> {
+            try {
+                Log ethLog = logs.poll(1, TimeUnit.SECONDS);
+                if (ethLog == null || parserCursorService.isProcessed(this, ethLog)) {
+                    return;
                 }
+                lanes.submit(ethLog);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             }
-        }).start();
+        });
+    }
+
+    private void handleLog(Log ethLog) {
+        try {
+            HardWorkDTO dto = parseLog(ethLog);
+            if (dto != null) {
+                lastTx = Instant.now();
+                boolean saved = parserCursorService.commit(this, ethLog,
+                    () -> hardWorkDbService.save(dto));
+                if (saved) {
+                    output.put(dto);
+                }
+            }
+            parserCursorService.advance(this, ethLog);
+        } catch (Exception e) {
+            log.error("Can't save " + ethLog, e);
+            if (appProperties.isStopOnParseError()) {
+                System.exit(-1);
+            }
+        }
     }
 
     public HardWorkDTO parseLog(Log ethLog) {
@@ -136,7 +165,7 @@ public class HardWorkParser implements Web3Parser {
 
     // not in the root because it can be weekly reward
     private void parseRewards(HardWorkDTO dto, String txHash, String strategyHash) {
-        TransactionReceipt tr = web3Service.fetchTransactionReceipt(txHash);
+        TransactionReceipt tr = transactionCache.getReceipt(txHash);
         double farmPrice = priceProvider.getPriceForCoin("FARM", dto.getBlock());
         dto.setFarmPrice(farmPrice);
         boolean autoStake = isAutoStake(tr.getLogs());
@@ -209,7 +238,7 @@ public class HardWorkParser implements Web3Parser {
     }
 
     private void fillFeeInfo(HardWorkDTO dto, String txHash, TransactionReceipt tr) {
-        Transaction transaction = web3Service.findTransaction(txHash);
+        Transaction transaction = transactionCache.getTransaction(txHash);
         double gas = (tr.getGasUsed().doubleValue());
         double gasPrice = transaction.getGasPrice().doubleValue() / D18;
         double ethPrice = priceProvider.getPriceForCoin("ETH", dto.getBlock());
@@ -3,11 +3,8 @@ package pro.belbix.ethparser.web3.harvest.parser;
 import static pro.belbix.ethparser.web3.Web3Service.LOG_LAST_PARSED_COUNT;
 
 import java.time.Instant;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import javax.annotation.PreDestroy;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import org.web3j.protocol.core.methods.response.Transaction;
@@ -17,7 +14,12 @@ import pro.belbix.ethparser.dto.v0.HarvestDTO;
 import pro.belbix.ethparser.model.HarvestTx;
 import pro.belbix.ethparser.properties.AppProperties;
 import pro.belbix.ethparser.web3.EthBlockService;
+import pro.belbix.ethparser.web3.GasPriceService;
 import pro.belbix.ethparser.web3.ParserInfo;
+import pro.belbix.ethparser.web3.ParserQueues;
+import pro.belbix.ethparser.web3.ParserRuntime;
+import pro.belbix.ethparser.web3.TransactionCache;
+import pro.belbix.ethparser.web3.TxMethodNameCache;
 import pro.belbix.ethparser.web3.Web3Parser;
 import pro.belbix.ethparser.web3.Web3Service;
 import pro.belbix.ethparser.web3.contracts.ContractUtils;
@@ -28,57 +30,71 @@ import pro.belbix.ethparser.web3.harvest.decoder.HarvestVaultDecoder;
 @Log4j2
 public class HarvestTransactionsParser implements Web3Parser {
 
-    private static final AtomicBoolean run = new AtomicBoolean(true);
     private final HarvestVaultDecoder harvestVaultDecoder = new HarvestVaultDecoder();
     private final Web3Service web3Service;
-    private final BlockingQueue<Transaction> transactions = new ArrayBlockingQueue<>(100);
-    private final BlockingQueue<DtoI> output = new ArrayBlockingQueue<>(100);
+    private final TransactionCache transactionCache;
+    private final BlockingQueue<Transaction> transactions;
+    private final BlockingQueue<DtoI> output;
     private final HarvestDBService harvestDBService;
     private final EthBlockService ethBlockService;
     private final ParserInfo parserInfo;
     private final AppProperties appProperties;
+    private final TxMethodNameCache txMethodNameCache;
+    private final GasPriceService gasPriceService;
+    private final ParserRuntime parserRuntime;
     private long parsedTxCount = 0;
     private Instant lastTx = Instant.now();
 
     public HarvestTransactionsParser(Web3Service web3Service,
                                      HarvestDBService harvestDBService,
                                      EthBlockService ethBlockService, ParserInfo parserInfo,
-                                     AppProperties appProperties) {
+                                     AppProperties appProperties,
+                                     TxMethodNameCache txMethodNameCache,
+                                     GasPriceService gasPriceService,
+                                     TransactionCache transactionCache,
+                                     ParserRuntime parserRuntime,
+                                     ParserQueues parserQueues) {
         this.web3Service = web3Service;
         this.harvestDBService = harvestDBService;
         this.ethBlockService = ethBlockService;
         this.parserInfo = parserInfo;
         this.appProperties = appProperties;
+        this.txMethodNameCache = txMethodNameCache;
+        this.gasPriceService = gasPriceService;
+        this.transactionCache = transactionCache;
+        this.parserRuntime = parserRuntime;
+        this.transactions = parserQueues.create(getClass().getSimpleName() + "-in");
+        this.output = parserQueues.create(getClass().getSimpleName() + "-out");
     }
 
     public void startParse() {
         log.info("Start parse Harvest");
         parserInfo.addParser(this);
         web3Service.subscribeOnTransactions(transactions);
-        new Thread(() -> {
-            while (run.get()) {
-                Transaction transaction = null;
+        parserRuntime.loop(getClass().getSimpleName(), () -> {
+            Transaction transaction = null;
+            try {
+                transaction = transactions.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            HarvestDTO dto = parseHarvestTransaction(transaction);
+            if (dto != null) {
+                lastTx = Instant.now();
                 try {
-                    transaction = transactions.poll(1, TimeUnit.SECONDS);
-                } catch (InterruptedException ignored) {
-                }
-                HarvestDTO dto = parseHarvestTransaction(transaction);
-                if (dto != null) {
-                    lastTx = Instant.now();
-                    try {
-                        boolean success = harvestDBService.saveHarvestDTO(dto);
-                        if (success) {
-                            output.put(dto);
-                        }
-                    } catch (Exception e) {
-                        log.error("Can't save " + dto.toString(), e);
-                        if(appProperties.isStopOnParseError()) {
-                            System.exit(-1);
-                        }
+                    boolean success = harvestDBService.saveHarvestDTO(dto);
+                    if (success) {
+                        output.put(dto);
+                    }
+                } catch (Exception e) {
+                    log.error("Can't save " + dto.toString(), e);
+                    if(appProperties.isStopOnParseError()) {
+                        System.exit(-1);
                     }
                 }
             }
-        }).start();
+        });
     }
 
     HarvestDTO parseHarvestTransaction(Transaction tx) {
@@ -93,7 +109,7 @@ public class HarvestTransactionsParser implements Web3Parser {
         }
 
         HarvestDTO dto = harvestTx.toDto();
-        dto.setLastGas(web3Service.fetchAverageGasPrice());
+        dto.setLastGas(gasPriceService.getGasPrice(tx.getBlockNumber()));
         dto.setBlockDate(ethBlockService.getTimestampSecForBlock(tx.getBlockHash(), tx.getBlockNumber().longValue()));
         print(dto);
         return dto;
@@ -115,7 +131,16 @@ public class HarvestTransactionsParser implements Web3Parser {
             //it is contract deploy
             return false;
         }
-        return ContractUtils.getNameByAddress(tx.getTo().toLowerCase()).isPresent();
+        // the most of txs are not harvest calls, reject them before the contract lookup
+        String methodId = harvestVaultDecoder.findMethodId(tx.getInput());
+        if (methodId == null) {
+            return false;
+        }
+        if (ContractUtils.getNameByAddress(tx.getTo()).isEmpty()) {
+            return false;
+        }
+        txMethodNameCache.put(tx.getHash(), harvestVaultDecoder.getMethodNamesByMethodId().get(methodId));
+        return true;
     }
 
     private HarvestTx decodeTransaction(Transaction tx) {
@@ -133,7 +158,7 @@ public class HarvestTransactionsParser implements Web3Parser {
             if (!harvestTx.isExistenceVault()) {
                 return null;
             }
-            TransactionReceipt transactionReceipt = web3Service.fetchTransactionReceipt(tx.getHash());
+            TransactionReceipt transactionReceipt = transactionCache.getReceipt(tx.getHash());
             if ("0x1".equals(transactionReceipt.getStatus())) {
                 harvestTx.setSuccess(true);
             }
@@ -154,11 +179,6 @@ public class HarvestTransactionsParser implements Web3Parser {
         return output;
     }
 
-    @PreDestroy
-    public void stop() {
-        run.set(false);
-    }
-
     @Override
     public Instant getLastTx() {
         return lastTx;
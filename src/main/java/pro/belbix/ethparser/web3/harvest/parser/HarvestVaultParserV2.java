@@ -13,11 +13,8 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import javax.annotation.PreDestroy;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import org.web3j.abi.datatypes.Address;
@@ -34,7 +31,13 @@ import pro.belbix.ethparser.model.LpStat;
 import pro.belbix.ethparser.properties.AppProperties;
 import pro.belbix.ethparser.web3.EthBlockService;
 import pro.belbix.ethparser.web3.FunctionsUtils;
+import pro.belbix.ethparser.web3.GasPriceService;
+import pro.belbix.ethparser.web3.ParserCursorService;
 import pro.belbix.ethparser.web3.ParserInfo;
+import pro.belbix.ethparser.web3.ParserLanes;
+import pro.belbix.ethparser.web3.ParserQueues;
+import pro.belbix.ethparser.web3.ParserRuntime;
+import pro.belbix.ethparser.web3.TransactionCache;
 import pro.belbix.ethparser.web3.Web3Parser;
 import pro.belbix.ethparser.web3.Web3Service;
 import pro.belbix.ethparser.web3.contracts.ContractConstants;
@@ -50,19 +53,22 @@ import pro.belbix.ethparser.web3.prices.PriceProvider;
 public class HarvestVaultParserV2 implements Web3Parser {
 
     public static final double BURNED_FARM = 14850.0;
-    private static final AtomicBoolean run = new AtomicBoolean(true);
     private static final Set<String> allowedMethods = new HashSet<>(Collections.singletonList("transfer"));
     private final HarvestVaultLogDecoder harvestVaultLogDecoder = new HarvestVaultLogDecoder();
     private final Web3Service web3Service;
-    private final BlockingQueue<Log> logs = new ArrayBlockingQueue<>(100);
-    private final BlockingQueue<DtoI> output = new ArrayBlockingQueue<>(100);
+    private final TransactionCache transactionCache;
+    private final BlockingQueue<Log> logs;
+    private final BlockingQueue<DtoI> output;
     private final HarvestDBService harvestDBService;
     private final EthBlockService ethBlockService;
     private final PriceProvider priceProvider;
     private final FunctionsUtils functionsUtils;
     private final ParserInfo parserInfo;
     private final AppProperties appProperties;
+    private final ParserCursorService parserCursorService;
+    private final GasPriceService gasPriceService;
     private final HarvestOwnerBalanceCalculator harvestOwnerBalanceCalculator;
+    private final ParserRuntime parserRuntime;
     private Instant lastTx = Instant.now();
     private long count = 0;
 
@@ -73,7 +79,12 @@ public class HarvestVaultParserV2 implements Web3Parser {
                                 FunctionsUtils functionsUtils,
                                 ParserInfo parserInfo,
                                 AppProperties appProperties,
-                                HarvestOwnerBalanceCalculator harvestOwnerBalanceCalculator) {
+                                HarvestOwnerBalanceCalculator harvestOwnerBalanceCalculator,
+                                ParserCursorService parserCursorService,
+                                GasPriceService gasPriceService,
+                                TransactionCache transactionCache,
+                                ParserRuntime parserRuntime,
+                                ParserQueues parserQueues) {
         this.web3Service = web3Service;
         this.harvestDBService = harvestDBService;
         this.ethBlockService = ethBlockService;
@@ -81,47 +92,68 @@ public class HarvestVaultParserV2 implements Web3Parser {
         this.functionsUtils = functionsUtils;
         this.parserInfo = parserInfo;
         this.appProperties = appProperties;
+        this.parserCursorService = parserCursorService;
         this.harvestOwnerBalanceCalculator = harvestOwnerBalanceCalculator;
+        this.gasPriceService = gasPriceService;
+        this.transactionCache = transactionCache;
+        this.parserRuntime = parserRuntime;
+        this.logs = parserQueues.create(getClass().getSimpleName() + "-in");
+        this.output = parserQueues.create(getClass().getSimpleName() + "-out");
     }
 
     @Override
     public void startParse() {
         log.info("Start parse Harvest vaults logs");
         parserInfo.addParser(this);
+        parserCursorService.register(this);
         web3Service.subscribeOnLogs(logs);
-        new Thread(() -> {
-            while (run.get()) {
-                Log ethLog = null;
-                try {
-                    ethLog = logs.poll(1, TimeUnit.SECONDS);
-                    count++;
-                    if (count % 100 == 0) {
-                        log.info(this.getClass().getSimpleName() + " handled " + count);
-                    }
-                    HarvestDTO dto = parseVaultLog(ethLog);
-                    handleDto(dto);
-                } catch (Exception e) {
-                    log.error("Can't save " + ethLog, e);
-                    if (appProperties.isStopOnParseError()) {
-                        System.exit(-1);
-                    }
+        ParserLanes lanes = new ParserLanes(this, appProperties.getParserLanes(),
+            ParserLanes::address, this::handleLog, parserRuntime, parserCursorService);
+        lanes.start();
+        parserRuntime.loop(getClass().getSimpleName(), () -> {
+            try {
+                Log ethLog = logs.poll(1, TimeUnit.SECONDS);
+                if (ethLog == null || parserCursorService.isProcessed(this, ethLog)) {
+                    return;
                 }
+                count++;
+                if (count % 100 == 0) {
+                    log.info(this.getClass().getSimpleName() + " handled " + count);
+                }
+                lanes.submit(ethLog);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             }
-        }).start();
+        });
     }
 
-    private void handleDto(HarvestDTO dto) throws InterruptedException {
+    private void handleLog(Log ethLog) {
+        try {
+            HarvestDTO dto = parseVaultLog(ethLog);
+            handleDto(dto, ethLog);
+            parserCursorService.advance(this, ethLog);
+        } catch (Exception e) {
+            log.error("Can't save " + ethLog, e);
+            if (appProperties.isStopOnParseError()) {
+                System.exit(-1);
+            }
+        }
+    }
+
+    private void handleDto(HarvestDTO dto, Log ethLog) throws InterruptedException {
         if (dto != null) {
             lastTx = Instant.now();
             enrichDto(dto);
             harvestOwnerBalanceCalculator.fillBalance(dto);
-            boolean success = harvestDBService.saveHarvestDTO(dto);
+            boolean success = parserCursorService.commit(this, ethLog,
+                () -> harvestDBService.saveHarvestDTO(dto));
 
             if (success) {
                 output.put(dto);
             }
             if (dto.getMigration() != null) {
-                handleDto(dto.getMigration());
+                handleDto(dto.getMigration(), ethLog);
             }
         }
     }
@@ -206,7 +238,7 @@ public class HarvestVaultParserV2 implements Web3Parser {
             harvestTx.setMethodName("Deposit");
             harvestTx.setAmount(harvestTx.getIntFromArgs()[0]);
         } else if ("withdrawn".equals(harvestTx.getMethodName().toLowerCase())) {
-            TransactionReceipt receipt = web3Service.fetchTransactionReceipt(harvestTx.getHash());
+            TransactionReceipt receipt = transactionCache.getReceipt(harvestTx.getHash());
             String owner = receipt.getFrom();
             if (!owner.equals(harvestTx.getOwner())) {
                 return false; //withdrawn for not owner is a garbage
@@ -219,7 +251,7 @@ public class HarvestVaultParserV2 implements Web3Parser {
     }
 
     private boolean parseVaults(HarvestTx harvestTx, Log ethLog) {
-        TransactionReceipt receipt = web3Service.fetchTransactionReceipt(harvestTx.getHash());
+        TransactionReceipt receipt = transactionCache.getReceipt(harvestTx.getHash());
         if (receipt == null) {
             throw new IllegalStateException("Receipt is null for " + harvestTx.getHash());
         }
@@ -320,7 +352,7 @@ public class HarvestVaultParserV2 implements Web3Parser {
 
     public void enrichDto(HarvestDTO dto) {
         //set gas
-        dto.setLastGas(web3Service.fetchAverageGasPrice());
+        dto.setLastGas(gasPriceService.getGasPrice(dto.getBlock()));
     }
 
     private void fillUsdPrice(HarvestDTO dto) {
@@ -435,11 +467,6 @@ public class HarvestVaultParserV2 implements Web3Parser {
         return logs;
     }
 
-    @PreDestroy
-    public void stop() {
-        run.set(false);
-    }
-
     @Override
     public Instant getLastTx() {
         return lastTx;
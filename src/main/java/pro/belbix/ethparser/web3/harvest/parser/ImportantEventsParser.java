@@ -8,10 +8,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigInteger;
 import java.time.Instant;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import org.web3j.protocol.core.methods.response.Log;
@@ -22,7 +20,10 @@ import pro.belbix.ethparser.model.ImportantEventsTx;
 import pro.belbix.ethparser.properties.AppProperties;
 import pro.belbix.ethparser.web3.EthBlockService;
 import pro.belbix.ethparser.web3.FunctionsUtils;
+import pro.belbix.ethparser.web3.ParserCursorService;
 import pro.belbix.ethparser.web3.ParserInfo;
+import pro.belbix.ethparser.web3.ParserQueues;
+import pro.belbix.ethparser.web3.ParserRuntime;
 import pro.belbix.ethparser.web3.Web3Parser;
 import pro.belbix.ethparser.web3.Web3Service;
 import pro.belbix.ethparser.web3.contracts.ContractConstants;
@@ -35,9 +36,8 @@ import pro.belbix.ethparser.web3.harvest.decoder.ImportantEventsLogDecoder;
 public class ImportantEventsParser implements Web3Parser {
 
     public static final String TOKEN_MINTED = "TokenMinted";
-    private static final AtomicBoolean run = new AtomicBoolean(true);
-    private final BlockingQueue<Log> logs = new ArrayBlockingQueue<>(100);
-    private final BlockingQueue<DtoI> output = new ArrayBlockingQueue<>(100);
+    private final BlockingQueue<Log> logs;
+    private final BlockingQueue<DtoI> output;
     private final ImportantEventsLogDecoder importantEventsLogDecoder = new ImportantEventsLogDecoder();
     private final Web3Service web3Service;
     private final ImportantEventsDbService importantEventsDbService;
@@ -45,6 +45,8 @@ public class ImportantEventsParser implements Web3Parser {
     private final EthBlockService ethBlockService;
     private final FunctionsUtils functionsUtils;
     private final AppProperties appProperties;
+    private final ParserCursorService parserCursorService;
+    private final ParserRuntime parserRuntime;
     private Instant lastTx = Instant.now();
 
     public ImportantEventsParser(
@@ -52,13 +54,20 @@ public class ImportantEventsParser implements Web3Parser {
         ImportantEventsDbService importantEventsDbService,
         ParserInfo parserInfo,
         EthBlockService ethBlockService,
-        FunctionsUtils functionsUtils, AppProperties appProperties) {
+        FunctionsUtils functionsUtils, AppProperties appProperties,
+        ParserCursorService parserCursorService,
+                                 ParserRuntime parserRuntime,
+                                 ParserQueues parserQueues) {
         this.web3Service = web3Service;
         this.importantEventsDbService = importantEventsDbService;
         this.parserInfo = parserInfo;
         this.ethBlockService = ethBlockService;
         this.functionsUtils = functionsUtils;
         this.appProperties = appProperties;
+        this.parserCursorService = parserCursorService;
+        this.parserRuntime = parserRuntime;
+        this.logs = parserQueues.create(getClass().getSimpleName() + "-in");
+        this.output = parserQueues.create(getClass().getSimpleName() + "-out");
     }
 
     @Override
@@ -66,27 +75,31 @@ public class ImportantEventsParser implements Web3Parser {
         log.info("Start parse Important Events logs");
         web3Service.subscribeOnLogs(logs);
         parserInfo.addParser(this);
-        new Thread(() -> {
-            while (run.get()) {
-                Log ethLog = null;
-                try {
-                    ethLog = logs.poll(1, TimeUnit.SECONDS);
-                    ImportantEventsDTO dto = parseLog(ethLog);
-                    if (dto != null) {
-                        lastTx = Instant.now();
-                        boolean saved = importantEventsDbService.save(dto);
-                        if (saved) {
-                            output.put(dto);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.error("Can't save " + ethLog, e);
-                    if (appProperties.isStopOnParseError()) {
-                        System.exit(-1);
+        parserCursorService.register(this);
+        parserRuntime.loop(getClass().getSimpleName(), () -> {
+            Log ethLog = null;
+            try {
+                ethLog = logs.poll(1, TimeUnit.SECONDS);
+                if (parserCursorService.isProcessed(this, ethLog)) {
+                    return;
+                }
+                ImportantEventsDTO dto = parseLog(ethLog);
+                if (dto != null) {
+                    lastTx = Instant.now();
+                    boolean saved = parserCursorService.commit(this, ethLog,
+                        () -> importantEventsDbService.save(dto));
+                    if (saved) {
+                        output.put(dto);
                     }
                 }
+                parserCursorService.advance(this, ethLog);
+            } catch (Exception e) {
+                log.error("Can't save " + ethLog, e);
+                if (appProperties.isStopOnParseError()) {
+                    System.exit(-1);
+                }
             }
-        }).start();
+        });
     }
 
     public ImportantEventsDTO parseLog(Log ethLog) {
@@ -11,10 +11,9 @@ import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.time.Instant;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import org.web3j.protocol.core.methods.response.Log;
@@ -22,9 +21,13 @@ import pro.belbix.ethparser.dto.DtoI;
 import pro.belbix.ethparser.dto.v0.RewardDTO;
 import pro.belbix.ethparser.model.HarvestTx;
 import pro.belbix.ethparser.properties.AppProperties;
+import pro.belbix.ethparser.web3.BlockTaskScheduler;
 import pro.belbix.ethparser.web3.EthBlockService;
 import pro.belbix.ethparser.web3.FunctionsUtils;
+import pro.belbix.ethparser.web3.ParserCursorService;
 import pro.belbix.ethparser.web3.ParserInfo;
+import pro.belbix.ethparser.web3.ParserQueues;
+import pro.belbix.ethparser.web3.ParserRuntime;
 import pro.belbix.ethparser.web3.Web3Parser;
 import pro.belbix.ethparser.web3.Web3Service;
 import pro.belbix.ethparser.web3.contracts.ContractConstants;
@@ -36,17 +39,21 @@ import pro.belbix.ethparser.web3.harvest.decoder.HarvestVaultLogDecoder;
 @Log4j2
 public class RewardParser implements Web3Parser {
 
-    private static final AtomicBoolean run = new AtomicBoolean(true);
     private final Set<String> notWaitNewBlock = Set.of("reward-download", "new-strategy-download");
-    private final BlockingQueue<Log> logs = new ArrayBlockingQueue<>(100);
-    private final BlockingQueue<DtoI> output = new ArrayBlockingQueue<>(100);
+    private final BlockingQueue<Log> logs;
+    private final BlockingQueue<DtoI> output;
+    // parked logs whose next block is mined
+    private final BlockingQueue<Log> readyLogs = new LinkedBlockingQueue<>();
     private final HarvestVaultLogDecoder harvestVaultLogDecoder = new HarvestVaultLogDecoder();
     private final FunctionsUtils functionsUtils;
     private final Web3Service web3Service;
     private final EthBlockService ethBlockService;
     private final RewardsDBService rewardsDBService;
     private final AppProperties appProperties;
+    private final ParserCursorService parserCursorService;
     private final ParserInfo parserInfo;
+    private final BlockTaskScheduler blockTaskScheduler;
+    private final ParserRuntime parserRuntime;
     private Instant lastTx = Instant.now();
     private boolean waitNewBlock = true;
 
@@ -54,44 +61,83 @@ public class RewardParser implements Web3Parser {
                         Web3Service web3Service,
                         EthBlockService ethBlockService,
                         RewardsDBService rewardsDBService, AppProperties appProperties,
-                        ParserInfo parserInfo) {
+                        ParserInfo parserInfo,
+                        ParserCursorService parserCursorService,
+                        BlockTaskScheduler blockTaskScheduler,
+                        ParserRuntime parserRuntime,
+                        ParserQueues parserQueues) {
         this.functionsUtils = functionsUtils;
         this.web3Service = web3Service;
         this.ethBlockService = ethBlockService;
         this.rewardsDBService = rewardsDBService;
         this.appProperties = appProperties;
+        this.parserCursorService = parserCursorService;
         this.parserInfo = parserInfo;
+        this.blockTaskScheduler = blockTaskScheduler;
+        this.parserRuntime = parserRuntime;
+        this.logs = parserQueues.create(getClass().getSimpleName() + "-in");
+        this.output = parserQueues.create(getClass().getSimpleName() + "-out");
     }
 
     @Override
     public void startParse() {
         log.info("Start parse Rewards logs");
         parserInfo.addParser(this);
+        parserCursorService.register(this);
         web3Service.subscribeOnLogs(logs);
-        new Thread(() -> {
-            while (run.get()) {
-                Log ethLog = null;
-                try {
+        parserRuntime.loop(getClass().getSimpleName(), () -> {
+            Log ethLog = null;
+            boolean parked = false;
+            try {
+                // parked logs were checked against the cursor before parking
+                ethLog = readyLogs.poll();
+                parked = ethLog != null;
+                if (!parked) {
                     ethLog = logs.poll(1, TimeUnit.SECONDS);
-                    RewardDTO dto = parseLog(ethLog);
-                    if (dto != null) {
-                        lastTx = Instant.now();
-                        boolean saved = rewardsDBService.saveRewardDTO(dto);
-                        if (saved) {
-                            output.put(dto);
-                        }
+                    if (parserCursorService.isProcessed(this, ethLog)) {
+                        return;
                     }
-                } catch (Exception e) {
-                    log.error("Error parse reward from " + ethLog, e);
-                    if (appProperties.isStopOnParseError()) {
-                        System.exit(-1);
+                }
+                HarvestTx tx = decodeRewardAdded(ethLog);
+                if (!parked && tx != null && isNextBlockPending(tx)) {
+                    Log parkedLog = ethLog;
+                    // the cursor doesn't pass the parked log until it is handled
+                    parserCursorService.track(this, parkedLog);
+                    blockTaskScheduler.schedule(tx.getBlock().longValue() + 1, () -> readyLogs.add(parkedLog));
+                    return;
+                }
+                RewardDTO dto = tx == null ? null : parseRewardAdded(tx, ethLog);
+                if (dto != null) {
+                    lastTx = Instant.now();
+                    boolean saved = parserCursorService.commit(this, ethLog,
+                        () -> rewardsDBService.saveRewardDTO(dto));
+                    if (saved) {
+                        output.put(dto);
                     }
                 }
+                parserCursorService.advance(this, ethLog);
+            } catch (Exception e) {
+                log.error("Error parse reward from " + ethLog, e);
+                if (appProperties.isStopOnParseError()) {
+                    System.exit(-1);
+                }
+            } finally {
+                if (parked) {
+                    parserCursorService.release(this, ethLog);
+                }
             }
-        }).start();
+        });
     }
 
-    public RewardDTO parseLog(Log ethLog) throws InterruptedException {
+    public RewardDTO parseLog(Log ethLog) {
+        HarvestTx tx = decodeRewardAdded(ethLog);
+        if (tx == null) {
+            return null;
+        }
+        return parseRewardAdded(tx, ethLog);
+    }
+
+    private HarvestTx decodeRewardAdded(Log ethLog) {
         if (ethLog == null || !ContractUtils.isPoolAddress(ethLog.getAddress())) {
             return null;
         }
@@ -100,14 +146,17 @@ public class RewardParser implements Web3Parser {
         if (tx == null || !"RewardAdded".equals(tx.getMethodName())) {
             return null;
         }
-        if (!notWaitNewBlock.contains(appProperties.getStartUtil())
+        return tx;
+    }
+
+    // values are read on the next block, it can be not mined yet
+    private boolean isNextBlockPending(HarvestTx tx) {
+        return !notWaitNewBlock.contains(appProperties.getStartUtil())
             && waitNewBlock
-            && tx.getBlock().longValue() > ethBlockService.getLastBlock()
-        ) {
-            log.info("Wait new block for correct parsing rewards");
-            Thread.sleep(60 * 1000 * 5); //wait until new block created
-        }
-        //todo if it is the last block it will be not safe, create another logic
+            && !blockTaskScheduler.isReached(tx.getBlock().longValue() + 1);
+    }
+
+    private RewardDTO parseRewardAdded(HarvestTx tx, Log ethLog) {
         long nextBlock = tx.getBlock().longValue() + 1;
         String poolAddress = tx.getVault().getValue();
         long periodFinish = functionsUtils.callIntByName(PERIOD_FINISH, poolAddress, nextBlock)
@@ -6,10 +6,7 @@ import static pro.belbix.ethparser.web3.MethodDecoder.parseAmount;
 import static pro.belbix.ethparser.web3.contracts.ContractConstants.PARSABLE_UNI_PAIRS;
 
 import java.time.Instant;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import org.web3j.tuples.generated.Tuple2;
@@ -21,74 +18,103 @@ import pro.belbix.ethparser.model.LpStat;
 import pro.belbix.ethparser.properties.AppProperties;
 import pro.belbix.ethparser.web3.FunctionsUtils;
 import pro.belbix.ethparser.web3.ParserInfo;
+import pro.belbix.ethparser.web3.ParserQueues;
 import pro.belbix.ethparser.web3.Web3Parser;
 import pro.belbix.ethparser.web3.contracts.ContractType;
 import pro.belbix.ethparser.web3.contracts.ContractUtils;
 import pro.belbix.ethparser.web3.harvest.db.HarvestDBService;
 import pro.belbix.ethparser.web3.prices.PriceProvider;
 
+/**
+ * Harvest deposits and withdraws for liquidity events of our pairs. Runs inside the Uniswap parser,
+ * the converted row is saved in the same transaction as the Uniswap row.
+ */
 @Service
 @Log4j2
 public class UniToHarvestConverter implements Web3Parser {
 
-    private static final AtomicBoolean run = new AtomicBoolean(true);
-    private final BlockingQueue<UniswapDTO> uniswapDTOS = new ArrayBlockingQueue<>(100);
-    private final BlockingQueue<DtoI> output = new ArrayBlockingQueue<>(100);
+    private final BlockingQueue<DtoI> output;
     private final PriceProvider priceProvider;
     private final FunctionsUtils functionsUtils;
     private final HarvestDBService harvestDBService;
     private final ParserInfo parserInfo;
     private final AppProperties appProperties;
+    private volatile boolean enabled = false;
     private Instant lastTx = Instant.now();
 
     public UniToHarvestConverter(PriceProvider priceProvider, FunctionsUtils functionsUtils,
                                  HarvestDBService harvestDBService, ParserInfo parserInfo,
-                                 AppProperties appProperties) {
+                                 AppProperties appProperties,
+                                 ParserQueues parserQueues) {
         this.priceProvider = priceProvider;
         this.functionsUtils = functionsUtils;
         this.harvestDBService = harvestDBService;
         this.parserInfo = parserInfo;
         this.appProperties = appProperties;
+        this.output = parserQueues.create(getClass().getSimpleName() + "-out");
     }
 
     @Override
     public void startParse() {
         log.info("Start UniToHarvestConverter");
         parserInfo.addParser(this);
-        new Thread(() -> {
-            while (run.get()) {
-                UniswapDTO uniswapDTO = null;
-                try {
-                    uniswapDTO = uniswapDTOS.poll(1, TimeUnit.SECONDS);
-                    HarvestDTO dto = convert(uniswapDTO);
-                    if (dto != null) {
-                        lastTx = Instant.now();
-                        boolean success = harvestDBService.saveHarvestDTO(dto);
-                        if (success) {
-                            output.put(dto);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.error("Can't save harvest dto for" + uniswapDTO, e);
-                    if (appProperties.isStopOnParseError()) {
-                        System.exit(-1);
-                    }
-                }
+        enabled = true;
+    }
+
+    /**
+     * @param lpHash pair of the parsed log
+     * @return harvest row for the liquidity event, null if the conversion is off or not needed
+     */
+    public HarvestDTO convertParsed(UniswapDTO uniswapDTO, String lpHash) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            return convert(uniswapDTO, lpHash);
+        } catch (Exception e) {
+            log.error("Can't convert to harvest dto " + uniswapDTO.print(), e);
+            if (appProperties.isStopOnParseError()) {
+                System.exit(-1);
             }
-        }).start();
+        }
+        return null;
+    }
+
+    /**
+     * Should be called in the transaction of the Uniswap row.
+     */
+    public void save(HarvestDTO dto) {
+        lastTx = Instant.now();
+        if (harvestDBService.saveHarvestDTO(dto)) {
+            try {
+                output.put(dto);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
     public HarvestDTO convert(UniswapDTO uniswapDTO) {
         if (uniswapDTO == null || !uniswapDTO.isLiquidity()) {
             return null;
         }
-        String lpHash = ContractUtils.findUniPairForTokens(
-            ContractUtils.getAddressByName(uniswapDTO.getCoin(), ContractType.TOKEN)
-                .orElseThrow(() -> new IllegalStateException("Not found address for " + uniswapDTO.getCoin())),
-            ContractUtils.getAddressByName(uniswapDTO.getOtherCoin(), ContractType.TOKEN)
-                .orElseThrow(() -> new IllegalStateException("Not found address for " + uniswapDTO.getOtherCoin()))
-        );
-        if (!PARSABLE_UNI_PAIRS.contains(lpHash)) {
+        String lpHash = null;
+        if (uniswapDTO.getLp() != null) {
+            lpHash = ContractUtils.getAddressByName(uniswapDTO.getLp(), ContractType.UNI_PAIR).orElse(null);
+        }
+        if (lpHash == null) {
+            lpHash = ContractUtils.findUniPairForTokens(
+                ContractUtils.getAddressByName(uniswapDTO.getCoin(), ContractType.TOKEN)
+                    .orElseThrow(() -> new IllegalStateException("Not found address for " + uniswapDTO.getCoin())),
+                ContractUtils.getAddressByName(uniswapDTO.getOtherCoin(), ContractType.TOKEN)
+                    .orElseThrow(() -> new IllegalStateException("Not found address for " + uniswapDTO.getOtherCoin()))
+            );
+        }
+        return convert(uniswapDTO, lpHash);
+    }
+
+    private HarvestDTO convert(UniswapDTO uniswapDTO, String lpHash) {
+        if (!uniswapDTO.isLiquidity() || !PARSABLE_UNI_PAIRS.contains(lpHash)) {
             return null;
         }
         HarvestDTO harvestDTO = new HarvestDTO();
@@ -178,10 +204,6 @@ public class UniToHarvestConverter implements Web3Parser {
         harvestDTO.setAmount(lpBalance * fraction); //not accurate
     }
 
-    public void addDtoToQueue(UniswapDTO dto) {
-        uniswapDTOS.add(dto);
-    }
-
     @Override
     public BlockingQueue<DtoI> getOutput() {
         return output;
@@ -0,0 +1,293 @@
+package pro.belbix.ethparser.web3.prices;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import pro.belbix.ethparser.dto.v0.PriceDTO;
+import pro.belbix.ethparser.model.TokenPrice;
+import pro.belbix.ethparser.repositories.v0.PriceRepository;
+import pro.belbix.ethparser.web3.contracts.ContractConstants;
+import pro.belbix.ethparser.web3.contracts.ContractUtils;
+
+/**
+ * All saved prices in memory. The table is loaded by a background thread at startup, queries wait for
+ * it. Saved rows are queued without locks and go to the series before the next query, so parsers never
+ * wait for the load or for queries.
+ */
+@Service
+@Log4j2
+public class PriceIndex {
+
+    private static final long LOAD_BATCH_BLOCKS = 100_000;
+    private static final int MAX_DEPTH = 5;
+    public static final int MAX_POINTS = 10_000;
+
+    private Map<String, PriceSeries> seriesBySource = new HashMap<>();
+    // all saved rows in one column for timestamp -> block resolving
+    private PriceSeries timeline = new PriceSeries(null, null);
+    private final Queue<PriceDTO> incoming = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private CompletableFuture<Void> loading;
+    private boolean loaded = false;
+    // rollbacks while the table is loading, applied to the loaded rows
+    private long rollbackBlock = Long.MAX_VALUE;
+
+    private final PriceRepository priceRepository;
+
+    public PriceIndex(PriceRepository priceRepository) {
+        this.priceRepository = priceRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLoad() {
+        load();
+    }
+
+    public void add(PriceDTO dto) {
+        incoming.add(dto);
+        // a busy index takes the row on the next query
+        if (lock.tryLock()) {
+            try {
+                drainIncoming();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes rows of orphaned blocks after a chain reorganization.
+     */
+    public void rollbackAfter(long block) {
+        lock.lock();
+        try {
+            drainIncoming();
+            incoming.removeIf(dto -> dto.getBlock() != null && dto.getBlock() > block);
+            if (!loaded) {
+                rollbackBlock = Math.min(rollbackBlock, block);
+                return;
+            }
+            seriesBySource.values().forEach(series -> series.truncateAfterBlock(block));
+            timeline.truncateAfterBlock(block);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<TokenPrice> pricesByBlocks(List<String> tokens, List<Long> blocks) {
+        load().join();
+        lock.lock();
+        try {
+            drainIncoming();
+            List<TokenPrice> result = new ArrayList<>(tokens.size() * blocks.size());
+            for (String token : tokens) {
+                int first = result.size();
+                try {
+                    for (Long block : blocks) {
+                        result.add(createTokenPrice(token, block, blockDate(block)));
+                    }
+                } catch (IllegalStateException e) {
+                    replaceWithError(result, first, token, e);
+                }
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<TokenPrice> pricesByDates(List<String> tokens, List<Long> dates) {
+        load().join();
+        lock.lock();
+        try {
+            drainIncoming();
+            List<TokenPrice> result = new ArrayList<>(tokens.size() * dates.size());
+            for (String token : tokens) {
+                int first = result.size();
+                try {
+                    for (Long date : dates) {
+                        result.add(createTokenPrice(token, blockByDate(date), date));
+                    }
+                } catch (IllegalStateException e) {
+                    replaceWithError(result, first, token, e);
+                }
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<TokenPrice> history(String token, long start, long end, long step) {
+        load().join();
+        lock.lock();
+        try {
+            drainIncoming();
+            List<TokenPrice> result = new ArrayList<>();
+            for (long bucket = start; bucket <= end; bucket += step) {
+                // close price of the bucket
+                long date = Math.min(bucket + step - 1, end);
+                TokenPrice tokenPrice = createTokenPrice(token, blockByDate(date), date);
+                tokenPrice.setTimestamp(bucket);
+                result.add(tokenPrice);
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // one unresolvable token doesn't fail the whole batch, it gets one entry with the error
+    private static void replaceWithError(List<TokenPrice> result, int first, String token,
+                                         IllegalStateException e) {
+        log.warn("Can't resolve price for {}: {}", token, e.getMessage());
+        result.subList(first, result.size()).clear();
+        TokenPrice tokenPrice = new TokenPrice();
+        tokenPrice.setToken(token);
+        tokenPrice.setError(e.getMessage());
+        result.add(tokenPrice);
+    }
+
+    private TokenPrice createTokenPrice(String token, long block, long date) {
+        TokenPrice tokenPrice = new TokenPrice();
+        tokenPrice.setToken(token);
+        tokenPrice.setBlock(block);
+        tokenPrice.setTimestamp(date);
+        tokenPrice.setPrice(usdPrice(token, block, 0));
+        return tokenPrice;
+    }
+
+    private double usdPrice(String tokenName, long block, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalStateException("Too deep price resolving for " + tokenName);
+        }
+        String name = ContractConstants.simplifyName(tokenName);
+        if (ContractUtils.isStableCoin(name)) {
+            return 1.0;
+        }
+        if (block <= 0 || !ContractUtils.isTokenCreated(name, block)) {
+            return 0.0;
+        }
+        PriceSeries series = seriesBySource.get(ContractUtils.findUniPairNameForTokenName(name, block));
+        if (series == null) {
+            return 0.0;
+        }
+        int i = series.floorByBlock(block);
+        if (i < 0) {
+            return 0.0;
+        }
+        double price = series.priceAt(i);
+        if (name.equalsIgnoreCase(series.getToken())) {
+            return price * usdPrice(series.getOtherToken(), block, depth + 1);
+        } else if (name.equalsIgnoreCase(series.getOtherToken())) {
+            if (price == 0) {
+                return 0.0;
+            }
+            return usdPrice(series.getToken(), block, depth + 1) / price;
+        }
+        throw new IllegalStateException("Wrong source for " + name);
+    }
+
+    private long blockByDate(long date) {
+        int i = timeline.floorByDate(date);
+        if (i < 0) {
+            return 0;
+        }
+        return timeline.blockAt(i);
+    }
+
+    private long blockDate(long block) {
+        int i = timeline.floorByBlock(block);
+        if (i < 0) {
+            return 0;
+        }
+        return timeline.dateAt(i);
+    }
+
+    // under the lock
+    private void drainIncoming() {
+        if (!loaded) {
+            return;
+        }
+        PriceDTO dto;
+        while ((dto = incoming.poll()) != null) {
+            addRow(seriesBySource, timeline, dto);
+        }
+    }
+
+    private static void addRow(Map<String, PriceSeries> seriesBySource, PriceSeries timeline, PriceDTO dto) {
+        if (dto.getBlock() == null || dto.getBlockDate() == null || dto.getPrice() == null) {
+            return;
+        }
+        seriesBySource.computeIfAbsent(dto.getSource(),
+            s -> new PriceSeries(dto.getToken(), dto.getOtherToken()))
+            .add(dto.getBlock(), dto.getBlockDate(), dto.getPrice());
+        timeline.add(dto.getBlock(), dto.getBlockDate(), dto.getPrice());
+    }
+
+    private synchronized CompletableFuture<Void> load() {
+        if (loading == null || loading.isCompletedExceptionally()) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            Thread thread = new Thread(() -> {
+                try {
+                    loadRows();
+                    future.complete(null);
+                } catch (Exception e) {
+                    log.error("Can't load price index", e);
+                    future.completeExceptionally(e);
+                }
+            }, "price-index-load");
+            thread.setDaemon(true);
+            thread.start();
+            loading = future;
+        }
+        return loading;
+    }
+
+    // rows are read without the lock, saved rows wait in the queue until the series are published
+    private void loadRows() {
+        long start = System.currentTimeMillis();
+        lock.lock();
+        try {
+            // this load reads the db after earlier rollbacks
+            rollbackBlock = Long.MAX_VALUE;
+        } finally {
+            lock.unlock();
+        }
+        Map<String, PriceSeries> loadedSeries = new HashMap<>();
+        PriceSeries loadedTimeline = new PriceSeries(null, null);
+        Long minBlock = priceRepository.fetchMinBlock();
+        Long maxBlock = priceRepository.fetchMaxBlock();
+        if (minBlock != null && maxBlock != null) {
+            for (long from = minBlock; from <= maxBlock; from += LOAD_BATCH_BLOCKS) {
+                priceRepository.fetchAllByBlockRange(from, from + LOAD_BATCH_BLOCKS)
+                    .forEach(dto -> addRow(loadedSeries, loadedTimeline, dto));
+            }
+        }
+        lock.lock();
+        try {
+            if (rollbackBlock != Long.MAX_VALUE) {
+                loadedSeries.values().forEach(series -> series.truncateAfterBlock(rollbackBlock));
+                loadedTimeline.truncateAfterBlock(rollbackBlock);
+            }
+            seriesBySource = loadedSeries;
+            timeline = loadedTimeline;
+            loaded = true;
+            drainIncoming();
+            log.info("Price index loaded {} rows for {} sources in {}ms",
+                timeline.size(), seriesBySource.size(), System.currentTimeMillis() - start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -10,7 +10,9 @@ import static pro.belbix.ethparser.web3.contracts.ContractConstants.ZERO_ADDRESS
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.TreeMap;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -29,7 +31,13 @@ import pro.belbix.ethparser.web3.contracts.ContractUtils;
 @Log4j2
 public class PriceProvider {
 
-    private final Map<String, TreeMap<Long, Double>> lastPrices = new HashMap<>();
+    public static final long STALE_PRICE_BLOCKS = 1000;
+    private static final int MAX_REFRESHED_PRICES = 100;
+    private final Map<String, NavigableMap<Long, Double>> lastPrices = new ConcurrentHashMap<>();
+    // prices fetched from the chain in background for tokens without fresh swaps
+    private final Map<String, NavigableMap<Long, Double>> refreshedPrices = new ConcurrentHashMap<>();
+    // the latest block with a stale price by token, the refresh service takes them
+    private final Map<String, Long> staleRequests = new ConcurrentHashMap<>();
     private long updateBlockDifference = 0;
     private final Pageable limitOne = PageRequest.of(0, 1);
 
@@ -177,11 +185,7 @@ public class PriceProvider {
             .orElse(null);
         if (priceDTO == null) {
             log.warn("Saved price not found for " + name + " at block " + block);
-            return getPriceForCoinFromEth(name, block);
-        }
-        if (block - priceDTO.getBlock() > 1000) {
-            log.warn("Price have not updated more then {} for {}", block - priceDTO.getBlock(), name);
-            return getPriceForCoinFromEth(name, block);
+            return getStalePrice(name, block, -1, 0.0);
         }
         if (!priceDTO.getToken().equalsIgnoreCase(name)
             && !priceDTO.getOtherToken().equalsIgnoreCase(name)) {
@@ -189,7 +193,70 @@ public class PriceProvider {
         }
 
         double otherTokenPrice = getPriceForCoin(priceDTO.getOtherToken(), block);
-        return priceDTO.getPrice() * otherTokenPrice;
+        double price = priceDTO.getPrice() * otherTokenPrice;
+        if (block - priceDTO.getBlock() > STALE_PRICE_BLOCKS) {
+            log.warn("Price have not updated more then {} for {}", block - priceDTO.getBlock(), name);
+            return getStalePrice(name, block, priceDTO.getBlock(), price);
+        }
+        return price;
+    }
+
+    /**
+     * With the refresh service parsers don't call the chain, they get the newest local price and the
+     * service refreshes the token at this block in background.
+     */
+    private double getStalePrice(String name, long block, long savedBlock, double savedPrice) {
+        NavigableMap<Long, Double> refreshed = refreshedPrices.get(name);
+        Entry<Long, Double> entry = refreshed == null ? null : refreshed.floorEntry(block);
+        if (entry != null && block - entry.getKey() <= STALE_PRICE_BLOCKS) {
+            return entry.getValue();
+        }
+        if (!appProperties.isRefreshPrices()) {
+            return getPriceForCoinFromEth(name, block);
+        }
+        staleRequests.merge(name, block, Math::max);
+        if (entry != null && entry.getKey() >= savedBlock) {
+            return entry.getValue();
+        }
+        if (savedBlock >= 0) {
+            return savedPrice;
+        }
+        return getLastPrice(name, block);
+    }
+
+    /**
+     * @return tokens with stale prices and the latest block where they were asked, removed from the
+     * requests
+     */
+    public Map<String, Long> takeStaleRequests() {
+        Map<String, Long> result = new HashMap<>();
+        for (String name : staleRequests.keySet()) {
+            Long block = staleRequests.remove(name);
+            if (block != null) {
+                result.put(name, block);
+            }
+        }
+        return result;
+    }
+
+    public boolean hasRefreshedPrice(String name, long block, long maxDifference) {
+        NavigableMap<Long, Double> refreshed = refreshedPrices.get(name);
+        if (refreshed == null) {
+            return false;
+        }
+        Entry<Long, Double> entry = refreshed.floorEntry(block);
+        return entry != null && block - entry.getKey() < maxDifference;
+    }
+
+    public double refreshPrice(String name, long block) {
+        double price = getPriceForCoinFromEth(name, block);
+        NavigableMap<Long, Double> refreshed = refreshedPrices
+            .computeIfAbsent(name, k -> new ConcurrentSkipListMap<>());
+        refreshed.put(block, price);
+        while (refreshed.size() > MAX_REFRESHED_PRICES) {
+            refreshed.pollFirstEntry();
+        }
+        return price;
     }
 
     private double getPriceForCoinFromEth(String name, Long block) {
@@ -232,8 +299,23 @@ public class PriceProvider {
         return price;
     }
 
+    public Map<String, Entry<Long, Double>> latestPrices() {
+        Map<String, Entry<Long, Double>> result = new HashMap<>();
+        lastPrices.forEach((name, prices) -> {
+            Entry<Long, Double> entry = prices.lastEntry();
+            if (entry != null && entry.getValue() != null) {
+                result.put(name, entry);
+            }
+        });
+        return result;
+    }
+
+    public void restorePrice(String name, long block, double price) {
+        savePrice(price, name, block);
+    }
+
     private boolean hasFreshPrice(String name, long block) {
-        TreeMap<Long, Double> lastPriceByBlock = lastPrices.get(name);
+        NavigableMap<Long, Double> lastPriceByBlock = lastPrices.get(name);
         if (lastPriceByBlock == null) {
             return false;
         }
@@ -246,12 +328,13 @@ public class PriceProvider {
     }
 
     private void savePrice(double price, String name, long block) {
-        TreeMap<Long, Double> lastPriceByBlock = lastPrices.computeIfAbsent(name, k -> new TreeMap<>());
+        NavigableMap<Long, Double> lastPriceByBlock =
+            lastPrices.computeIfAbsent(name, k -> new ConcurrentSkipListMap<>());
         lastPriceByBlock.put(block, price);
     }
 
     private double getLastPrice(String name, long block) {
-        TreeMap<Long, Double> lastPriceByBlocks = lastPrices.get(name);
+        NavigableMap<Long, Double> lastPriceByBlocks = lastPrices.get(name);
         if (lastPriceByBlocks == null) {
             return 0.0;
         }
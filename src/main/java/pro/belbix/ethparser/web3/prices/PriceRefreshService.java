@@ -0,0 +1,120 @@
+package pro.belbix.ethparser.web3.prices;
+
+import static pro.belbix.ethparser.utils.Caller.silentCall;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pro.belbix.ethparser.dto.v0.PriceDTO;
+import pro.belbix.ethparser.properties.AppProperties;
+import pro.belbix.ethparser.repositories.v0.PriceRepository;
+import pro.belbix.ethparser.utils.Caller;
+import pro.belbix.ethparser.web3.Web3Service;
+import pro.belbix.ethparser.web3.contracts.ContractUtils;
+
+/**
+ * Keeps prices of quiet key tokens fresh in background, so parsers don't fall back to
+ * the chain calls inside their loops.
+ */
+@Service
+@Log4j2
+public class PriceRefreshService {
+
+    private final Pageable limitOne = PageRequest.of(0, 1);
+    // last block with a price for each key token, saved or refreshed
+    private final Map<String, Long> lastPriceBlocks = new ConcurrentHashMap<>();
+
+    private final PriceProvider priceProvider;
+    private final PriceRepository priceRepository;
+    private final Web3Service web3Service;
+    private final AppProperties appProperties;
+
+    public PriceRefreshService(PriceProvider priceProvider,
+                               PriceRepository priceRepository,
+                               Web3Service web3Service,
+                               AppProperties appProperties) {
+        this.priceProvider = priceProvider;
+        this.priceRepository = priceRepository;
+        this.web3Service = web3Service;
+        this.appProperties = appProperties;
+    }
+
+    @Scheduled(fixedDelay = 60_000, initialDelay = 60_000)
+    public void refresh() {
+        if (!appProperties.isRefreshPrices() || appProperties.isOnlyApi()) {
+            return;
+        }
+        long block = web3Service.fetchCurrentBlock().longValue();
+        if (block == 0) {
+            return;
+        }
+        for (String tokenName : ContractUtils.getAllTokenNamesWithUniPairs()) {
+            try {
+                refreshToken(tokenName, block);
+            } catch (Exception e) {
+                log.warn("Can't refresh price for {} at {}", tokenName, block, e);
+            }
+        }
+    }
+
+    /**
+     * Prices that parsers found stale, at the blocks they parse, backfills need them before the next
+     * regular refresh.
+     */
+    @Scheduled(fixedDelay = 1_000, initialDelay = 60_000)
+    public void refreshRequested() {
+        if (!appProperties.isRefreshPrices() || appProperties.isOnlyApi()) {
+            return;
+        }
+        priceProvider.takeStaleRequests().forEach((tokenName, block) -> {
+            try {
+                long maxDifference = appProperties.getPriceRefreshBlocks();
+                if (priceProvider.hasRefreshedPrice(tokenName, block, maxDifference)) {
+                    return;
+                }
+                double price = priceProvider.refreshPrice(tokenName, block);
+                log.info("Refreshed requested price {} {} at block {}", tokenName, price, block);
+            } catch (Exception e) {
+                log.warn("Can't refresh price for {} at {}", tokenName, block, e);
+            }
+        });
+    }
+
+    private void refreshToken(String tokenName, long block) {
+        if (ContractUtils.isStableCoin(tokenName) || !ContractUtils.isTokenCreated(tokenName, block)) {
+            return;
+        }
+        long staleness = block - lastPriceBlock(tokenName, block);
+        if (staleness < appProperties.getPriceRefreshBlocks()) {
+            return;
+        }
+        if (priceProvider.hasRefreshedPrice(tokenName, block, appProperties.getPriceRefreshBlocks())) {
+            return;
+        }
+        double price = priceProvider.refreshPrice(tokenName, block);
+        lastPriceBlocks.put(tokenName, block);
+        log.info("Refreshed price {} {} at block {}, staleness {}", tokenName, price, block, staleness);
+    }
+
+    private long lastPriceBlock(String tokenName, long block) {
+        long known = lastPriceBlocks.getOrDefault(tokenName, 0L);
+        if (block - known < appProperties.getPriceRefreshBlocks()) {
+            return known;
+        }
+        String lpName = ContractUtils.findUniPairNameForTokenName(tokenName, block);
+        long saved = silentCall(() -> priceRepository.fetchLastPrice(lpName, block, limitOne))
+            .filter(Caller::isFilledList)
+            .map(l -> l.get(0))
+            .map(PriceDTO::getBlock)
+            .orElse(0L);
+        if (saved > known) {
+            lastPriceBlocks.put(tokenName, saved);
+            return saved;
+        }
+        return known;
+    }
+}
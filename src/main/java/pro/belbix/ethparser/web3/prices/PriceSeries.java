@@ -0,0 +1,110 @@
+package pro.belbix.ethparser.web3.prices;
+
+import java.util.Arrays;
+
+/**
+ * Block-ordered price rows of one source kept in parallel primitive arrays.
+ * Not thread safe, synchronization is on the owner side.
+ */
+class PriceSeries {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final String token;
+    private final String otherToken;
+    private long[] blocks = new long[INITIAL_CAPACITY];
+    private long[] dates = new long[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private int size = 0;
+
+    PriceSeries(String token, String otherToken) {
+        this.token = token;
+        this.otherToken = otherToken;
+    }
+
+    void add(long block, long date, double price) {
+        if (contains(block, date, price)) {
+            // a row saved during the load can come from the db and from the saving parser
+            return;
+        }
+        if (size == blocks.length) {
+            int capacity = blocks.length * 2;
+            blocks = Arrays.copyOf(blocks, capacity);
+            dates = Arrays.copyOf(dates, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+        }
+        // rows mostly come in block order, otherwise shift the tail
+        int i = size;
+        while (i > 0 && blocks[i - 1] > block) {
+            i--;
+        }
+        if (i < size) {
+            System.arraycopy(blocks, i, blocks, i + 1, size - i);
+            System.arraycopy(dates, i, dates, i + 1, size - i);
+            System.arraycopy(prices, i, prices, i + 1, size - i);
+        }
+        blocks[i] = block;
+        dates[i] = date;
+        prices[i] = price;
+        size++;
+    }
+
+    private boolean contains(long block, long date, double price) {
+        for (int i = floorByBlock(block); i >= 0 && blocks[i] == block; i--) {
+            if (dates[i] == date && prices[i] == price) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void truncateAfterBlock(long block) {
+        size = floorByBlock(block) + 1;
+    }
+
+    int floorByBlock(long block) {
+        return floor(blocks, block);
+    }
+
+    int floorByDate(long date) {
+        return floor(dates, date);
+    }
+
+    private int floor(long[] column, long key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (column[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    long blockAt(int i) {
+        return blocks[i];
+    }
+
+    long dateAt(int i) {
+        return dates[i];
+    }
+
+    double priceAt(int i) {
+        return prices[i];
+    }
+
+    int size() {
+        return size;
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    String getOtherToken() {
+        return otherToken;
+    }
+}
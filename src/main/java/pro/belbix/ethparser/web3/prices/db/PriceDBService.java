@@ -1,10 +1,18 @@
 package pro.belbix.ethparser.web3.prices.db;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import pro.belbix.ethparser.dto.v0.PriceDTO;
 import pro.belbix.ethparser.properties.AppProperties;
 import pro.belbix.ethparser.repositories.v0.PriceRepository;
+import pro.belbix.ethparser.service.CandleService;
+import pro.belbix.ethparser.web3.prices.PriceIndex;
 
 @Service
 @Log4j2
@@ -12,19 +20,54 @@ public class PriceDBService {
 
     private final PriceRepository priceRepository;
     private final AppProperties appProperties;
+    private final PriceIndex priceIndex;
+    private final CandleService candleService;
+    private final EntityManager entityManager;
 
-    public PriceDBService(PriceRepository priceRepository, AppProperties appProperties) {
+    public PriceDBService(PriceRepository priceRepository, AppProperties appProperties,
+                          PriceIndex priceIndex, CandleService candleService,
+                          EntityManager entityManager) {
         this.priceRepository = priceRepository;
         this.appProperties = appProperties;
+        this.priceIndex = priceIndex;
+        this.candleService = candleService;
+        this.entityManager = entityManager;
     }
 
     public boolean savePriceDto(PriceDTO dto) {
-        if (!appProperties.isOverrideDuplicates() && priceRepository.existsById(dto.getId())) {
+        boolean exists = priceRepository.existsById(dto.getId());
+        if (!appProperties.isOverrideDuplicates() && exists) {
             log.warn("Duplicate Price entry " + dto.getId());
             return false;
         }
         priceRepository.save(dto);
+        priceIndex.add(dto);
+        // an overridden price is already in candles
+        if (!exists) {
+            candleService.addTrade(dto.getSource(), dto.getBlockDate(), dto.getPrice(), dto.getTokenAmount());
+        }
         return true;
     }
 
+    /**
+     * Bulk save for downloaders. Existing rows are found by one query and overridden, new rows are
+     * persisted, so hibernate inserts them by jdbc batches without a select for each.
+     */
+    @Transactional
+    public void saveAll(List<PriceDTO> dtos) {
+        if (dtos.isEmpty()) {
+            return;
+        }
+        Set<String> existing = new HashSet<>();
+        priceRepository.findAllById(dtos.stream().map(PriceDTO::getId).collect(Collectors.toList()))
+            .forEach(dto -> existing.add(dto.getId()));
+        for (PriceDTO dto : dtos) {
+            if (existing.contains(dto.getId())) {
+                entityManager.merge(dto);
+            } else {
+                entityManager.persist(dto);
+            }
+        }
+    }
+
 }
@@ -1,22 +1,35 @@
 package pro.belbix.ethparser.web3.prices.downloader;
 
 import static java.util.Collections.singletonList;
+import static pro.belbix.ethparser.web3.FunctionsNames.TOTAL_SUPPLY;
+import static pro.belbix.ethparser.web3.MethodDecoder.parseAmount;
 import static pro.belbix.ethparser.web3.contracts.ContractConstants.PARSABLE_UNI_PAIRS;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.web3j.protocol.core.methods.response.EthLog.LogResult;
 import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.tuples.generated.Tuple2;
 import pro.belbix.ethparser.dto.v0.PriceDTO;
-import pro.belbix.ethparser.repositories.v0.PriceRepository;
+import pro.belbix.ethparser.entity.v0.DownloadCheckpointEntity;
+import pro.belbix.ethparser.repositories.v0.DownloadCheckpointRepository;
 import pro.belbix.ethparser.utils.LoopUtils;
+import pro.belbix.ethparser.web3.FunctionsUtils;
 import pro.belbix.ethparser.web3.Web3Service;
 import pro.belbix.ethparser.web3.contracts.ContractType;
 import pro.belbix.ethparser.web3.contracts.ContractUtils;
+import pro.belbix.ethparser.web3.prices.db.PriceDBService;
 import pro.belbix.ethparser.web3.prices.parser.PriceLogParser;
 
 @Service
@@ -24,9 +37,15 @@ import pro.belbix.ethparser.web3.prices.parser.PriceLogParser;
 @SuppressWarnings("rawtypes")
 public class PriceDownloader {
 
+    private static final String DOWNLOADER_NAME = "price";
+    private static final int LOGS_BATCH = 1000;
+    private static final int CHUNK_ATTEMPTS = 3;
+
     private final Web3Service web3Service;
-    private final PriceRepository priceRepository;
+    private final PriceDBService priceDBService;
     private final PriceLogParser priceLogParser;
+    private final FunctionsUtils functionsUtils;
+    private final DownloadCheckpointRepository checkpointRepository;
 
     @Value("${price-download.contracts:}")
     private String[] contractNames;
@@ -34,13 +53,21 @@ public class PriceDownloader {
     private Integer from;
     @Value("${price-download.to:}")
     private Integer to;
+    @Value("${price-download.threads:1}")
+    private int threads;
+    @Value("${price-download.chunk:100000}")
+    private int chunk;
 
     public PriceDownloader(Web3Service web3Service,
-                           PriceRepository priceRepository,
-                           PriceLogParser priceLogParser) {
+                           PriceDBService priceDBService,
+                           PriceLogParser priceLogParser,
+                           FunctionsUtils functionsUtils,
+                           DownloadCheckpointRepository checkpointRepository) {
         this.web3Service = web3Service;
-        this.priceRepository = priceRepository;
+        this.priceDBService = priceDBService;
         this.priceLogParser = priceLogParser;
+        this.functionsUtils = functionsUtils;
+        this.checkpointRepository = checkpointRepository;
     }
 
     public void start() {
@@ -51,6 +78,10 @@ public class PriceDownloader {
                 .collect(Collectors.toSet())
                 .toArray(contractNames);
         }
+        if (threads > 1) {
+            startParallel();
+            return;
+        }
         for (String contractName : contractNames) {
             String contractHash = ContractUtils.getAddressByName(contractName, ContractType.UNI_PAIR)
                 .orElseThrow(() -> new IllegalStateException("Not found hash for " + contractName));
@@ -72,7 +103,7 @@ public class PriceDownloader {
                     result.add(dto);
                 }
                 if (result.size() > 100) {
-                    priceRepository.saveAll(result);
+                    priceDBService.saveAll(result);
                     result.clear();
                     log.info("Saved a bunch, last " + dto);
                 }
@@ -81,6 +112,143 @@ public class PriceDownloader {
                 break;
             }
         }
-        priceRepository.saveAll(result);
+        priceDBService.saveAll(result);
+    }
+
+    // ************ PARALLEL MODE **************************
+
+    private void startParallel() {
+        if (from == null) {
+            log.error("From parameter is required for parallel mode");
+            return;
+        }
+        long lastBlock = to != null ? to : web3Service.fetchCurrentBlock().longValue();
+        List<DownloadCheckpointEntity> chunks = new ArrayList<>();
+        for (String contractName : contractNames) {
+            for (long chunkStart = from; chunkStart <= lastBlock; chunkStart += chunk) {
+                DownloadCheckpointEntity checkpoint =
+                    findOrCreateCheckpoint(contractName, chunkStart, Math.min(chunkStart + chunk - 1, lastBlock));
+                if (!checkpoint.isDone()) {
+                    chunks.add(checkpoint);
+                }
+            }
+        }
+        log.info("Price download started {} chunks in {} threads", chunks.size(), threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int attempt = 1; !chunks.isEmpty(); attempt++) {
+                if (attempt > CHUNK_ATTEMPTS) {
+                    throw new IllegalStateException("Price download failed for " + chunks.size()
+                        + " chunks, the next run will continue them");
+                }
+                chunks = downloadChunks(executor, chunks);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("Price download completed");
+    }
+
+    // the last chunk grows with the chain while the end is not set, so it is found by the start only
+    private DownloadCheckpointEntity findOrCreateCheckpoint(String contractName, long chunkStart, long chunkEnd) {
+        String id = DOWNLOADER_NAME + "_" + contractName + "_" + chunkStart;
+        DownloadCheckpointEntity checkpoint = checkpointRepository.findById(id).orElseGet(() -> {
+            DownloadCheckpointEntity created = new DownloadCheckpointEntity();
+            created.setId(id);
+            created.setDownloader(DOWNLOADER_NAME);
+            created.setContract(contractName);
+            created.setChunkStart(chunkStart);
+            created.setChunkEnd(chunkEnd);
+            return created;
+        });
+        if (checkpoint.getChunkEnd() < chunkEnd) {
+            checkpoint.setChunkEnd(chunkEnd);
+            checkpoint.setDone(false);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * @return failed chunks
+     */
+    private List<DownloadCheckpointEntity> downloadChunks(ExecutorService executor,
+                                                          List<DownloadCheckpointEntity> chunks) {
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (DownloadCheckpointEntity checkpoint : chunks) {
+            results.add(executor.submit(() -> downloadChunk(checkpoint)));
+        }
+        List<DownloadCheckpointEntity> failed = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            try {
+                if (!results.get(i).get()) {
+                    failed.add(chunks.get(i));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Price download interrupted", e);
+            } catch (ExecutionException e) {
+                log.error("Price chunk failed {}", chunks.get(i).getId(), e);
+                failed.add(chunks.get(i));
+            }
+        }
+        return failed;
+    }
+
+    private boolean downloadChunk(DownloadCheckpointEntity checkpoint) {
+        Thread.currentThread().setName("price-download " + checkpoint.getContract() + " " + checkpoint.getChunkStart());
+        String contractHash = ContractUtils.getAddressByName(checkpoint.getContract(), ContractType.UNI_PAIR)
+            .orElseThrow(() -> new IllegalStateException("Not found hash for " + checkpoint.getContract()));
+        // similar prices are skipped by the state of this chunk only, the result doesn't depend on other chunks
+        Map<String, PriceDTO> lastPrices = new HashMap<>();
+        long start = checkpoint.getLastBlock() != null ? checkpoint.getLastBlock() + 1 : checkpoint.getChunkStart();
+        try {
+            while (start <= checkpoint.getChunkEnd()) {
+                long end = Math.min(start + LOGS_BATCH - 1, checkpoint.getChunkEnd());
+                parseBatch(start, end, contractHash, lastPrices);
+                checkpoint.setLastBlock(end);
+                checkpoint.setDone(end >= checkpoint.getChunkEnd());
+                checkpointRepository.save(checkpoint);
+                start = end + 1;
+            }
+            log.info("Price chunk completed {}", checkpoint.getId());
+            return true;
+        } catch (Exception e) {
+            // checkpoint keeps the last successful block, the retry will continue from it
+            log.error("Price chunk failed {} on block {}", checkpoint.getId(), start, e);
+            return false;
+        }
+    }
+
+    private void parseBatch(long start, long end, String contractHash, Map<String, PriceDTO> lastPrices) {
+        List<LogResult> logResults = web3Service.fetchContractLogs(
+            singletonList(contractHash), (int) start, (int) end);
+        if (logResults == null || logResults.isEmpty()) {
+            return;
+        }
+        List<PriceDTO> dtos = new ArrayList<>();
+        for (LogResult logResult : logResults) {
+            PriceDTO dto = priceLogParser.parseWithoutLpStats((Log) logResult.get(), lastPrices);
+            if (dto != null) {
+                dtos.add(dto);
+            }
+        }
+        if (dtos.isEmpty()) {
+            return;
+        }
+        List<Long> blocks = dtos.stream()
+            .map(PriceDTO::getBlock)
+            .distinct()
+            .collect(Collectors.toList());
+        Map<Long, Tuple2<Double, Double>> reserves = functionsUtils.callReservesBatch(contractHash, blocks);
+        Map<Long, BigInteger> supplies = functionsUtils.callIntByNameBatch(TOTAL_SUPPLY, contractHash, blocks);
+        for (PriceDTO dto : dtos) {
+            BigInteger supply = supplies.get(dto.getBlock());
+            if (supply == null) {
+                throw new IllegalStateException("Error get supply from " + contractHash + " at " + dto.getBlock());
+            }
+            PriceLogParser.fillLpStats(dto, reserves.get(dto.getBlock()), parseAmount(supply, contractHash));
+        }
+        priceDBService.saveAll(dtos);
+        log.info("Saved {} prices for {} {}-{}", dtos.size(), contractHash, start, end);
     }
 }
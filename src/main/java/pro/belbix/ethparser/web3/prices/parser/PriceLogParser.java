@@ -5,12 +5,10 @@ import static pro.belbix.ethparser.web3.MethodDecoder.parseAmount;
 
 import java.math.BigInteger;
 import java.time.Instant;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import org.web3j.protocol.core.methods.response.Log;
@@ -21,7 +19,10 @@ import pro.belbix.ethparser.model.PriceTx;
 import pro.belbix.ethparser.properties.AppProperties;
 import pro.belbix.ethparser.web3.EthBlockService;
 import pro.belbix.ethparser.web3.FunctionsUtils;
+import pro.belbix.ethparser.web3.ParserCursorService;
 import pro.belbix.ethparser.web3.ParserInfo;
+import pro.belbix.ethparser.web3.ParserQueues;
+import pro.belbix.ethparser.web3.ParserRuntime;
 import pro.belbix.ethparser.web3.Web3Parser;
 import pro.belbix.ethparser.web3.Web3Service;
 import pro.belbix.ethparser.web3.contracts.ContractType;
@@ -33,68 +34,100 @@ import pro.belbix.ethparser.web3.prices.decoder.PriceDecoder;
 @Log4j2
 public class PriceLogParser implements Web3Parser {
 
-    private static final AtomicBoolean run = new AtomicBoolean(true);
     private final PriceDecoder priceDecoder = new PriceDecoder();
-    private final BlockingQueue<Log> logs = new ArrayBlockingQueue<>(100);
-    private final BlockingQueue<DtoI> output = new ArrayBlockingQueue<>(100);
+    private final BlockingQueue<Log> logs;
+    private final BlockingQueue<DtoI> output;
     private final Web3Service web3Service;
     private final EthBlockService ethBlockService;
     private final ParserInfo parserInfo;
     private final PriceDBService priceDBService;
     private final AppProperties appProperties;
+    private final ParserCursorService parserCursorService;
     private final FunctionsUtils functionsUtils;
+    private final ParserRuntime parserRuntime;
     private Instant lastTx = Instant.now();
     private long count = 0;
-    private final Map<String, PriceDTO> lastPrices = new HashMap<>();
+    private final Map<String, PriceDTO> lastPrices = new ConcurrentHashMap<>();
 
     public PriceLogParser(Web3Service web3Service,
                           EthBlockService ethBlockService,
                           ParserInfo parserInfo,
                           PriceDBService priceDBService,
                           AppProperties appProperties,
-                          FunctionsUtils functionsUtils) {
+                          FunctionsUtils functionsUtils,
+                          ParserCursorService parserCursorService,
+                          ParserRuntime parserRuntime,
+                          ParserQueues parserQueues) {
         this.web3Service = web3Service;
         this.ethBlockService = ethBlockService;
         this.parserInfo = parserInfo;
         this.priceDBService = priceDBService;
         this.appProperties = appProperties;
+        this.parserCursorService = parserCursorService;
         this.functionsUtils = functionsUtils;
+        this.parserRuntime = parserRuntime;
+        this.logs = parserQueues.create(getClass().getSimpleName() + "-in");
+        this.output = parserQueues.create(getClass().getSimpleName() + "-out");
     }
 
     @Override
     public void startParse() {
         log.info("Start parse Price logs");
         parserInfo.addParser(this);
+        parserCursorService.register(this);
         web3Service.subscribeOnLogs(logs);
-        new Thread(() -> {
-            while (run.get()) {
-                Log ethLog = null;
-                try {
-                    ethLog = logs.poll(1, TimeUnit.SECONDS);
-                    count++;
-                    if (count % 100 == 0) {
-                        log.info(this.getClass().getSimpleName() + " handled " + count);
-                    }
-                    PriceDTO dto = parse(ethLog);
-                    if (dto != null) {
-                        lastTx = Instant.now();
-                        boolean success = priceDBService.savePriceDto(dto);
-                        if (success) {
-                            output.put(dto);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.error("Error price parser loop " + ethLog, e);
-                    if (appProperties.isStopOnParseError()) {
-                        System.exit(-1);
+        parserRuntime.loop(getClass().getSimpleName(), () -> {
+            Log ethLog = null;
+            try {
+                ethLog = logs.poll(1, TimeUnit.SECONDS);
+                if (parserCursorService.isProcessed(this, ethLog)) {
+                    return;
+                }
+                count++;
+                if (count % 100 == 0) {
+                    log.info(this.getClass().getSimpleName() + " handled " + count);
+                }
+                PriceDTO dto = parse(ethLog);
+                if (dto != null) {
+                    lastTx = Instant.now();
+                    boolean success = parserCursorService.commit(this, ethLog,
+                        () -> priceDBService.savePriceDto(dto));
+                    if (success) {
+                        output.put(dto);
                     }
                 }
+                parserCursorService.advance(this, ethLog);
+            } catch (Exception e) {
+                log.error("Error price parser loop " + ethLog, e);
+                if (appProperties.isStopOnParseError()) {
+                    System.exit(-1);
+                }
             }
-        }).start();
+        });
     }
 
     // keep this parsing lightweight as more as possible
     public PriceDTO parse(Log ethLog) {
+        PriceDTO dto = parseWithoutLpStats(ethLog);
+        if (dto == null) {
+            return null;
+        }
+        // for lpToken price we should know staked amounts
+        fillLpStats(dto);
+        log.info(dto.print());
+        return dto;
+    }
+
+    // lp stats should be filled by caller, useful for batch calls
+    public PriceDTO parseWithoutLpStats(Log ethLog) {
+        return parseWithoutLpStats(ethLog, lastPrices);
+    }
+
+    /**
+     * @param lastPrices the last price by token for skipping similar, every concurrent caller should
+     *                   have its own
+     */
+    public PriceDTO parseWithoutLpStats(Log ethLog, Map<String, PriceDTO> lastPrices) {
         PriceTx tx = priceDecoder.decode(ethLog);
 
         if (tx == null) {
@@ -117,15 +150,11 @@ public class PriceLogParser implements Web3Parser {
 
         fillAmountsAndPrice(dto, tx, keyCoinFirst, buy);
 
-        if (appProperties.isSkipSimilarPrices() && skipSimilar(dto)) {
+        if (appProperties.isSkipSimilarPrices() && skipSimilar(dto, lastPrices)) {
             return null;
         }
 
-        // for lpToken price we should know staked amounts
-        fillLpStats(dto);
-
         dto.setBlockDate(ethBlockService.getTimestampSecForBlock(tx.getBlockHash(), tx.getBlock().longValue()));
-        log.info(dto.print());
         return dto;
     }
 
@@ -137,12 +166,19 @@ public class PriceLogParser implements Web3Parser {
             functionsUtils.callIntByName(TOTAL_SUPPLY, lpAddress, dto.getBlock())
                 .orElseThrow(() -> new IllegalStateException("Error get supply from " + lpAddress)),
             lpAddress);
+        fillLpStats(dto, lpPooled, lpBalance);
+    }
+
+    public static void fillLpStats(PriceDTO dto, Tuple2<Double, Double> lpPooled, double lpBalance) {
+        if (lpPooled == null) {
+            throw new IllegalStateException("Can't reach reserves for " + dto.getSource());
+        }
         dto.setLpTotalSupply(lpBalance);
         dto.setLpToken0Pooled(lpPooled.component1());
         dto.setLpToken1Pooled(lpPooled.component2());
     }
 
-    private boolean skipSimilar(PriceDTO dto) {
+    private static boolean skipSimilar(PriceDTO dto, Map<String, PriceDTO> lastPrices) {
         PriceDTO lastPrice = lastPrices.get(dto.getToken());
         if (lastPrice != null && lastPrice.getBlock().equals(dto.getBlock())) {
             return true;
@@ -0,0 +1,113 @@
+package pro.belbix.ethparser.web3.uniswap;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import pro.belbix.ethparser.dto.v0.UniswapDTO;
+
+/**
+ * FARM position and the last USD balance of each owner, updated by saved swaps. Holders are owners
+ * whose last balance is more than {@link #HOLDER_MIN_USD}.
+ */
+final class OwnerPositions {
+
+    static final double HOLDER_MIN_USD = 10;
+    private final Map<String, Owner> owners = new HashMap<>();
+    private final Set<String> headIds = new HashSet<>();
+    private long headBlockDate = 0;
+    private int holders = 0;
+
+    void loadPosition(String owner, double position) {
+        owner(owner).position = position;
+    }
+
+    void loadLastRow(String owner, long blockDate, Double balanceUsd) {
+        updateLast(owner(owner), blockDate, balanceUsd);
+    }
+
+    void loadHead(long blockDate, Iterable<String> ids) {
+        headBlockDate = blockDate;
+        headIds.clear();
+        ids.forEach(headIds::add);
+    }
+
+    /**
+     * @return true if nothing after this row is applied, so the state is the state before it
+     */
+    boolean isBefore(String id, long blockDate) {
+        return blockDate > headBlockDate
+            || (blockDate == headBlockDate && !headIds.contains(id));
+    }
+
+    boolean isHead(long blockDate) {
+        return blockDate >= headBlockDate;
+    }
+
+    double position(String owner) {
+        Owner state = owners.get(owner);
+        return state == null ? 0 : state.position;
+    }
+
+    int holders() {
+        return holders;
+    }
+
+    /**
+     * @param old previous version of the row if it is overridden
+     */
+    void apply(UniswapDTO old, UniswapDTO dto) {
+        if (old != null && old.getOwner() != null) {
+            owner(old.getOwner()).position -= delta(old);
+        }
+        long blockDate = dto.getBlockDate();
+        if (dto.getOwner() != null) {
+            Owner owner = owner(dto.getOwner());
+            owner.position += delta(dto);
+            if (blockDate >= owner.lastBlockDate) {
+                updateLast(owner, blockDate, dto.getOwnerBalanceUsd());
+            }
+        }
+        if (blockDate > headBlockDate) {
+            headBlockDate = blockDate;
+            headIds.clear();
+        }
+        if (blockDate == headBlockDate) {
+            headIds.add(dto.getId());
+        }
+    }
+
+    private void updateLast(Owner owner, long blockDate, Double balanceUsd) {
+        holders += (isHolder(balanceUsd) ? 1 : 0) - (isHolder(owner.lastBalanceUsd) ? 1 : 0);
+        owner.lastBlockDate = blockDate;
+        owner.lastBalanceUsd = balanceUsd;
+    }
+
+    private Owner owner(String owner) {
+        return owners.computeIfAbsent(owner, o -> new Owner());
+    }
+
+    private static boolean isHolder(Double balanceUsd) {
+        return balanceUsd != null && balanceUsd > HOLDER_MIN_USD;
+    }
+
+    private static double delta(UniswapDTO dto) {
+        if (!"FARM".equals(dto.getCoin())) {
+            return 0;
+        }
+        if (dto.isBuy()) {
+            return dto.getAmount();
+        }
+        if (dto.isSell()) {
+            return -dto.getAmount();
+        }
+        return 0;
+    }
+
+    private static class Owner {
+
+        private double position = 0;
+        private long lastBlockDate = 0;
+        private Double lastBalanceUsd;
+    }
+}
@@ -21,12 +21,15 @@ public class UniOwnerBalanceCalculator {
     private final FunctionsUtils functionsUtils;
     private final PriceProvider priceProvider;
     private final UniswapRepository uniswapRepository;
+    private final UniOwnerPositions uniOwnerPositions;
 
     public UniOwnerBalanceCalculator(FunctionsUtils functionsUtils, PriceProvider priceProvider,
-                                     UniswapRepository uniswapRepository) {
+                                     UniswapRepository uniswapRepository,
+                                     UniOwnerPositions uniOwnerPositions) {
         this.functionsUtils = functionsUtils;
         this.priceProvider = priceProvider;
         this.uniswapRepository = uniswapRepository;
+        this.uniOwnerPositions = uniOwnerPositions;
     }
 
     public boolean fillBalance(UniswapDTO dto) {
@@ -76,6 +79,22 @@ public class UniOwnerBalanceCalculator {
     }
 
     private boolean balanceForFarm(UniswapDTO dto) {
+        Double balance = uniOwnerPositions.balanceBefore(dto);
+        if (balance == null) {
+            balance = balanceFromDb(dto);
+        }
+        if (dto.isBuy()) {
+            balance += dto.getAmount();
+        }
+        if (dto.isSell()) {
+            balance -= dto.getAmount();
+        }
+        dto.setOwnerBalance(balance);
+        dto.setOwnerBalanceUsd(balance * dto.getLastPrice());
+        return true;
+    }
+
+    private double balanceFromDb(UniswapDTO dto) {
         List<UniswapDTO> txs = uniswapRepository.fetchAllByOwner(dto.getOwner(), 0, dto.getBlockDate());
         double balance = 0;
         for (UniswapDTO oldTx : txs) {
@@ -89,14 +108,6 @@ public class UniOwnerBalanceCalculator {
                 balance -= oldTx.getAmount();
             }
         }
-        if (dto.isBuy()) {
-            balance += dto.getAmount();
-        }
-        if (dto.isSell()) {
-            balance -= dto.getAmount();
-        }
-        dto.setOwnerBalance(balance);
-        dto.setOwnerBalanceUsd(balance * dto.getLastPrice());
-        return true;
+        return balance;
     }
 }
@@ -0,0 +1,89 @@
+package pro.belbix.ethparser.web3.uniswap;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import pro.belbix.ethparser.dto.v0.UniswapDTO;
+import pro.belbix.ethparser.repositories.v0.UniswapRepository;
+
+/**
+ * Owner FARM positions and the holders count kept up to date by saved swaps. The state is loaded from
+ * the db on the first call and answers only for the newest rows, older rows are calculated by the db.
+ */
+@Service
+@Log4j2
+public class UniOwnerPositions {
+
+    private final UniswapRepository uniswapRepository;
+    private OwnerPositions positions = new OwnerPositions();
+    private boolean loaded = false;
+
+    public UniOwnerPositions(UniswapRepository uniswapRepository) {
+        this.uniswapRepository = uniswapRepository;
+    }
+
+    /**
+     * @return FARM balance of the owner before this swap, null if newer swaps are already saved
+     */
+    public synchronized Double balanceBefore(UniswapDTO dto) {
+        load();
+        if (!positions.isBefore(dto.getId(), dto.getBlockDate())) {
+            return null;
+        }
+        return positions.position(dto.getOwner());
+    }
+
+    /**
+     * @return holders count at the block date, null if newer swaps are already saved
+     */
+    public synchronized Integer ownerCount(long blockDate) {
+        load();
+        if (!positions.isHead(blockDate)) {
+            return null;
+        }
+        return positions.holders();
+    }
+
+    /**
+     * @param old previous version of the row if it is overridden
+     */
+    public synchronized void onSave(UniswapDTO old, UniswapDTO dto) {
+        if (!loaded) {
+            // will be loaded from the db with this row
+            return;
+        }
+        positions.apply(old, dto);
+    }
+
+    /**
+     * Forgets the state, it will be loaded from the db again, used after a chain reorganization.
+     */
+    public synchronized void invalidate() {
+        positions = new OwnerPositions();
+        loaded = false;
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        for (Object[] row : uniswapRepository.fetchFarmPositions()) {
+            if (row[0] != null && row[1] != null) {
+                positions.loadPosition((String) row[0], ((Number) row[1]).doubleValue());
+            }
+        }
+        for (Object[] row : uniswapRepository.fetchLastOwnerRows()) {
+            if (row[0] != null && row[1] != null) {
+                positions.loadLastRow((String) row[0], ((Number) row[1]).longValue(),
+                    row[2] == null ? null : ((Number) row[2]).doubleValue());
+            }
+        }
+        Long head = uniswapRepository.fetchLastBlockDate();
+        if (head != null) {
+            positions.loadHead(head, uniswapRepository.fetchIdsByBlockDate(head));
+        }
+        loaded = true;
+        log.info("Uni owner positions loaded in {}ms, holders {}",
+            System.currentTimeMillis() - start, positions.holders());
+    }
+}
@@ -10,6 +10,8 @@ import org.springframework.stereotype.Service;
 import pro.belbix.ethparser.dto.v0.UniswapDTO;
 import pro.belbix.ethparser.properties.AppProperties;
 import pro.belbix.ethparser.repositories.v0.UniswapRepository;
+import pro.belbix.ethparser.service.CandleService;
+import pro.belbix.ethparser.web3.uniswap.UniOwnerPositions;
 
 @Service
 @Log4j2
@@ -18,22 +20,34 @@ public class UniswapDbService {
     private final UniswapRepository uniswapRepository;
     private final AppProperties appProperties;
     private final IncomeDBService incomeDBService;
+    private final CandleService candleService;
+    private final UniOwnerPositions uniOwnerPositions;
 
     public UniswapDbService(UniswapRepository uniswapRepository,
                             AppProperties appProperties,
-                            IncomeDBService incomeDBService) {
+                            IncomeDBService incomeDBService,
+                            CandleService candleService,
+                            UniOwnerPositions uniOwnerPositions) {
         this.uniswapRepository = uniswapRepository;
         this.appProperties = appProperties;
         this.incomeDBService = incomeDBService;
+        this.candleService = candleService;
+        this.uniOwnerPositions = uniOwnerPositions;
     }
 
     public boolean saveUniswapDto(UniswapDTO dto) {
-        if (!appProperties.isOverrideDuplicates() && uniswapRepository.existsById(dto.getId())) {
-            log.warn("Duplicate tx " + dto.getId());
-            return false;
+        UniswapDTO old = null;
+        if (!appProperties.isOverrideDuplicates()) {
+            if (uniswapRepository.existsById(dto.getId())) {
+                log.warn("Duplicate tx " + dto.getId());
+                return false;
+            }
+        } else {
+            old = uniswapRepository.findById(dto.getId()).orElse(null);
         }
         uniswapRepository.save(dto);
         uniswapRepository.flush();
+        uniOwnerPositions.onSave(old, dto);
 
         fillOwnersCount(dto);
         uniswapRepository.save(dto);
@@ -42,11 +56,18 @@ public class UniswapDbService {
         if (incomeDBService.saveIncome(dto)) {
             uniswapRepository.save(dto);
         }
+        // an overridden trade is already in candles
+        if (!dto.isLiquidity() && old == null) {
+            candleService.addTrade(dto.getCoin(), dto.getBlockDate(), dto.getLastPrice(), dto.getAmount());
+        }
         return true;
     }
 
     public void fillOwnersCount(UniswapDTO dto) {
-        Integer ownerCount = uniswapRepository.fetchOwnerCount(dto.getBlockDate());
+        Integer ownerCount = uniOwnerPositions.ownerCount(dto.getBlockDate());
+        if (ownerCount == null) {
+            ownerCount = uniswapRepository.fetchOwnerCount(dto.getBlockDate());
+        }
         if (ownerCount == null) {
             ownerCount = 0;
         }
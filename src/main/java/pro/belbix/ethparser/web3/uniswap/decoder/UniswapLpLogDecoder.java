@@ -44,7 +44,7 @@ public class UniswapLpLogDecoder extends MethodDecoder {
             throw new IllegalStateException("Not found parameters for topic " + topic0 + " with " + methodId);
         }
 
-        List<Type> types = extractLogIndexedValues(log, parameters);
+        List<Type> types = extractLogValues(log, methodId);
         tx.setHash(log.getTransactionHash());
         tx.setLogId(log.getLogIndex().longValue());
         tx.setBlock(log.getBlockNumber());
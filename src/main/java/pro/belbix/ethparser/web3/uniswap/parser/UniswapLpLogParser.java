@@ -1,21 +1,25 @@
 package pro.belbix.ethparser.web3.uniswap.parser;
 
 import java.time.Instant;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import javax.annotation.PreDestroy;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import org.web3j.protocol.core.methods.response.Log;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
 import pro.belbix.ethparser.dto.DtoI;
+import pro.belbix.ethparser.dto.v0.HarvestDTO;
 import pro.belbix.ethparser.dto.v0.UniswapDTO;
 import pro.belbix.ethparser.model.UniswapTx;
 import pro.belbix.ethparser.properties.AppProperties;
 import pro.belbix.ethparser.web3.EthBlockService;
+import pro.belbix.ethparser.web3.GasPriceService;
+import pro.belbix.ethparser.web3.ParserCursorService;
 import pro.belbix.ethparser.web3.ParserInfo;
+import pro.belbix.ethparser.web3.ParserLanes;
+import pro.belbix.ethparser.web3.ParserQueues;
+import pro.belbix.ethparser.web3.ParserRuntime;
+import pro.belbix.ethparser.web3.TransactionCache;
 import pro.belbix.ethparser.web3.Web3Parser;
 import pro.belbix.ethparser.web3.Web3Service;
 import pro.belbix.ethparser.web3.harvest.parser.UniToHarvestConverter;
@@ -28,11 +32,11 @@ import pro.belbix.ethparser.web3.uniswap.decoder.UniswapLpLogDecoder;
 @Log4j2
 public class UniswapLpLogParser implements Web3Parser {
 
-    private static final AtomicBoolean run = new AtomicBoolean(true);
     private final UniswapLpLogDecoder uniswapLpLogDecoder = new UniswapLpLogDecoder();
     private final Web3Service web3Service;
-    private final BlockingQueue<Log> logs = new ArrayBlockingQueue<>(100);
-    private final BlockingQueue<DtoI> output = new ArrayBlockingQueue<>(100);
+    private final TransactionCache transactionCache;
+    private final BlockingQueue<Log> logs;
+    private final BlockingQueue<DtoI> output;
     private final UniswapDbService uniswapDbService;
     private final EthBlockService ethBlockService;
     private final PriceProvider priceProvider;
@@ -40,6 +44,9 @@ public class UniswapLpLogParser implements Web3Parser {
     private final ParserInfo parserInfo;
     private final UniOwnerBalanceCalculator uniOwnerBalanceCalculator;
     private final AppProperties appProperties;
+    private final ParserCursorService parserCursorService;
+    private final GasPriceService gasPriceService;
+    private final ParserRuntime parserRuntime;
     private Instant lastTx = Instant.now();
     private long count = 0;
 
@@ -50,7 +57,12 @@ public class UniswapLpLogParser implements Web3Parser {
                               UniToHarvestConverter uniToHarvestConverter,
                               ParserInfo parserInfo,
                               UniOwnerBalanceCalculator uniOwnerBalanceCalculator,
-                              AppProperties appProperties) {
+                              AppProperties appProperties,
+                              ParserCursorService parserCursorService,
+                              GasPriceService gasPriceService,
+                              TransactionCache transactionCache,
+                              ParserRuntime parserRuntime,
+                              ParserQueues parserQueues) {
         this.web3Service = web3Service;
         this.uniswapDbService = uniswapDbService;
         this.ethBlockService = ethBlockService;
@@ -59,41 +71,70 @@ public class UniswapLpLogParser implements Web3Parser {
         this.parserInfo = parserInfo;
         this.uniOwnerBalanceCalculator = uniOwnerBalanceCalculator;
         this.appProperties = appProperties;
+        this.parserCursorService = parserCursorService;
+        this.gasPriceService = gasPriceService;
+        this.transactionCache = transactionCache;
+        this.parserRuntime = parserRuntime;
+        this.logs = parserQueues.create(getClass().getSimpleName() + "-in");
+        this.output = parserQueues.create(getClass().getSimpleName() + "-out");
     }
 
     @Override
     public void startParse() {
         log.info("Start parse Uniswap logs");
         parserInfo.addParser(this);
+        parserCursorService.register(this);
         web3Service.subscribeOnLogs(logs);
-        new Thread(() -> {
-            while (run.get()) {
-                Log ethLog = null;
-                try {
-                    ethLog = logs.poll(1, TimeUnit.SECONDS);
-                    count++;
-                    if (count % 100 == 0) {
-                        log.info(this.getClass().getSimpleName() + " handled " + count);
-                    }
-                    UniswapDTO dto = parseUniswapLog(ethLog);
-                    if (dto != null) {
-                        lastTx = Instant.now();
-                        enrichDto(dto);
-                        uniOwnerBalanceCalculator.fillBalance(dto);
-                        uniToHarvestConverter.addDtoToQueue(dto);
-                        boolean success = uniswapDbService.saveUniswapDto(dto);
-                        if (success) {
-                            output.put(dto);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.error("Error uniswap parser loop " + ethLog, e);
-                    if (appProperties.isStopOnParseError()) {
-                        System.exit(-1);
-                    }
+        ParserLanes lanes = new ParserLanes(this, appProperties.getParserLanes(),
+            ParserLanes::address, this::handleLog, parserRuntime, parserCursorService);
+        lanes.start();
+        parserRuntime.loop(getClass().getSimpleName(), () -> {
+            try {
+                Log ethLog = logs.poll(1, TimeUnit.SECONDS);
+                if (ethLog == null || parserCursorService.isProcessed(this, ethLog)) {
+                    return;
                 }
+                count++;
+                if (count % 100 == 0) {
+                    log.info(this.getClass().getSimpleName() + " handled " + count);
+                }
+                lanes.submit(ethLog);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        });
+    }
+
+    private void handleLog(Log ethLog) {
+        try {
+            UniswapDTO dto = parseUniswapLog(ethLog);
+            if (dto != null) {
+                lastTx = Instant.now();
+                enrichDto(dto);
+                uniOwnerBalanceCalculator.fillBalance(dto);
+                HarvestDTO harvestDTO = uniToHarvestConverter.convertParsed(dto, ethLog.getAddress());
+                boolean success = parserCursorService.commit(this, ethLog,
+                    () -> save(dto, harvestDTO));
+                if (success) {
+                    output.put(dto);
+                }
+            }
+            parserCursorService.advance(this, ethLog);
+        } catch (Exception e) {
+            log.error("Error uniswap parser loop " + ethLog, e);
+            if (appProperties.isStopOnParseError()) {
+                System.exit(-1);
             }
-        }).start();
+        }
+    }
+
+    private boolean save(UniswapDTO dto, HarvestDTO harvestDTO) {
+        boolean saved = uniswapDbService.saveUniswapDto(dto);
+        if (saved && harvestDTO != null) {
+            uniToHarvestConverter.save(harvestDTO);
+        }
+        return saved;
     }
 
     public UniswapDTO parseUniswapLog(Log ethLog) {
@@ -106,7 +147,7 @@ public class UniswapLpLogParser implements Web3Parser {
         UniswapDTO dto = tx.toDto();
 
         //enrich owner
-        TransactionReceipt receipt = web3Service.fetchTransactionReceipt(dto.getHash());
+        TransactionReceipt receipt = transactionCache.getReceipt(dto.getHash());
         dto.setOwner(receipt.getFrom());
 
         //enrich date
@@ -128,7 +169,7 @@ public class UniswapLpLogParser implements Web3Parser {
     }
 
     private void enrichDto(UniswapDTO dto) {
-        dto.setLastGas(web3Service.fetchAverageGasPrice());
+        dto.setLastGas(gasPriceService.getGasPrice(dto.getBlock()));
     }
 
     @Override
@@ -136,11 +177,6 @@ public class UniswapLpLogParser implements Web3Parser {
         return output;
     }
 
-    @PreDestroy
-    public void stop() {
-        run.set(false);
-    }
-
     @Override
     public Instant getLastTx() {
         return lastTx;
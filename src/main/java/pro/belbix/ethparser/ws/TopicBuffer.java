@@ -0,0 +1,78 @@
+package pro.belbix.ethparser.ws;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Messages of one topic waiting for the next send window. When the buffer is full the oldest message
+ * is dropped. With a coalescing key only the latest message for each key is kept.
+ */
+final class TopicBuffer {
+
+    private final int maxSize;
+    private final Function<Object, String> coalesceKey;
+    private final Deque<Object> pending = new ArrayDeque<>();
+    private final Map<String, Object> latest = new LinkedHashMap<>();
+    private long dropped = 0;
+
+    TopicBuffer(int maxSize, Function<Object, String> coalesceKey) {
+        this.maxSize = maxSize;
+        this.coalesceKey = coalesceKey;
+    }
+
+    synchronized void add(Object message) {
+        String key = coalesceKey == null ? null : coalesceKey.apply(message);
+        if (key != null) {
+            // re-insert to keep the order of the last updates
+            latest.remove(key);
+            latest.put(key, message);
+        } else {
+            pending.addLast(message);
+        }
+        if (size() > maxSize) {
+            dropOldest();
+        }
+    }
+
+    /**
+     * @return all waiting messages, the buffer becomes empty
+     */
+    synchronized List<Object> take() {
+        List<Object> messages = new ArrayList<>(size());
+        messages.addAll(pending);
+        messages.addAll(latest.values());
+        pending.clear();
+        latest.clear();
+        return messages;
+    }
+
+    /**
+     * @return count of dropped messages since the last call
+     */
+    synchronized long takeDropped() {
+        long result = dropped;
+        dropped = 0;
+        return result;
+    }
+
+    synchronized int size() {
+        return pending.size() + latest.size();
+    }
+
+    private void dropOldest() {
+        if (!pending.isEmpty()) {
+            pending.pollFirst();
+        } else {
+            Iterator<Object> it = latest.values().iterator();
+            it.next();
+            it.remove();
+        }
+        dropped++;
+    }
+}
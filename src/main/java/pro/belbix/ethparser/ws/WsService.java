@@ -1,9 +1,34 @@
 package pro.belbix.ethparser.ws;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import pro.belbix.ethparser.dto.DtoI;
+import pro.belbix.ethparser.dto.v0.PriceDTO;
+import pro.belbix.ethparser.properties.AppProperties;
+import pro.belbix.ethparser.web3.ParserRuntime;
 
+/**
+ * Messages are collected per topic and sent by one worker in short windows, so parsers never wait
+ * for slow clients. Each message is serialized once and the same bytes go to all subscribers.
+ */
 @Service
+@Log4j2
 public class WsService {
 
     public final static String UNI_TRANSACTIONS_TOPIC_NAME = "/topic/transactions";
@@ -16,12 +41,101 @@ public class WsService {
     public final static String DEPLOYER_TRANSACTIONS_TOPIC_NAME = "/topic/transactions/deployer";
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final AppProperties appProperties;
+    private final ParserRuntime parserRuntime;
+    private final Map<String, TopicBuffer> buffers = new ConcurrentHashMap<>();
+    private final List<Source> sources = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
 
-    public WsService(SimpMessagingTemplate messagingTemplate) {
+    public WsService(SimpMessagingTemplate messagingTemplate,
+                     ObjectMapper objectMapper,
+                     AppProperties appProperties,
+                     ParserRuntime parserRuntime) {
         this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.appProperties = appProperties;
+        this.parserRuntime = parserRuntime;
     }
 
     public void send(String destination, Object o) {
-        messagingTemplate.convertAndSend(destination, o);
+        buffers.computeIfAbsent(destination, this::newBuffer).add(o);
+        start();
+    }
+
+    /**
+     * Moves parser results to the topic, without a topic results are just consumed.
+     */
+    public void forward(String destination, BlockingQueue<DtoI> output) {
+        sources.add(new Source(destination, output));
+        start();
+    }
+
+    private void start() {
+        if (started.compareAndSet(false, true)) {
+            parserRuntime.loop("ws-fanout", this::flush);
+        }
+    }
+
+    private void flush() {
+        List<DtoI> drained = new ArrayList<>();
+        for (Source source : sources) {
+            source.output.drainTo(drained);
+            if (source.destination != null) {
+                drained.forEach(dto -> send(source.destination, dto));
+            }
+            drained.clear();
+        }
+        buffers.forEach((destination, buffer) -> {
+            for (Object message : buffer.take()) {
+                publish(destination, message);
+            }
+            long dropped = buffer.takeDropped();
+            if (dropped > 0) {
+                log.warn("Dropped {} messages for {}", dropped, destination);
+            }
+        });
+        try {
+            //noinspection BusyWait
+            Thread.sleep(appProperties.getWsBatchMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publish(String destination, Object message) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            log.error("Can't serialize message for " + destination, e);
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        MessageHeaders headers = accessor.getMessageHeaders();
+        messagingTemplate.send(destination, MessageBuilder.createMessage(payload, headers));
+        log.debug("Sent to ws {} {}", destination, message);
+    }
+
+    private TopicBuffer newBuffer(String destination) {
+        Function<Object, String> coalesceKey = null;
+        if (PRICES_TOPIC_NAME.equals(destination) && appProperties.isWsCoalescePrices()) {
+            // a client needs only the last price of each source
+            coalesceKey = o -> o instanceof PriceDTO ? ((PriceDTO) o).getSource() : null;
+        }
+        return new TopicBuffer(appProperties.getWsTopicBuffer(), coalesceKey);
+    }
+
+    private static class Source {
+
+        private final String destination;
+        private final BlockingQueue<DtoI> output;
+
+        Source(String destination, BlockingQueue<DtoI> output) {
+            this.destination = destination;
+            this.output = output;
+        }
     }
 }
@@ -0,0 +1,48 @@
+package pro.belbix.ethparser.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import pro.belbix.ethparser.entity.v0.CandleEntity;
+
+public class CandleRingTest {
+
+    @Test
+    public void ringEvictsOldestTest() {
+        CandleRing ring = new CandleRing(3);
+        for (long ts = 60; ts <= 300; ts += 60) {
+            ring.add(candle(ts));
+        }
+        assertFalse(ring.add(candle(120)));
+        assertNull(ring.find(60));
+        assertNull(ring.find(120));
+        assertNotNull(ring.find(180));
+        assertNotNull(ring.find(300));
+        assertEquals(2, ring.range(200, 1000).size());
+        assertEquals(3, ring.range(0, 1000).size());
+    }
+
+    @Test
+    public void truncateTest() {
+        CandleRing ring = new CandleRing(3);
+        for (long ts = 60; ts <= 300; ts += 60) {
+            ring.add(candle(ts));
+        }
+        ring.truncateFrom(240);
+        assertNotNull(ring.find(180));
+        assertNull(ring.find(240));
+        assertEquals(1, ring.range(0, 1000).size());
+        assertTrue(ring.add(candle(240)));
+        assertEquals(2, ring.range(0, 1000).size());
+    }
+
+    private static CandleEntity candle(long timestamp) {
+        CandleEntity candle = new CandleEntity();
+        candle.setTimestamp(timestamp);
+        return candle;
+    }
+}
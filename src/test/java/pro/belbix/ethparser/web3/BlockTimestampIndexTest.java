@@ -0,0 +1,27 @@
+package pro.belbix.ethparser.web3;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class BlockTimestampIndexTest {
+
+    @Test
+    public void putAndGetTest() {
+        BlockTimestampIndex index = new BlockTimestampIndex();
+        index.put(11_000_000L, 1603000000L);
+        index.put(11_000_001L, 4_000_000_000L);
+        assertEquals(1603000000L, index.get(11_000_000L));
+        assertEquals(4_000_000_000L, index.get(11_000_001L));
+        assertEquals(0, index.get(11_000_002L));
+        assertEquals(0, index.get(12_000_000L));
+    }
+
+    @Test
+    public void segmentBoundsTest() {
+        long first = BlockTimestampIndex.firstBlockOf(BlockTimestampIndex.segmentOf(11_000_000L));
+        assertEquals(BlockTimestampIndex.segmentOf(11_000_000L), BlockTimestampIndex.segmentOf(first));
+        assertEquals(BlockTimestampIndex.segmentOf(first) + 1,
+            BlockTimestampIndex.segmentOf(first + BlockTimestampIndex.SEGMENT_SIZE));
+    }
+}
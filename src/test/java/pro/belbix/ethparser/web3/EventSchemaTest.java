@@ -0,0 +1,81 @@
+package pro.belbix.ethparser.web3;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.protocol.core.methods.response.Log;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class EventSchemaTest {
+
+    @Test
+    public void transferTest() throws ClassNotFoundException {
+        List<TypeReference<Type>> parameters = Arrays.asList(
+            TypeReference.makeTypeReference("address", true, false),
+            TypeReference.makeTypeReference("address", true, false),
+            TypeReference.makeTypeReference("uint256")
+        );
+        Log log = new Log();
+        log.setTopics(Arrays.asList(
+            "0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef",
+            "0x0000000000000000000000000000000000000000000000000000000000000000",
+            "0x000000000000000000000000843002b1d545ef7abb71c716e6179570582faa40"
+        ));
+        log.setData("0x00000000000000000000000000000000000000000000000df0dbc17c67b8c800");
+        assertSameDecoding(parameters, log);
+    }
+
+    @Test
+    public void swapTest() throws ClassNotFoundException {
+        List<TypeReference<Type>> parameters = Arrays.asList(
+            TypeReference.makeTypeReference("address", true, false),
+            TypeReference.makeTypeReference("uint256"),
+            TypeReference.makeTypeReference("uint256"),
+            TypeReference.makeTypeReference("uint256"),
+            TypeReference.makeTypeReference("uint256"),
+            TypeReference.makeTypeReference("address", true, false)
+        );
+        Log log = new Log();
+        log.setTopics(Arrays.asList(
+            "0xd78ad95fa46c994b6551d0da85fc275fe613ce37657fb8d5e3d130840159d822",
+            "0x0000000000000000000000007a250d5630b4cf539739df2c5dacb4c659f2488d",
+            "0x000000000000000000000000a2f1b4d5d8b1f8e2b2a3e0f4d9c9c8b7a6a5a4a3"
+        ));
+        log.setData("0x"
+            + "0000000000000000000000000000000000000000000000000000000000000000"
+            + "00000000000000000000000000000000000000000000000000000000773594f9"
+            + "00000000000000000000000000000000000000000000000429d069189e0000ff"
+            + "0000000000000000000000000000000000000000000000000000000000000000");
+        assertSameDecoding(parameters, log);
+    }
+
+    @Test
+    public void syncTest() throws ClassNotFoundException {
+        List<TypeReference<Type>> parameters = Arrays.asList(
+            TypeReference.makeTypeReference("uint112"),
+            TypeReference.makeTypeReference("uint112")
+        );
+        Log log = new Log();
+        log.setTopics(Arrays.asList(
+            "0x1c411e9a96e071241c2f21f7726b17ae89e3cab4c78be50e062b03a9fffbbad1"
+        ));
+        log.setData("0x"
+            + "00000000000000000000000000000000000000000000002a7c1e1c9b1b2d3c4e"
+            + "0000000000000000000000000000000000000000000000000000001d1a94a200");
+        assertSameDecoding(parameters, log);
+    }
+
+    private static void assertSameDecoding(List<TypeReference<Type>> parameters, Log log) {
+        List<Type> expected = MethodDecoder.extractLogIndexedValues(log, parameters);
+        List<Type> actual = new EventSchema(parameters).decode(log);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getClass(), actual.get(i).getClass());
+            assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+        }
+    }
+}
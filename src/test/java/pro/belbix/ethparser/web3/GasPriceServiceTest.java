@@ -0,0 +1,43 @@
+package pro.belbix.ethparser.web3;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionHash;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionResult;
+import org.web3j.protocol.core.methods.response.Transaction;
+
+public class GasPriceServiceTest {
+
+    @Test
+    public void medianTest() {
+        assertEquals(0.0, GasPriceService.median(List.of()), 0.0);
+        assertEquals(20.0, GasPriceService.median(List.of(tx(30), tx(10), tx(20))), 0.0);
+        assertEquals(25.0, GasPriceService.median(List.of(tx(40), tx(10), tx(30), tx(20))), 0.0);
+        // txs without a price are skipped
+        assertEquals(15.0, GasPriceService.median(List.of(tx(10), tx(20), new Transaction())), 0.0);
+    }
+
+    @Test
+    public void sampleHashesTest() {
+        List<TransactionResult> transactions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            transactions.add(new TransactionHash("0x" + i));
+        }
+        List<String> hashes = GasPriceService.sampleHashes(transactions, 25);
+        assertEquals(25, hashes.size());
+        assertEquals("0x0", hashes.get(0));
+        assertEquals("0x4", hashes.get(1));
+        assertEquals("0x96", hashes.get(24));
+        assertEquals(3, GasPriceService.sampleHashes(transactions.subList(0, 3), 25).size());
+        assertEquals(0, GasPriceService.sampleHashes(List.of(), 25).size());
+    }
+
+    private static Transaction tx(long gwei) {
+        Transaction tx = new Transaction();
+        tx.setGasPrice("0x" + Long.toHexString(gwei * 1_000_000_000L));
+        return tx;
+    }
+}
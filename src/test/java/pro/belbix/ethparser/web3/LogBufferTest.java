@@ -0,0 +1,112 @@
+package pro.belbix.ethparser.web3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.junit.Test;
+import org.web3j.protocol.core.methods.response.Log;
+
+public class LogBufferTest {
+
+    @Test
+    public void dispatchBeforeEndTest() {
+        BlockingQueue<Log> queue = new ArrayBlockingQueue<>(100);
+        LogBuffer buffer = new LogBuffer(List.of(queue), logs -> logs.forEach(queue::add), 10_000);
+
+        // 2 logs per block, the block goes to the queue when the next one starts
+        for (long block = 1; block <= 10; block++) {
+            buffer.add(log(block));
+            buffer.add(log(block));
+        }
+        assertEquals(18, queue.size());
+        assertEquals(2, buffer.buffered());
+
+        // parsers are behind, blocks wait for the room
+        for (long block = 11; block <= 60; block++) {
+            buffer.add(log(block));
+            buffer.add(log(block));
+        }
+        assertEquals(100, queue.size());
+        assertEquals(20, buffer.buffered());
+
+        queue.clear();
+        buffer.add(log(61));
+        assertEquals(20, queue.size());
+        assertEquals(1, buffer.buffered());
+
+        queue.clear();
+        buffer.finish();
+        assertEquals(1, queue.size());
+        assertEquals(0, buffer.buffered());
+    }
+
+    @Test
+    public void bigBlockTest() {
+        BlockingQueue<Log> queue = new ArrayBlockingQueue<>(100);
+        List<Log> dispatched = new ArrayList<>();
+        LogBuffer buffer = new LogBuffer(List.of(queue), dispatched::addAll, 10_000);
+        for (int i = 0; i < 150; i++) {
+            buffer.add(log(1));
+        }
+        buffer.add(log(2));
+        // bigger than the queue, but it is empty and parsers will take the rest
+        assertEquals(150, dispatched.size());
+    }
+
+    @Test
+    public void boundedTest() throws InterruptedException {
+        BlockingQueue<Log> queue = new ArrayBlockingQueue<>(100);
+        AtomicLong parsed = new AtomicLong();
+        Thread parser = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    if (queue.poll(1, TimeUnit.SECONDS) != null) {
+                        parsed.incrementAndGet();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        parser.start();
+        Consumer<List<Log>> dispatcher = logs -> {
+            for (Log ethLog : logs) {
+                try {
+                    queue.put(ethLog);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        LogBuffer buffer = new LogBuffer(List.of(queue), dispatcher, 500);
+        int max = 0;
+        for (long block = 1; block <= 10_000; block++) {
+            buffer.add(log(block));
+            max = Math.max(max, buffer.buffered());
+        }
+        buffer.finish();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (parsed.get() < 10_000 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        parser.interrupt();
+        parser.join();
+
+        assertTrue("Buffered " + max, max <= 500);
+        assertEquals(10_000, parsed.get());
+    }
+
+    private static Log log(long block) {
+        Log ethLog = new Log();
+        ethLog.setBlockNumber("0x" + BigInteger.valueOf(block).toString(16));
+        return ethLog;
+    }
+}
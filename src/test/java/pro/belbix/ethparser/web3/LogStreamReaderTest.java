@@ -0,0 +1,54 @@
+package pro.belbix.ethparser.web3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.web3j.protocol.core.methods.response.Log;
+
+public class LogStreamReaderTest {
+
+    private static final String LOG = "{"
+        + "\"address\":\"0xA0b86991c6218b36c1d19D4a2e9Eb0cE3606eB48\","
+        + "\"topics\":[\"0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef\"],"
+        + "\"data\":\"0x00000000000000000000000000000000000000000000000000000000000003e8\","
+        + "\"blockNumber\":\"0xb1c4a0\","
+        + "\"transactionHash\":\"0x5c504ed432cb51138bcf09aa5e8a410dd4a1e204ef84bfed1be16dfba1b22060\","
+        + "\"transactionIndex\":\"0x1\","
+        + "\"blockHash\":\"0x1d59ff54b1eb26b013ce3cb5fc9dab3705b415a67127a003c3e61eb445bb8df2\","
+        + "\"logIndex\":\"0x2\","
+        + "\"removed\":false"
+        + "}";
+
+    @Test
+    public void readLogsTest() throws IOException {
+        String body = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":[" + LOG + "," + LOG + "]}";
+        List<Log> logs = new ArrayList<>();
+        long count = LogStreamReader.read(stream(body), logs::add);
+
+        assertEquals(2, count);
+        assertEquals(2, logs.size());
+        Log first = logs.get(0);
+        assertEquals("0xa0b86991c6218b36c1d19d4a2e9eb0ce3606eb48", first.getAddress());
+        assertEquals(11650208L, first.getBlockNumber().longValue());
+        assertEquals(2L, first.getLogIndex().longValue());
+        assertSame(first.getTransactionHash(), logs.get(1).getTransactionHash());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void readErrorTest() throws IOException {
+        String body = "{\"jsonrpc\":\"2.0\",\"id\":1,"
+            + "\"error\":{\"code\":-32005,\"message\":\"query returned more than 10000 results\"}}";
+        LogStreamReader.read(stream(body), l -> {
+        });
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,81 @@
+package pro.belbix.ethparser.web3;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.junit.Test;
+import org.web3j.utils.Numeric;
+
+public class LogsBloomFilterTest {
+
+    private static final String VAULT = "0xab7fa2b2985bccfc13c6d86b1d5a17486ab1e04c";
+    private static final String OTHER = "0xc02aaa39b223fe8d0a0e5c4f27ead9083c756cc2";
+    private static final String EMPTY_BLOOM = Numeric.toHexString(new byte[256]);
+    private static final String HOLDER = "0x3f5ce5fbfe3e9af3971dd833d26ba9b5c936f0be";
+    private static final String DEPOSIT = "0xe1fffcc4923d04b559f4d29a8bfc6cda04eb5b0d3c460751c2402c5c5cc9109c";
+    // built apart from this code with a reference keccak by the yellow paper rules, for a block
+    // with the vault Deposit(HOLDER) and Transfer(0x0, HOLDER) logs, USDC Transfer(HOLDER, VAULT)
+    // and a USDT transfer between other accounts
+    private static final String BLOCK_BLOOM = "0x"
+        + "0000000000000400001000000000000000000000000000000000000000000000"
+        + "0000000000000000000003000000010000000000000000000000000000000000"
+        + "0000000000000008080000080000000000000000000000000000000080000000"
+        + "0000000002000000000040000000080000000000000000000200001000000000"
+        + "0000000000000000000000200000000200000001010000000000000000100000"
+        + "0000000000002000000000800000000000000000000400000000000200000000"
+        + "0000000200000000000000000000000000000000000000000000000000002000"
+        + "0000000000000000000004000000200004000000000000400000100000000000";
+
+    @Test
+    public void addressInBloomTest() {
+        LogsBloomFilter filter = new LogsBloomFilter(List.of(VAULT), List.of());
+        assertTrue(filter.mightContain(bloomOf(VAULT)));
+        assertFalse(filter.mightContain(bloomOf(OTHER)));
+        assertFalse(filter.mightContain(EMPTY_BLOOM));
+    }
+
+    @Test
+    public void topicInBloomTest() {
+        String topic = LogsBloomFilter.addressTopic(VAULT);
+        LogsBloomFilter filter = new LogsBloomFilter(List.of(), List.of(topic));
+        assertTrue(filter.mightContain(bloomOf(topic)));
+        assertFalse(filter.mightContain(bloomOf(VAULT)));
+    }
+
+    @Test
+    public void blockBloomTest() {
+        assertTrue(new LogsBloomFilter(List.of(VAULT), List.of()).mightContain(BLOCK_BLOOM));
+        assertTrue(new LogsBloomFilter(List.of(), List.of(DEPOSIT)).mightContain(BLOCK_BLOOM));
+        assertTrue(new LogsBloomFilter(List.of(), List.of(LogsBloomFilter.addressTopic(HOLDER)))
+            .mightContain(BLOCK_BLOOM));
+        assertFalse(new LogsBloomFilter(List.of(OTHER), List.of()).mightContain(BLOCK_BLOOM));
+        // the holder is only a topic, not a log address
+        assertFalse(new LogsBloomFilter(List.of(HOLDER), List.of()).mightContain(BLOCK_BLOOM));
+        assertFalse(new LogsBloomFilter(List.of(), List.of(LogsBloomFilter.addressTopic(OTHER)))
+            .mightContain(BLOCK_BLOOM));
+    }
+
+    @Test
+    public void bitsTest() {
+        // keccak256 of empty input is c5d2 4601 86f7..., bits 1490, 1537 and 1783
+        int[] bits = LogsBloomFilter.bits(new byte[0]);
+        assertArrayEquals(new int[]{69, 1 << 2, 63, 1 << 1, 33, 1 << 7}, bits);
+    }
+
+    @Test
+    public void withoutBloomTest() {
+        LogsBloomFilter filter = new LogsBloomFilter(List.of(VAULT), List.of());
+        assertTrue(filter.mightContain(null));
+    }
+
+    private static String bloomOf(String value) {
+        byte[] bloom = new byte[256];
+        int[] bits = LogsBloomFilter.bits(Numeric.hexStringToByteArray(value));
+        for (int i = 0; i < bits.length; i += 2) {
+            bloom[bits[i]] |= bits[i + 1];
+        }
+        return Numeric.toHexString(bloom);
+    }
+}
@@ -0,0 +1,45 @@
+package pro.belbix.ethparser.web3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class MeteredQueueTest {
+
+    @Test
+    public void timeoutsAndRejectsTest() throws InterruptedException {
+        MeteredQueue<Integer> queue = new MeteredQueue<>("test", "log", new ArrayBlockingQueue<>(2));
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertFalse(queue.offer(3, 1, TimeUnit.MILLISECONDS));
+        assertFalse(queue.offer(3, 1, TimeUnit.MILLISECONDS));
+        assertFalse(queue.offer(3));
+
+        MeteredQueue.Stats stats = queue.stats();
+        assertEquals(2, stats.getEnqueued());
+        assertEquals(2, stats.getTimeouts());
+        assertEquals(1, stats.getRejected());
+        assertEquals(2, stats.getWaits());
+    }
+
+    @Test
+    public void removedTest() {
+        MeteredQueue<Integer> queue = new MeteredQueue<>("test", "log", new ArrayBlockingQueue<>(10));
+        for (int i = 0; i < 10; i++) {
+            queue.offer(i);
+        }
+        queue.poll();
+        assertTrue(queue.removeIf(i -> i > 6));
+        assertTrue(queue.remove(1));
+        assertFalse(queue.remove(100));
+
+        MeteredQueue.Stats stats = queue.stats();
+        assertEquals(4, stats.getRemoved());
+        assertEquals(5, stats.getDequeued());
+        assertEquals(stats.getEnqueued() - stats.getDequeued(), stats.getDepth());
+    }
+}
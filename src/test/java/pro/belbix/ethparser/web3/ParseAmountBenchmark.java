@@ -0,0 +1,66 @@
+package pro.belbix.ethparser.web3;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// run with main(), it is not a part of the test suite
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseAmountBenchmark {
+
+    private static final int SIZE = 1024;
+
+    @Param({"6", "18"})
+    private int decimals;
+    private BigInteger[] amounts;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        amounts = new BigInteger[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            // real swap amounts mostly fit into long
+            amounts[i] = new BigInteger(40 + random.nextInt(40), random);
+        }
+    }
+
+    @Benchmark
+    public void scale99Division(Blackhole blackhole) {
+        for (BigInteger amount : amounts) {
+            blackhole.consume(ParseAmountTest.oldParseAmount(amount, decimals));
+        }
+    }
+
+    @Benchmark
+    public void parseAmount(Blackhole blackhole) {
+        for (BigInteger amount : amounts) {
+            blackhole.consume(MethodDecoder.parseAmount(amount, decimals));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(ParseAmountBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
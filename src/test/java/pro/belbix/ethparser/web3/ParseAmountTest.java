@@ -0,0 +1,38 @@
+package pro.belbix.ethparser.web3;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+import org.junit.Test;
+
+public class ParseAmountTest {
+
+    @Test
+    public void sameAsScale99Division() {
+        Random random = new Random(42);
+        int[] decimals = {0, 6, 8, 18, 24};
+        for (int i = 0; i < 100_000; i++) {
+            BigInteger amount = new BigInteger(1 + random.nextInt(120), random);
+            if (i % 3 == 0) {
+                // round amounts like 1.5 * 10^18
+                amount = BigInteger.valueOf(random.nextInt(1000)).multiply(BigInteger.TEN.pow(random.nextInt(19)));
+            }
+            if (i % 7 == 0) {
+                amount = amount.negate();
+            }
+            int d = decimals[i % decimals.length];
+            assertEquals(amount + " / 10^" + d,
+                Double.doubleToLongBits(oldParseAmount(amount, d)),
+                Double.doubleToLongBits(MethodDecoder.parseAmount(amount, d)));
+        }
+    }
+
+    static double oldParseAmount(BigInteger amount, int decimals) {
+        return new BigDecimal(amount)
+            .divide(new BigDecimal(10L).pow(decimals), 99, RoundingMode.HALF_UP)
+            .doubleValue();
+    }
+}
@@ -0,0 +1,71 @@
+package pro.belbix.ethparser.web3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class ParserRuntimeTest {
+
+    @Test
+    public void replaceWorkerTest() throws InterruptedException {
+        ParserRuntime runtime = new ParserRuntime();
+        CountDownLatch inStep = new CountDownLatch(1);
+        AtomicBoolean oldRunning = new AtomicBoolean();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        runtime.loop("worker", () -> {
+            oldRunning.set(true);
+            inStep.countDown();
+            sleep(300);
+            oldRunning.set(false);
+        });
+        assertTrue(inStep.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch newStep = new CountDownLatch(1);
+        runtime.loop("worker", () -> {
+            if (oldRunning.get()) {
+                overlapped.set(true);
+            }
+            newStep.countDown();
+            sleep(10);
+        });
+        assertTrue(newStep.await(5, TimeUnit.SECONDS));
+        assertFalse(overlapped.get());
+        runtime.shutdown();
+    }
+
+    @Test
+    public void interruptBlockedWorkerTest() throws InterruptedException {
+        ParserRuntime runtime = new ParserRuntime();
+        CountDownLatch inStep = new CountDownLatch(1);
+        CountDownLatch never = new CountDownLatch(1);
+        AtomicInteger interrupters = new AtomicInteger();
+        runtime.loop("blocked", () -> {
+            inStep.countDown();
+            try {
+                never.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, interrupters::incrementAndGet);
+        assertTrue(inStep.await(5, TimeUnit.SECONDS));
+
+        runtime.stop("blocked");
+        assertEquals(1, interrupters.get());
+        assertFalse(runtime.status().get("blocked"));
+        runtime.shutdown();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
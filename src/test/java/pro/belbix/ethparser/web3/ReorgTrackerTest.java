@@ -0,0 +1,67 @@
+package pro.belbix.ethparser.web3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class ReorgTrackerTest {
+
+    @Test
+    public void sameChainTest() {
+        ReorgTracker tracker = new ReorgTracker(16);
+        Map<Long, String> chain = chain(100, 110, "a");
+        chain.forEach(tracker::record);
+        assertEquals(-1, tracker.findForkPoint(110, chain::get));
+    }
+
+    @Test
+    public void forkPointTest() {
+        ReorgTracker tracker = new ReorgTracker(16);
+        chain(100, 110, "a").forEach(tracker::record);
+        Map<Long, String> newChain = chain(100, 107, "a");
+        newChain.putAll(chain(108, 112, "b"));
+        assertEquals(107, tracker.findForkPoint(110, newChain::get));
+
+        tracker.forgetAfter(107);
+        assertNull(tracker.hashOf(108));
+        assertEquals("a107", tracker.hashOf(107));
+    }
+
+    @Test
+    public void sparseBlocksTest() {
+        ReorgTracker tracker = new ReorgTracker(16);
+        tracker.record(100, "a100");
+        tracker.record(105, "a105");
+        tracker.record(110, "a110");
+        Map<Long, String> newChain = chain(100, 103, "a");
+        newChain.putAll(chain(104, 112, "b"));
+        assertEquals(100, tracker.findForkPoint(110, newChain::get));
+    }
+
+    @Test
+    public void deeperThanBufferTest() {
+        ReorgTracker tracker = new ReorgTracker(4);
+        chain(100, 110, "a").forEach(tracker::record);
+        assertNull(tracker.hashOf(106));
+        assertEquals(106, tracker.findForkPoint(110, chain(100, 110, "b")::get));
+    }
+
+    @Test
+    public void onlyLastBlockTrackedTest() {
+        ReorgTracker tracker = new ReorgTracker(16);
+        tracker.record(110, "a110");
+        // the fork can be under any untracked block of the window
+        assertEquals(94, tracker.findForkPoint(110, chain(100, 112, "b")::get));
+    }
+
+    private static Map<Long, String> chain(long from, long to, String fork) {
+        Map<Long, String> chain = new HashMap<>();
+        for (long i = from; i <= to; i++) {
+            chain.put(i, fork + i);
+        }
+        return chain;
+    }
+}
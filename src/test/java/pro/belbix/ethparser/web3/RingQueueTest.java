@@ -0,0 +1,81 @@
+package pro.belbix.ethparser.web3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.Test;
+
+public class RingQueueTest {
+
+    @Test
+    public void boundsTest() throws InterruptedException {
+        RingQueue<Integer> queue = new RingQueue<>(3);
+        assertEquals(4, queue.remainingCapacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+        assertFalse(queue.offer(4, 1, TimeUnit.MILLISECONDS));
+        assertEquals(0, (int) queue.poll());
+        assertTrue(queue.offer(4));
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, queue.drainTo(drained));
+        assertEquals(List.of(1, 2, 3, 4), drained);
+        assertNull(queue.poll(1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void producersTest() throws InterruptedException {
+        RingQueue<Long> queue = new RingQueue<>(16);
+        int producers = 4;
+        int perProducer = 10_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    for (long i = 1; i <= perProducer; i++) {
+                        queue.put(i);
+                    }
+                } catch (InterruptedException ignored) {
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        AtomicLong sum = new AtomicLong();
+        for (int i = 0; i < producers * perProducer; i++) {
+            sum.addAndGet(queue.take());
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(producers * (long) perProducer * (perProducer + 1) / 2, sum.get());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void parkedConsumerTest() throws InterruptedException {
+        RingQueue<Integer> queue = new RingQueue<>(4);
+        Thread producer = new Thread(() -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            queue.offer(1);
+        });
+        producer.start();
+        long start = System.nanoTime();
+        assertEquals(1, (int) queue.poll(10, TimeUnit.SECONDS));
+        // woken by the producer, not by the timeout
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        producer.join();
+
+        start = System.nanoTime();
+        assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+}
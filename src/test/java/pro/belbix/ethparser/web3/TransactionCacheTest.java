@@ -0,0 +1,147 @@
+package pro.belbix.ethparser.web3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import org.junit.Test;
+
+public class TransactionCacheTest {
+
+    @Test
+    public void singleLoadTest() throws InterruptedException {
+        Map<String, String> cache = TransactionCache.lru(10);
+        Map<String, CompletableFuture<String>> loads = new ConcurrentHashMap<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, String> loader = hash -> {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "receipt " + hash;
+        };
+
+        AtomicReference<String> first = new AtomicReference<>();
+        Thread loading = new Thread(() -> first.set(TransactionCache.load("0x1", cache, loads, loader)));
+        loading.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicReference<String> second = new AtomicReference<>();
+        Thread waiting = new Thread(() -> second.set(TransactionCache.load("0x1", cache, loads, loader)));
+        waiting.start();
+        waitParked(waiting);
+        release.countDown();
+        loading.join();
+        waiting.join();
+
+        assertEquals(1, calls.get());
+        assertEquals("receipt 0x1", first.get());
+        assertEquals("receipt 0x1", second.get());
+        assertEquals(0, loads.size());
+        // the next call is served from the cache
+        assertEquals("receipt 0x1", TransactionCache.load("0x1", cache, loads, loader));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void failedLoadTest() throws InterruptedException {
+        Map<String, String> cache = TransactionCache.lru(10);
+        Map<String, CompletableFuture<String>> loads = new ConcurrentHashMap<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException error = new IllegalStateException("node is down");
+        Function<String, String> loader = hash -> {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release);
+            throw error;
+        };
+
+        AtomicReference<Throwable> first = new AtomicReference<>();
+        Thread loading = new Thread(() -> first.set(loadError("0x1", cache, loads, loader)));
+        loading.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicReference<Throwable> second = new AtomicReference<>();
+        Thread waiting = new Thread(() -> second.set(loadError("0x1", cache, loads, loader)));
+        waiting.start();
+        waitParked(waiting);
+        release.countDown();
+        loading.join();
+        waiting.join();
+
+        assertEquals(1, calls.get());
+        assertSame(error, first.get());
+        assertTrue(second.get() instanceof CompletionException);
+        assertSame(error, second.get().getCause());
+        // a failure is not cached, the next call loads again
+        assertEquals(0, loads.size());
+        assertEquals(0, cache.size());
+        assertSame(error, loadError("0x1", cache, loads, loader));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void evictionTest() {
+        Map<String, String> cache = TransactionCache.lru(2);
+        Map<String, CompletableFuture<String>> loads = new ConcurrentHashMap<>();
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, String> loader = hash -> {
+            calls.incrementAndGet();
+            return "receipt " + hash;
+        };
+
+        TransactionCache.load("0x1", cache, loads, loader);
+        TransactionCache.load("0x2", cache, loads, loader);
+        // touch 0x1 so 0x2 becomes the eldest
+        TransactionCache.load("0x1", cache, loads, loader);
+        TransactionCache.load("0x3", cache, loads, loader);
+        assertEquals(3, calls.get());
+        assertEquals(2, cache.size());
+        assertTrue(cache.containsKey("0x1"));
+        assertTrue(cache.containsKey("0x3"));
+
+        TransactionCache.load("0x1", cache, loads, loader);
+        assertEquals(3, calls.get());
+        TransactionCache.load("0x2", cache, loads, loader);
+        assertEquals(4, calls.get());
+    }
+
+    private static Throwable loadError(String hash,
+                                       Map<String, String> cache,
+                                       Map<String, CompletableFuture<String>> loads,
+                                       Function<String, String> loader) {
+        try {
+            TransactionCache.load(hash, cache, loads, loader);
+        } catch (RuntimeException e) {
+            return e;
+        }
+        throw new IllegalStateException("Load didn't fail");
+    }
+
+    private static void waitParked(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.WAITING) {
+            assertTrue("Waiter didn't park", System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package pro.belbix.ethparser.web3.contracts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import pro.belbix.ethparser.entity.contracts.ContractEntity;
+import pro.belbix.ethparser.entity.contracts.TokenEntity;
+import pro.belbix.ethparser.entity.contracts.TokenToUniPairEntity;
+import pro.belbix.ethparser.entity.contracts.UniPairEntity;
+
+public class ContractRegistryTest {
+
+    private static final String FARM = "0xa0246c9032bc3a600820415ae600c6388619a14d";
+    private static final String USDC = "0xa0b86991c6218b36c1d19d4a2e9eb0ce3606eb48";
+    private static final String WETH = "0xc02aaa39b223fe8d0a0e5c4f27ead9083c756cc2";
+    private static final String FARM_USDC = "0x514906fc121c7878424a5c928cad1852cc545892";
+    private static final String FARM_WETH = "0x56feaccb7f750b997b36a68625c7c596f0b41a58";
+
+    @Test
+    public void lookupsTest() {
+        TokenEntity farm = token(FARM, "FARM");
+        UniPairEntity farmUsdc = uniPair(FARM_USDC, "UNI_LP_USDC_FARM", FARM, USDC);
+        UniPairEntity farmWeth = uniPair(FARM_WETH, "UNI_LP_WETH_FARM", FARM, WETH);
+        ContractRegistry registry = new ContractRegistry(
+            Collections.emptyMap(), Collections.emptyMap(),
+            Collections.emptyMap(), Collections.emptyMap(),
+            Map.of(FARM_USDC, farmUsdc, FARM_WETH, farmWeth),
+            Map.of("UNI_LP_USDC_FARM", farmUsdc, "UNI_LP_WETH_FARM", farmWeth),
+            Map.of(FARM, farm), Map.of("FARM", farm),
+            List.of(link(farm, farmUsdc, 100L), link(farm, farmWeth, 200L)));
+
+        assertEquals("FARM", registry.nameByAddress(FARM.toUpperCase().replace("0X", "0x")));
+        assertEquals("UNI_LP_WETH_FARM", registry.nameByAddress(FARM_WETH));
+        assertEquals(FARM_USDC, registry.uniPairForTokens(USDC, FARM));
+        assertNull(registry.uniPairForTokens(USDC, WETH));
+
+        assertNull(registry.uniPairNameForTokenName("FARM", 99));
+        assertEquals("UNI_LP_USDC_FARM", registry.uniPairNameForTokenName("FARM", 100));
+        assertEquals("UNI_LP_USDC_FARM", registry.uniPairNameForTokenName("FARM", 199));
+        assertEquals("UNI_LP_WETH_FARM", registry.uniPairNameForTokenName("FARM", 10_000_000));
+        assertNull(registry.uniPairNameForTokenName("USDC", 10_000_000));
+    }
+
+    private static ContractEntity contract(String address, String name) {
+        ContractEntity contract = new ContractEntity();
+        contract.setAddress(address);
+        contract.setName(name);
+        return contract;
+    }
+
+    private static TokenEntity token(String address, String name) {
+        TokenEntity token = new TokenEntity();
+        token.setContract(contract(address, name));
+        return token;
+    }
+
+    private static UniPairEntity uniPair(String address, String name, String token0, String token1) {
+        UniPairEntity uniPair = new UniPairEntity();
+        uniPair.setContract(contract(address, name));
+        uniPair.setToken0(contract(token0, null));
+        uniPair.setToken1(contract(token1, null));
+        return uniPair;
+    }
+
+    private static TokenToUniPairEntity link(TokenEntity token, UniPairEntity uniPair, long blockStart) {
+        TokenToUniPairEntity link = new TokenToUniPairEntity();
+        link.setToken(token);
+        link.setUniPair(uniPair);
+        link.setBlockStart(blockStart);
+        return link;
+    }
+}
@@ -1,6 +1,7 @@
 package pro.belbix.ethparser.web3.erc20.decoder;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import org.junit.Test;
 
@@ -11,4 +12,11 @@ public class ERC20DecoderTest {
     public void decodeMethodNameTest() {
         assertEquals("sellToUniswap", decoder.decodeMethodName("0xd9627aa4"));
     }
+
+    @Test
+    public void decodeUnknownMethodNameTest() {
+        assertNull(decoder.decodeMethodName("0xffffffff"));
+        assertNull(decoder.decodeMethodName("0x"));
+        assertNull(decoder.decodeMethodName(null));
+    }
 }
@@ -115,18 +115,14 @@ public class RewardParserTest {
     ) {
         List<LogResult> logResults = web3Service.fetchContractLogs(singletonList(contract), onBlock, onBlock);
         assertTrue("Log smaller then necessary", logId < logResults.size());
-        try {
-            RewardDTO dto = rewardParser.parseLog((Log) logResults.get(logId).get());
+        RewardDTO dto = rewardParser.parseLog((Log) logResults.get(logId).get());
 
-            assertNotNull("Dto is null", dto);
-            assertAll(
-                () -> assertEquals("id", id, dto.getId()),
-                () -> assertEquals("vault", vault, dto.getVault()),
-                () -> assertEquals("reward", reward, String.format("%.8f", dto.getReward())),
-                () -> assertEquals("period", period, dto.getPeriodFinish())
-            );
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
+        assertNotNull("Dto is null", dto);
+        assertAll(
+            () -> assertEquals("id", id, dto.getId()),
+            () -> assertEquals("vault", vault, dto.getVault()),
+            () -> assertEquals("reward", reward, String.format("%.8f", dto.getReward())),
+            () -> assertEquals("period", period, dto.getPeriodFinish())
+        );
     }
 }
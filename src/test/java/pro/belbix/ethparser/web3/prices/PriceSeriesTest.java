@@ -0,0 +1,50 @@
+package pro.belbix.ethparser.web3.prices;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PriceSeriesTest {
+
+    @Test
+    public void floorLookupTest() {
+        PriceSeries series = new PriceSeries("FARM", "USDC");
+        series.add(100, 1000, 1.0);
+        series.add(300, 3000, 3.0);
+        // out of order row
+        series.add(200, 2000, 2.0);
+
+        assertEquals(3, series.size());
+        assertEquals(-1, series.floorByBlock(99));
+        assertEquals(2.0, series.priceAt(series.floorByBlock(250)), 0.0);
+        assertEquals(3.0, series.priceAt(series.floorByBlock(1_000_000)), 0.0);
+        assertEquals(1.0, series.priceAt(series.floorByDate(1999)), 0.0);
+        assertEquals(200, series.blockAt(series.floorByDate(2000)));
+    }
+
+    @Test
+    public void duplicateRowTest() {
+        PriceSeries series = new PriceSeries("FARM", "USDC");
+        series.add(100, 1000, 1.0);
+        series.add(200, 2000, 2.0);
+        series.add(100, 1000, 1.0);
+        series.add(200, 2000, 2.5);
+
+        assertEquals(3, series.size());
+        assertEquals(2.5, series.priceAt(series.floorByBlock(200)), 0.0);
+    }
+
+    @Test
+    public void truncateTest() {
+        PriceSeries series = new PriceSeries("FARM", "USDC");
+        series.add(100, 1000, 1.0);
+        series.add(200, 2000, 2.0);
+        series.add(300, 3000, 3.0);
+        series.truncateAfterBlock(200);
+
+        assertEquals(2, series.size());
+        assertEquals(2.0, series.priceAt(series.floorByBlock(1_000_000)), 0.0);
+        series.add(250, 2500, 2.5);
+        assertEquals(2.5, series.priceAt(series.floorByDate(3000)), 0.0);
+    }
+}
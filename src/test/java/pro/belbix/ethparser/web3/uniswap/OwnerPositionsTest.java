@@ -0,0 +1,60 @@
+package pro.belbix.ethparser.web3.uniswap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.junit.Test;
+import pro.belbix.ethparser.dto.v0.UniswapDTO;
+
+public class OwnerPositionsTest {
+
+    @Test
+    public void applySwapsTest() {
+        OwnerPositions positions = new OwnerPositions();
+        positions.loadPosition("owner", 5);
+        positions.loadLastRow("owner", 100, 50.0);
+        positions.loadHead(100, List.of("tx0"));
+        assertEquals(1, positions.holders());
+
+        UniswapDTO sell = swap("tx1", "SELL", 4, 200, 5.0);
+        assertTrue(positions.isBefore(sell.getId(), sell.getBlockDate()));
+        positions.apply(null, sell);
+        assertEquals(1, positions.position("owner"), 0.0);
+        assertEquals(0, positions.holders());
+        assertFalse(positions.isBefore(sell.getId(), sell.getBlockDate()));
+        assertTrue(positions.isHead(200));
+
+        UniswapDTO buy = swap("tx2", "BUY", 3, 200, 20.0);
+        assertTrue(positions.isBefore(buy.getId(), buy.getBlockDate()));
+        positions.apply(null, buy);
+        assertEquals(4, positions.position("owner"), 0.0);
+        assertEquals(1, positions.holders());
+    }
+
+    @Test
+    public void overrideTest() {
+        OwnerPositions positions = new OwnerPositions();
+        UniswapDTO buy = swap("tx1", "BUY", 3, 100, 30.0);
+        positions.apply(null, buy);
+        positions.apply(buy, swap("tx1", "BUY", 2, 100, 20.0));
+        assertEquals(2, positions.position("owner"), 0.0);
+        assertEquals(1, positions.holders());
+        assertFalse(positions.isBefore("tx1", 100));
+        assertFalse(positions.isHead(99));
+    }
+
+    private static UniswapDTO swap(String id, String type, double amount, long blockDate,
+                                   Double balanceUsd) {
+        UniswapDTO dto = new UniswapDTO();
+        dto.setId(id);
+        dto.setOwner("owner");
+        dto.setCoin("FARM");
+        dto.setType(type);
+        dto.setAmount(amount);
+        dto.setBlockDate(blockDate);
+        dto.setOwnerBalanceUsd(balanceUsd);
+        return dto;
+    }
+}
@@ -0,0 +1,30 @@
+package pro.belbix.ethparser.ws;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import org.junit.Test;
+
+public class TopicBufferTest {
+
+    @Test
+    public void dropOldestTest() {
+        TopicBuffer buffer = new TopicBuffer(2, null);
+        buffer.add("a");
+        buffer.add("b");
+        buffer.add("c");
+        assertEquals(List.of("b", "c"), buffer.take());
+        assertEquals(1, buffer.takeDropped());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void coalesceTest() {
+        TopicBuffer buffer = new TopicBuffer(10, o -> ((String) o).substring(0, 1));
+        buffer.add("a1");
+        buffer.add("b1");
+        buffer.add("a2");
+        assertEquals(List.of("b1", "a2"), buffer.take());
+        assertEquals(0, buffer.takeDropped());
+    }
+}